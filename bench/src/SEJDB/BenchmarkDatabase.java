@@ -0,0 +1,92 @@
+package SEJDB;
+
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Database shared by all threads of a benchmark, filled with "rows" rows with the IDs 0 to rows - 1.
+ * <p>
+ * The database is kept under "DataBases/jmhDB_&lt;rows&gt;" and reused by later trials as long as it still
+ * holds exactly these rows; rows added by a benchmark are removed after every iteration.
+ *
+ * @author Dennis Sellemann <a>dsellemann@gmail.com</a>
+ * @version 0.5
+ */
+@State(Scope.Benchmark)
+public class BenchmarkDatabase {
+    
+    static final String TABLE = "BENCH";
+    
+    @Param({"1000", "100000", "1000000"})
+    public int rows;
+    
+    DBServices db;
+    
+    @Setup(Level.Trial)
+    public void open() {
+        
+        db = new DBServices("jmhDB_" + rows, "", "", new String[]{TABLE});
+        db.setPoolSize(1, Runtime.getRuntime().availableProcessors());
+        if (db.getFreeID(TABLE) != rows) {
+            db.clearTable(TABLE);
+            db.setBatchSize(10000);
+            db.insertBatch(TABLE, generate(rows));
+        }
+    }
+    
+    /**
+     * Remove the rows inserted by the benchmark, so every iteration sees the same table size.
+     */
+    @TearDown(Level.Iteration)
+    public void removeInserted() {
+        
+        db.sql("DELETE FROM " + TABLE + " WHERE ID >= " + rows);
+    }
+    
+    @TearDown(Level.Trial)
+    public void close() {
+        
+        db.closeConnection();
+    }
+    
+    /**
+     * @return a random ID of the initial rows.
+     */
+    long randomID() {
+        
+        return ThreadLocalRandom.current().nextInt(rows);
+    }
+    
+    /**
+     * Generate the rows lazily, so a million rows don't have to fit into memory at once.
+     */
+    private static Iterator<Map<String, ?>> generate(int rows) {
+        
+        return new Iterator<Map<String, ?>>() {
+            private int next;
+            
+            @Override
+            public boolean hasNext() {
+                
+                return next < rows;
+            }
+            
+            @Override
+            public Map<String, ?> next() {
+                
+                Map<String, String> row = new HashMap<>();
+                row.put("NAME", "name" + next++);
+                return row;
+            }
+        };
+    }
+}
@@ -0,0 +1,98 @@
+package SEJDB;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Multi-threaded throughput benchmark for one shared {@link DBServices} instance.
+ * <p>
+ * Runs getRow and insertData with 1, 2, 4, ... up to the number of cores threads and prints the
+ * operations per second for each step, so the scaling of the connection pool can be compared.
+ * Pass "virtual" as first argument to run the workers on virtual threads (Java 21+).
+ * <p>
+ * Usage: java -cp bench/target/benchmarks.jar SEJDB.ConcurrentAccessBenchmark [platform|virtual] [rows] [seconds per step]
+ *
+ * @author Dennis Sellemann <a>dsellemann@gmail.com</a>
+ * @version 0.5
+ */
+public class ConcurrentAccessBenchmark {
+    
+    private static final String TABLE = "BENCH";
+    
+    public static void main(String[] args) throws Exception {
+        
+        boolean virtual = args.length > 0 && args[0].equals("virtual");
+        int rows = args.length > 1 ? Integer.parseInt(args[1]) : 10000;
+        int seconds = args.length > 2 ? Integer.parseInt(args[2]) : 5;
+        int cores = Runtime.getRuntime().availableProcessors();
+        
+        DBServices db = new DBServices("benchDB", "", "", new String[]{TABLE});
+        db.setPoolSize(1, cores);
+        db.clearTable(TABLE);
+        List<Map<String, String>> data = new ArrayList<>(rows);
+        for (int i = 0; i < rows; i++) {
+            Map<String, String> row = new HashMap<>();
+            row.put("NAME", "name" + i);
+            data.add(row);
+        }
+        db.insertBatch(TABLE, data);
+        
+        System.out.println("threads\tgetRow ops/s\tinsertData ops/s");
+        for (int threads = 1; threads <= cores; threads *= 2) {
+            double reads = run(threads, seconds, virtual, () -> db.getRow(TABLE, ThreadLocalRandom.current().nextInt(rows)));
+            double writes = run(threads, seconds, virtual, () -> {
+                HashMap<String, String> row = new HashMap<>();
+                row.put("NAME", "bench");
+                db.insertData(TABLE, row);
+            });
+            System.out.printf("%d\t%.0f\t%.0f%n", threads, reads, writes);
+        }
+        db.deleteDatabase();
+    }
+    
+    /**
+     * Run the operation on the given number of threads for the given time.
+     *
+     * @return operations per second over all threads.
+     */
+    private static double run(int threads, int seconds, boolean virtual, Runnable operation) throws Exception {
+        
+        ExecutorService executor = virtual ? newVirtualThreadExecutor() : Executors.newFixedThreadPool(threads);
+        AtomicBoolean running = new AtomicBoolean(true);
+        List<Future<Long>> results = new ArrayList<>();
+        long start = System.nanoTime();
+        for (int t = 0; t < threads; t++) {
+            results.add(executor.submit(() -> {
+                long ops = 0;
+                while (running.get()) {
+                    operation.run();
+                    ops++;
+                }
+                return ops;
+            }));
+        }
+        Thread.sleep(seconds * 1000L);
+        running.set(false);
+        long total = 0;
+        for (Future<Long> result : results) {
+            total += result.get();
+        }
+        executor.shutdown();
+        return total / ((System.nanoTime() - start) / 1e9);
+    }
+    
+    /**
+     * Looked up reflectively, so the benchmark still compiles on Java versions without virtual threads.
+     */
+    private static ExecutorService newVirtualThreadExecutor() throws Exception {
+        
+        return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+    }
+}
@@ -0,0 +1,101 @@
+package SEJDB;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.HashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * JMH benchmarks of the public {@link DBServices} operations at 1K, 100K and 1M rows.
+ * The subclasses run them single-threaded and with one thread per core.
+ * <p>
+ * Usage: java -jar bench/target/benchmarks.jar [-p rows=1000] -rf json -rff bench-results.json
+ *
+ * @author Dennis Sellemann <a>dsellemann@gmail.com</a>
+ * @version 0.5
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public abstract class DBServicesBenchmark {
+    
+    @Benchmark
+    public long insertData(BenchmarkDatabase database) {
+        
+        HashMap<String, String> row = new HashMap<>();
+        row.put("NAME", "inserted");
+        return database.db.insertRow(BenchmarkDatabase.TABLE, row);
+    }
+    
+    @Benchmark
+    public int getFreeID(BenchmarkDatabase database) {
+        
+        return database.db.getFreeID(BenchmarkDatabase.TABLE);
+    }
+    
+    @Benchmark
+    public HashMap<String, String> getRow(BenchmarkDatabase database) {
+        
+        return database.db.getRow(BenchmarkDatabase.TABLE, database.randomID());
+    }
+    
+    @Benchmark
+    public Object getRows(BenchmarkDatabase database) {
+        
+        return database.db.getRows(BenchmarkDatabase.TABLE, "NAME", "name" + database.randomID());
+    }
+    
+    @Benchmark
+    public boolean existsTable(BenchmarkDatabase database) {
+        
+        return database.db.existsTable(BenchmarkDatabase.TABLE);
+    }
+    
+    @Benchmark
+    public void deleteRow(BenchmarkDatabase database, InsertedRow inserted) {
+        
+        database.db.deleteRow(BenchmarkDatabase.TABLE, inserted.ID);
+    }
+    
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public void scan(BenchmarkDatabase database, Blackhole blackhole) {
+        
+        try (Cursor cursor = database.db.scan(BenchmarkDatabase.TABLE)) {
+            for (Row row : cursor) {
+                blackhole.consume(row);
+            }
+        }
+    }
+    
+    /**
+     * A fresh row for every deleteRow call; inserted outside of the measurement.
+     */
+    @State(Scope.Thread)
+    public static class InsertedRow {
+        
+        long ID;
+        
+        @Setup(Level.Invocation)
+        public void insert(BenchmarkDatabase database) {
+            
+            HashMap<String, String> row = new HashMap<>();
+            row.put("NAME", "deleted");
+            ID = database.db.insertRow(BenchmarkDatabase.TABLE, row);
+        }
+    }
+}
@@ -0,0 +1,14 @@
+package SEJDB;
+
+import org.openjdk.jmh.annotations.Threads;
+
+/**
+ * Runs the {@link DBServicesBenchmark} operations on one thread per core, sharing one database.
+ *
+ * @author Dennis Sellemann <a>dsellemann@gmail.com</a>
+ * @version 0.5
+ */
+@Threads(Threads.MAX)
+public class MultiThreadBenchmark extends DBServicesBenchmark {
+    
+}
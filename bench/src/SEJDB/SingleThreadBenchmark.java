@@ -0,0 +1,14 @@
+package SEJDB;
+
+import org.openjdk.jmh.annotations.Threads;
+
+/**
+ * Runs the {@link DBServicesBenchmark} operations on a single thread.
+ *
+ * @author Dennis Sellemann <a>dsellemann@gmail.com</a>
+ * @version 0.5
+ */
+@Threads(1)
+public class SingleThreadBenchmark extends DBServicesBenchmark {
+    
+}
@@ -0,0 +1,67 @@
+package SEJDB;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * JMH benchmark of substring searches ("%...%") through getRows, with the plain LIKE scan and with a text index
+ * on the searched column.
+ * <p>
+ * Usage: java -jar bench/target/benchmarks.jar TextSearchBenchmark [-p rows=100000] -rf json -rff bench-results.json
+ *
+ * @author Dennis Sellemann <a>dsellemann@gmail.com</a>
+ * @version 0.5
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@Threads(1)
+public class TextSearchBenchmark {
+    
+    @Benchmark
+    public Object getRows(BenchmarkDatabase database, TextIndex index) {
+        
+        //"%me123%" matches "name123", "name1230", ...; always 3+ characters, so the text index can be used
+        return database.db.getRows(BenchmarkDatabase.TABLE, "NAME", "%me" + database.randomID() + "%");
+    }
+    
+    /**
+     * Creates the text index on "NAME" for the indexed runs and removes it afterwards.
+     */
+    @State(Scope.Benchmark)
+    public static class TextIndex {
+        
+        @Param({"false", "true"})
+        public boolean indexed;
+        
+        @Setup(Level.Trial)
+        public void create(BenchmarkDatabase database) {
+            
+            if (indexed) {
+                database.db.createTextIndex(BenchmarkDatabase.TABLE, "NAME");
+            }
+        }
+        
+        @TearDown(Level.Trial)
+        public void drop(BenchmarkDatabase database) {
+            
+            database.db.dropTextIndex(BenchmarkDatabase.TABLE, "NAME");
+        }
+    }
+}
@@ -0,0 +1,81 @@
+package SEJDB;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Timespan;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Instrumentation emitting a Java Flight Recorder event for every operation slower than a threshold.
+ * <p>
+ * The events ("SEJDB.SlowOperation") show up in a recording started with e.g.
+ * "-XX:StartFlightRecording" and can be inspected with JDK Mission Control or "jfr print".
+ * Without recording nothing is allocated.
+ * <p>
+ * Compiled for Java 11 into "META-INF/versions/11" of the multi-release jar, so the library itself still runs on
+ * Java 8; create it through {@link Instrumentation#jfr(long)}.
+ *
+ * @author Dennis Sellemann <a>dsellemann@gmail.com</a>
+ * @version 0.5
+ */
+public class JfrInstrumentation implements Instrumentation {
+    
+    private final long thresholdNanos;
+    
+    /**
+     * Constructor for an instrumentation reporting operations slower than the threshold.
+     *
+     * @param thresholdMillis Minimum duration of a reported operation; 0 reports every operation.
+     */
+    public JfrInstrumentation(long thresholdMillis) {
+        
+        this.thresholdNanos = TimeUnit.MILLISECONDS.toNanos(Math.max(0, thresholdMillis));
+    }
+    
+    @Override
+    public void operation(String operation, String tableName, long nanos, long rowsRead, long rowsWritten) {
+        
+        if (nanos < thresholdNanos) {
+            return;
+        }
+        SlowOperationEvent event = new SlowOperationEvent();
+        if (event.shouldCommit()) {
+            event.operation = operation;
+            event.table = tableName;
+            event.executionTime = nanos;
+            event.rowsRead = rowsRead;
+            event.rowsWritten = rowsWritten;
+            event.commit();
+        }
+    }
+    
+    /**
+     * A DBServices operation exceeding the threshold.
+     */
+    @Name("SEJDB.SlowOperation")
+    @Label("Slow Operation")
+    @Category("SEJDB")
+    @Description("DBServices operation slower than the configured threshold")
+    static final class SlowOperationEvent extends Event {
+        
+        @Label("Operation")
+        String operation;
+        
+        @Label("Table")
+        String table;
+        
+        @Label("Execution Time")
+        @Timespan(Timespan.NANOSECONDS)
+        long executionTime;
+        
+        @Label("Rows Read")
+        long rowsRead;
+        
+        @Label("Rows Written")
+        long rowsWritten;
+    }
+}
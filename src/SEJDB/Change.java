@@ -0,0 +1,89 @@
+package SEJDB;
+
+/**
+ * A single entry of the change log of a table; see {@link DBServices#enableChangeLog(String)}.
+ * <p>
+ * A change only names the row; read the row itself to get its current values.
+ *
+ * @author Dennis Sellemann <a>dsellemann@gmail.com</a>
+ * @version 0.5
+ */
+public final class Change {
+    
+    /**
+     * Kind of a change.
+     */
+    public enum Kind {
+        
+        /**
+         * The row was inserted.
+         */
+        INSERT,
+        
+        /**
+         * The row was changed.
+         */
+        UPDATE,
+        
+        /**
+         * The row was deleted.
+         */
+        DELETE,
+        
+        /**
+         * All rows were deleted by {@link DBServices#clearTable(String)}.
+         */
+        TRUNCATE,
+        
+        /**
+         * Changes up to this sequence number were dropped by the retention; read the whole table again and
+         * continue with the following changes.
+         */
+        RESYNC
+    }
+    
+    private final long sequence;
+    private final String tableName;
+    private final long rowID;
+    private final Kind kind;
+    
+    Change(long sequence, String tableName, long rowID, Kind kind) {
+        
+        this.sequence = sequence;
+        this.tableName = tableName;
+        this.rowID = rowID;
+        this.kind = kind;
+    }
+    
+    /**
+     * @return sequence number; increases with every change of the database, with gaps.
+     */
+    public long getSequence() {
+        
+        return sequence;
+    }
+    
+    public String getTableName() {
+        
+        return tableName;
+    }
+    
+    /**
+     * @return ID of the changed row; -1 for {@link Kind#TRUNCATE} and {@link Kind#RESYNC}.
+     */
+    public long getRowID() {
+        
+        return rowID;
+    }
+    
+    public Kind getKind() {
+        
+        return kind;
+    }
+    
+    @Override
+    public String toString() {
+        
+        return sequence + "\t" + tableName + "\t" + kind + (rowID < 0 ? "" : "\t" + rowID);
+    }
+}
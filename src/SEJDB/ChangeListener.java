@@ -0,0 +1,17 @@
+package SEJDB;
+
+/**
+ * Receives the changes of a table in sequence order; see {@link DBServices#addChangeListener(String, ChangeListener)}.
+ *
+ * @author Dennis Sellemann <a>dsellemann@gmail.com</a>
+ * @version 0.5
+ */
+public interface ChangeListener {
+    
+    /**
+     * Called on the change feed thread for every change; keep it short.
+     *
+     * @param change The change.
+     */
+    void changed(Change change);
+}
@@ -0,0 +1,332 @@
+package SEJDB;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Trigger based change log of the tables of a database.
+ * <p>
+ * Every logged table gets an insert, update and delete trigger writing the ID of the changed row into
+ * "SEJDB.CHANGES", in the same transaction as the change itself. The sequence number is an identity column;
+ * a reader of "SEQ &gt; ?" waits for the row lock of an uncommitted change, so it can't skip a change that
+ * commits after a later one. "SEJDB.CHANGE_HORIZON" keeps the highest sequence number dropped by the retention.
+ * The tables live in their own schema, so they don't show up as tables of the database.
+ *
+ * @author Dennis Sellemann <a>dsellemann@gmail.com</a>
+ * @version 0.5
+ */
+final class ChangeLog {
+    
+    private static final String CHANGES = "SEJDB.CHANGES";
+    private static final String HORIZON = "SEJDB.CHANGE_HORIZON";
+    
+    private ChangeLog() {
+        
+    }
+    
+    /**
+     * Create the schema and tables of the change log if they don't exist.
+     *
+     * @param conn Connection to use.
+     * @throws SQLException if the tables can't be created.
+     */
+    static void install(Connection conn) throws SQLException {
+        
+        try (ResultSet rs = conn.getMetaData().getTables(null, "SEJDB", "CHANGES", new String[]{"TABLE"})) {
+            if (rs.next()) {
+                return;
+            }
+        }
+        try (Statement stmt = conn.createStatement()) {
+            try (ResultSet rs = conn.getMetaData().getSchemas(null, "SEJDB")) {
+                if (!rs.next()) {
+                    stmt.executeUpdate("CREATE SCHEMA SEJDB");
+                }
+            }
+            stmt.executeUpdate("CREATE TABLE " + CHANGES + " (SEQ BIGINT GENERATED ALWAYS AS IDENTITY PRIMARY KEY, " +
+                    "TABLE_NAME VARCHAR(128) NOT NULL, ROW_ID BIGINT, OP CHAR(1) NOT NULL)");
+            stmt.executeUpdate("CREATE INDEX SEJDB.CHANGES_TABLE ON " + CHANGES + " (TABLE_NAME, SEQ)");
+            stmt.executeUpdate("CREATE INDEX SEJDB.CHANGES_ROW ON " + CHANGES + " (TABLE_NAME, ROW_ID, SEQ)");
+            stmt.executeUpdate("CREATE TABLE " + HORIZON + " (TABLE_NAME VARCHAR(128) PRIMARY KEY, SEQ BIGINT NOT NULL)");
+        }
+    }
+    
+    /**
+     * @param conn      Connection to use.
+     * @param tableName Targeting table.
+     * @return true if the triggers of the table exist.
+     * @throws SQLException if the system tables can't be read.
+     */
+    static boolean isEnabled(Connection conn, String tableName) throws SQLException {
+        
+        try (PreparedStatement stmt = conn.prepareStatement("SELECT 1 FROM SYS.SYSTRIGGERS WHERE TRIGGERNAME = ?")) {
+            stmt.setString(1, triggerName(tableName, 'I'));
+            try (ResultSet rs = stmt.executeQuery()) {
+                return rs.next();
+            }
+        }
+    }
+    
+    /**
+     * Create the triggers of the table.
+     *
+     * @param conn      Connection to use.
+     * @param tableName Targeting table.
+     * @throws SQLException if a trigger can't be created.
+     */
+    static void enable(Connection conn, String tableName) throws SQLException {
+        
+        try (Statement stmt = conn.createStatement()) {
+            stmt.executeUpdate(trigger(tableName, 'I'));
+            stmt.executeUpdate(trigger(tableName, 'U'));
+            stmt.executeUpdate(trigger(tableName, 'D'));
+        }
+    }
+    
+    /**
+     * Drop the triggers and the logged changes of the table.
+     *
+     * @param conn      Connection to use.
+     * @param tableName Targeting table.
+     * @throws SQLException if a trigger can't be dropped.
+     */
+    static void disable(Connection conn, String tableName) throws SQLException {
+        
+        String name = tableName.toUpperCase();
+        try (Statement stmt = conn.createStatement()) {
+            for (char op : new char[]{'I', 'U', 'D'}) {
+                stmt.executeUpdate("DROP TRIGGER SEJDB." + triggerName(name, op));
+            }
+        }
+        forget(conn, name);
+    }
+    
+    /**
+     * Drop the logged changes and the retention horizon of the table; e.g. after the table was dropped,
+     * which drops its triggers as well.
+     *
+     * @param conn      Connection to use.
+     * @param tableName Targeting table.
+     * @throws SQLException if the changes can't be deleted.
+     */
+    static void forget(Connection conn, String tableName) throws SQLException {
+        
+        for (String table : new String[]{CHANGES, HORIZON}) {
+            try (PreparedStatement stmt = conn.prepareStatement("DELETE FROM " + table + " WHERE TABLE_NAME = ?")) {
+                stmt.setString(1, tableName.toUpperCase());
+                stmt.executeUpdate();
+            }
+        }
+    }
+    
+    /**
+     * Delete all rows of a logged table and log a truncation; has to run inside a transaction.
+     * Derby refuses TRUNCATE on a table with a delete trigger, so the trigger is dropped meanwhile;
+     * the table lock of TRUNCATE keeps other writers out until the commit.
+     *
+     * @param conn      Connection inside a transaction.
+     * @param tableName Targeting table.
+     * @throws SQLException if the table can't be truncated.
+     */
+    static void truncate(Connection conn, String tableName) throws SQLException {
+        
+        String name = tableName.toUpperCase();
+        try (Statement stmt = conn.createStatement()) {
+            stmt.executeUpdate("DROP TRIGGER SEJDB." + triggerName(name, 'D'));
+            stmt.executeUpdate("TRUNCATE TABLE " + name);
+            stmt.executeUpdate(trigger(name, 'D'));
+        }
+        try (PreparedStatement stmt = conn.prepareStatement("INSERT INTO " + CHANGES +
+                " (TABLE_NAME, ROW_ID, OP) VALUES (?, NULL, 'T')")) {
+            stmt.setString(1, name);
+            stmt.executeUpdate();
+        }
+    }
+    
+    /**
+     * Read the changes of a table after a sequence number.
+     * If changes after the sequence number were dropped by the retention, a {@link Change.Kind#RESYNC} comes first.
+     *
+     * @param cache     Statement cache of the connection to use.
+     * @param tableName Targeting table.
+     * @param sequence  Sequence number of the last known change; -1 for all.
+     * @param max       Maximum number of changes.
+     * @return the changes in sequence order.
+     * @throws SQLException if the log can't be read.
+     */
+    static List<Change> since(StatementCache cache, String tableName, long sequence, int max) throws SQLException {
+        
+        String name = tableName.toUpperCase();
+        List<Change> changes = new ArrayList<>();
+        long horizon = horizon(cache, name);
+        if (sequence < horizon) {
+            changes.add(new Change(horizon, name, -1, Change.Kind.RESYNC));
+            sequence = horizon;
+        }
+        PreparedStatement stmt = cache.prepare(StatementCache.key(name, "changesSince"), "SELECT SEQ, ROW_ID, OP FROM " +
+                CHANGES + " WHERE TABLE_NAME = ? AND SEQ > ? ORDER BY SEQ FETCH FIRST ? ROWS ONLY");
+        stmt.setString(1, name);
+        stmt.setLong(2, sequence);
+        stmt.setInt(3, Math.max(1, max - changes.size()));
+        try (ResultSet rs = stmt.executeQuery()) {
+            while (rs.next()) {
+                long rowID = rs.getLong(2);
+                if (rs.wasNull()) {
+                    rowID = -1;
+                }
+                changes.add(new Change(rs.getLong(1), name, rowID, kind(rs.getString(3))));
+            }
+        }
+        return changes;
+    }
+    
+    /**
+     * @param cache     Statement cache of the connection to use.
+     * @param tableName Targeting table.
+     * @return the sequence number of the latest logged change of the table; -1 if there is none.
+     * @throws SQLException if the log can't be read.
+     */
+    static long latest(StatementCache cache, String tableName) throws SQLException {
+        
+        String name = tableName.toUpperCase();
+        PreparedStatement stmt = cache.prepare(StatementCache.key(name, "latestChange"),
+                "SELECT MAX(SEQ) FROM " + CHANGES + " WHERE TABLE_NAME = ?");
+        stmt.setString(1, name);
+        long latest = -1;
+        try (ResultSet rs = stmt.executeQuery()) {
+            if (rs.next()) {
+                latest = rs.getLong(1);
+                if (rs.wasNull()) {
+                    latest = -1;
+                }
+            }
+        }
+        return Math.max(latest, horizon(cache, name));
+    }
+    
+    /**
+     * @param cache     Statement cache of the connection to use.
+     * @param tableName Targeting table.
+     * @return the highest sequence number dropped by the retention; -1 if nothing was dropped.
+     * @throws SQLException if the log can't be read.
+     */
+    static long horizon(StatementCache cache, String tableName) throws SQLException {
+        
+        PreparedStatement stmt = cache.prepare(StatementCache.key(tableName.toUpperCase(), "changeHorizon"),
+                "SELECT SEQ FROM " + HORIZON + " WHERE TABLE_NAME = ?");
+        stmt.setString(1, tableName.toUpperCase());
+        try (ResultSet rs = stmt.executeQuery()) {
+            return rs.next() ? rs.getLong(1) : -1;
+        }
+    }
+    
+    /**
+     * Drop changes a reader doesn't need: every change before the last truncation and every change of a row
+     * followed by a later change of the same row. A reader still ends with the same rows.
+     *
+     * @param conn      Connection to use.
+     * @param tableName Targeting table.
+     * @return number of dropped changes.
+     * @throws SQLException if the log can't be changed.
+     */
+    static int compact(Connection conn, String tableName) throws SQLException {
+        
+        String name = tableName.toUpperCase();
+        int dropped;
+        try (PreparedStatement stmt = conn.prepareStatement("DELETE FROM " + CHANGES + " WHERE TABLE_NAME = ? AND " +
+                "SEQ < (SELECT MAX(SEQ) FROM " + CHANGES + " WHERE TABLE_NAME = ? AND OP = 'T')")) {
+            stmt.setString(1, name);
+            stmt.setString(2, name);
+            dropped = stmt.executeUpdate();
+        }
+        try (PreparedStatement stmt = conn.prepareStatement("DELETE FROM " + CHANGES + " C WHERE C.TABLE_NAME = ? " +
+                "AND C.ROW_ID IS NOT NULL AND C.SEQ < (SELECT MAX(L.SEQ) FROM " + CHANGES + " L " +
+                "WHERE L.TABLE_NAME = C.TABLE_NAME AND L.ROW_ID = C.ROW_ID)")) {
+            stmt.setString(1, name);
+            dropped += stmt.executeUpdate();
+        }
+        return dropped;
+    }
+    
+    /**
+     * Keep only the latest changes of a table and remember the highest dropped sequence number.
+     *
+     * @param conn      Connection inside a transaction.
+     * @param tableName Targeting table.
+     * @param keep      Number of changes to keep.
+     * @return number of dropped changes.
+     * @throws SQLException if the log can't be changed.
+     */
+    static int trim(Connection conn, String tableName, long keep) throws SQLException {
+        
+        String name = tableName.toUpperCase();
+        long cutoff;
+        try (PreparedStatement stmt = conn.prepareStatement("SELECT SEQ FROM " + CHANGES +
+                " WHERE TABLE_NAME = ? ORDER BY SEQ DESC OFFSET ? ROWS FETCH FIRST 1 ROWS ONLY")) {
+            stmt.setString(1, name);
+            stmt.setLong(2, Math.max(0, keep));
+            try (ResultSet rs = stmt.executeQuery()) {
+                if (!rs.next()) {
+                    return 0;
+                }
+                cutoff = rs.getLong(1);
+            }
+        }
+        int dropped;
+        try (PreparedStatement stmt = conn.prepareStatement("DELETE FROM " + CHANGES +
+                " WHERE TABLE_NAME = ? AND SEQ <= ?")) {
+            stmt.setString(1, name);
+            stmt.setLong(2, cutoff);
+            dropped = stmt.executeUpdate();
+        }
+        try (PreparedStatement stmt = conn.prepareStatement("MERGE INTO " + HORIZON + " USING SYSIBM.SYSDUMMY1 ON " +
+                HORIZON + ".TABLE_NAME = ? WHEN MATCHED THEN UPDATE SET SEQ = ? " +
+                "WHEN NOT MATCHED THEN INSERT (TABLE_NAME, SEQ) VALUES (?, ?)")) {
+            stmt.setString(1, name);
+            stmt.setLong(2, cutoff);
+            stmt.setString(3, name);
+            stmt.setLong(4, cutoff);
+            stmt.executeUpdate();
+        }
+        return dropped;
+    }
+    
+    /**
+     * @param tableName Targeting table.
+     * @param op        'I', 'U' or 'D'.
+     * @return the CREATE TRIGGER statement logging the operation.
+     */
+    private static String trigger(String tableName, char op) {
+        
+        String name = tableName.toUpperCase();
+        String event = op == 'I' ? "INSERT" : op == 'U' ? "UPDATE" : "DELETE";
+        String row = op == 'D' ? "OLD AS R" : "NEW AS R";
+        return "CREATE TRIGGER SEJDB." + triggerName(name, op) + " AFTER " + event + " ON " + name +
+                " REFERENCING " + row + " FOR EACH ROW INSERT INTO " + CHANGES + " (TABLE_NAME, ROW_ID, OP) VALUES ('" +
+                name + "', R.ID, '" + op + "')";
+    }
+    
+    private static String triggerName(String tableName, char op) {
+        
+        return tableName.toUpperCase() + "_CHANGE_" + op;
+    }
+    
+    private static Change.Kind kind(String op) {
+        
+        switch (op) {
+            case "I":
+                return Change.Kind.INSERT;
+            case "U":
+                return Change.Kind.UPDATE;
+            case "D":
+                return Change.Kind.DELETE;
+            default:
+                return Change.Kind.TRUNCATE;
+        }
+    }
+}
@@ -0,0 +1,90 @@
+package SEJDB;
+
+/**
+ * Definition of a single table column: name, SQL type, nullability and default value.
+ * <p>
+ * Example: {@code new Column("AGE", "INT").notNull().defaultValue("0")}
+ *
+ * @author Dennis Sellemann <a>dsellemann@gmail.com</a>
+ * @version 0.5
+ */
+public final class Column {
+    
+    private final String name;
+    private final String type;
+    private boolean nullable = true;
+    private String defaultValue;
+    
+    /**
+     * Constructor for a nullable column without default value.
+     *
+     * @param name Column name.
+     * @param type SQL type, e.g. "INT", "BIGINT", "DOUBLE", "VARCHAR(50)", "TIMESTAMP".
+     */
+    public Column(String name, String type) {
+        
+        if (name == null || name.trim().isEmpty() || type == null || type.trim().isEmpty()) {
+            throw new IllegalArgumentException("column name and type must not be empty");
+        }
+        this.name = name.trim();
+        this.type = type.trim();
+    }
+    
+    /**
+     * Forbid null values in this column.
+     *
+     * @return this column.
+     */
+    public Column notNull() {
+        
+        this.nullable = false;
+        return this;
+    }
+    
+    /**
+     * Set the default value used if an insert doesn't contain this column.
+     *
+     * @param defaultValue SQL literal, e.g. "0", "'unknown'" or "CURRENT_TIMESTAMP".
+     * @return this column.
+     */
+    public Column defaultValue(String defaultValue) {
+        
+        this.defaultValue = defaultValue;
+        return this;
+    }
+    
+    public String getName() {
+        
+        return name;
+    }
+    
+    public String getType() {
+        
+        return type;
+    }
+    
+    public boolean isNullable() {
+        
+        return nullable;
+    }
+    
+    public String getDefaultValue() {
+        
+        return defaultValue;
+    }
+    
+    /**
+     * @return the column definition as used inside CREATE TABLE.
+     */
+    String toSQL() {
+        
+        StringBuilder sql = new StringBuilder(name).append(" ").append(type);
+        if (defaultValue != null) {
+            sql.append(" DEFAULT ").append(defaultValue);
+        }
+        if (!nullable) {
+            sql.append(" NOT NULL");
+        }
+        return sql.toString();
+    }
+}
@@ -0,0 +1,68 @@
+package SEJDB;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Counts commits, the writes they made durable and how long they took.
+ * In auto-commit mode a write and its commit are one call, so its duration is counted as commit latency.
+ *
+ * @author Dennis Sellemann <a>dsellemann@gmail.com</a>
+ * @version 0.5
+ */
+class CommitStats {
+    
+    private final LongAdder commits = new LongAdder();
+    private final LongAdder writes = new LongAdder();
+    private final LongAdder nanos = new LongAdder();
+    private final AtomicLong maxNanos = new AtomicLong();
+    
+    /**
+     * Record a commit.
+     *
+     * @param nanos  Duration of the commit.
+     * @param writes Number of writes made durable by it.
+     */
+    void record(long nanos, int writes) {
+        
+        this.commits.increment();
+        this.writes.add(writes);
+        this.nanos.add(nanos);
+        maxNanos.accumulateAndGet(nanos, Math::max);
+    }
+    
+    long getCommits() {
+        
+        return commits.sum();
+    }
+    
+    long getWrites() {
+        
+        return writes.sum();
+    }
+    
+    /**
+     * @return average duration of a commit in milliseconds.
+     */
+    double averageMillis() {
+        
+        long count = commits.sum();
+        return count == 0 ? 0 : nanos.sum() / 1e6 / count;
+    }
+    
+    /**
+     * @return longest commit in milliseconds.
+     */
+    double maxMillis() {
+        
+        return maxNanos.get() / 1e6;
+    }
+    
+    void reset() {
+        
+        commits.reset();
+        writes.reset();
+        nanos.reset();
+        maxNanos.set(0);
+    }
+}
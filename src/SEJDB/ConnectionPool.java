@@ -0,0 +1,492 @@
+package SEJDB;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Small embedded connection pool for one database.
+ * <p>
+ * Idle connections wait in a lock-free deque; the most recently used connection is handed out first,
+ * so its statement cache stays warm. The number of connections is bounded by a semaphore, which parks
+ * waiting threads instead of blocking inside a monitor; virtual threads don't pin their carrier while waiting.
+ * <p>
+ * A thread borrows a connection with {@link #lease()}. Leases are reentrant per thread: nested calls
+ * get the same connection, which is returned to the pool when the outermost lease gets closed.
+ * Cursors borrow with {@link #detachedLease()}; outside of a lease they get a connection of their own, which
+ * later leases never share: a lease may roll back its connection, and a rollback closes every open cursor.
+ * Cursor connections are bounded by the same maximum size, but with permits of their own, so a thread holding
+ * a cursor never waits for a second permit of the same kind and threads can't starve each other.
+ * <p>
+ * Connections idle for longer than the idle timeout are closed as long as more than the minimum size are open.
+ * Connections idle for longer than the validation interval are validated before they are handed out again.
+ *
+ * @author Dennis Sellemann <a>dsellemann@gmail.com</a>
+ * @version 0.5
+ */
+class ConnectionPool {
+    
+    private final String url;
+    private final ConcurrentLinkedDeque<PooledConnection> idle = new ConcurrentLinkedDeque<>();
+    private final Set<PooledConnection> all = ConcurrentHashMap.newKeySet();
+    private final ThreadLocal<Checkout> current = new ThreadLocal<>();
+    private final ThreadLocal<Checkout> detached = new ThreadLocal<>();
+    private final AtomicInteger total = new AtomicInteger();
+    private final Permits permits;
+    private final Permits cursorPermits;
+    private final AtomicLong closedHits = new AtomicLong();
+    private final AtomicLong closedMisses = new AtomicLong();
+    private final AtomicLong closedEvictions = new AtomicLong();
+    private volatile int minSize;
+    private volatile int maxSize;
+    private volatile long idleTimeout = 60000;
+    private volatile long validationInterval = 5000;
+    private volatile long checkoutTimeout = 30000;
+    private volatile int statementCacheSize;
+    private volatile boolean closed;
+    
+    /**
+     * Constructor for a pool; no connection is opened before {@link #open()}.
+     *
+     * @param url                JDBC url of the database.
+     * @param minSize            Connections kept open even if idle.
+     * @param maxSize            Maximum number of leased connections; cursors may hold as many again.
+     * @param statementCacheSize Prepared statements cached per connection.
+     */
+    ConnectionPool(String url, int minSize, int maxSize, int statementCacheSize) {
+        
+        this.url = url;
+        this.maxSize = Math.max(1, maxSize);
+        this.minSize = Math.max(0, Math.min(minSize, this.maxSize));
+        this.statementCacheSize = statementCacheSize;
+        this.permits = new Permits(this.maxSize);
+        this.cursorPermits = new Permits(this.maxSize);
+    }
+    
+    /**
+     * Open the minimum number of connections; at least one, so a missing database gets noticed here.
+     *
+     * @throws SQLException if no connection can be established.
+     */
+    void open() throws SQLException {
+        
+        for (int i = 0; i < Math.max(1, minSize); i++) {
+            idle.offerFirst(create());
+        }
+    }
+    
+    /**
+     * Borrow a connection for the current thread; reentrant.
+     *
+     * @return lease to close after use, preferably with try-with-resources.
+     * @throws SQLException if no connection becomes available within the checkout timeout.
+     */
+    Lease lease() throws SQLException {
+        
+        Checkout checkout = current.get();
+        if (checkout != null) {
+            checkout.retain();
+        } else {
+            checkout = new Checkout(borrow(permits), permits);
+            current.set(checkout);
+        }
+        checkout.bindings++;
+        return new Lease(checkout, true);
+    }
+    
+    /**
+     * Borrow a connection that isn't bound to the current thread; e.g. for a cursor that may be closed elsewhere.
+     * Inside an existing lease of the current thread, that connection is shared instead, so the cursor sees the
+     * uncommitted writes of the lease; it belongs to that transaction then. Otherwise the detached leases of a thread
+     * share one cursor connection, which stays in auto-commit mode and is never handed to {@link #lease()}.
+     *
+     * @return lease to close after use.
+     * @throws SQLException if no connection becomes available within the checkout timeout.
+     */
+    Lease detachedLease() throws SQLException {
+        
+        Checkout checkout = current.get();
+        if (checkout != null) {
+            checkout.retain();
+            return new Lease(checkout, false);
+        }
+        checkout = openDetached();
+        if (checkout == null) {
+            checkout = new Checkout(borrow(cursorPermits), cursorPermits);
+            detached.set(checkout);
+        }
+        return new Lease(checkout, false);
+    }
+    
+    /**
+     * @return the cursor connection of an open detached lease of the current thread, retained for another
+     * detached lease; null if there is none.
+     */
+    private Checkout openDetached() {
+        
+        Checkout checkout = detached.get();
+        if (checkout != null && !checkout.tryRetain()) {
+            //already returned to the pool, maybe by another thread
+            detached.remove();
+            return null;
+        }
+        return checkout;
+    }
+    
+    /**
+     * @return the connection leased by the current thread; null if it holds no lease.
+     */
+    PooledConnection current() {
+        
+        Checkout checkout = current.get();
+        return checkout == null ? null : checkout.connection;
+    }
+    
+    private PooledConnection borrow(Permits permits) throws SQLException {
+        
+        if (closed) {
+            throw new SQLException("connection pool is closed", "08003");
+        }
+        try {
+            if (!permits.tryAcquire(checkoutTimeout, TimeUnit.MILLISECONDS)) {
+                throw new SQLException("no connection available within " + checkoutTimeout + " ms", "08001");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLException("interrupted while waiting for a connection", "08001", e);
+        }
+        try {
+            PooledConnection pc;
+            while ((pc = idle.pollFirst()) != null) {
+                if (System.currentTimeMillis() - pc.lastUsed < validationInterval || pc.isValid()) {
+                    return pc;
+                }
+                discard(pc);
+            }
+            return create();
+        } catch (SQLException | RuntimeException e) {
+            permits.release();
+            throw e;
+        }
+    }
+    
+    private void release(PooledConnection pc, Permits permits) {
+        
+        try {
+            if (!pc.getConnection().isClosed() && !pc.getConnection().getAutoCommit()) {
+                pc.getConnection().rollback();
+                pc.getConnection().setAutoCommit(true);
+            }
+        } catch (SQLException e) {
+            discard(pc);
+            permits.release();
+            return;
+        }
+        if (closed || pc.isClosed()) {
+            discard(pc);
+        } else {
+            pc.lastUsed = System.currentTimeMillis();
+            idle.offerFirst(pc);
+        }
+        permits.release();
+        evictIdle();
+    }
+    
+    /**
+     * Close the oldest idle connections beyond the minimum size once their idle timeout expired.
+     */
+    private void evictIdle() {
+        
+        long now = System.currentTimeMillis();
+        PooledConnection oldest;
+        while (total.get() > minSize && (oldest = idle.peekLast()) != null
+                && now - oldest.lastUsed > idleTimeout) {
+            if (idle.removeLastOccurrence(oldest)) {
+                discard(oldest);
+            }
+        }
+    }
+    
+    private PooledConnection create() throws SQLException {
+        
+        total.incrementAndGet();
+        try {
+            PooledConnection pc = new PooledConnection(DriverManager.getConnection(url), statementCacheSize);
+            all.add(pc);
+            return pc;
+        } catch (SQLException | RuntimeException e) {
+            total.decrementAndGet();
+            throw e;
+        }
+    }
+    
+    private void discard(PooledConnection pc) {
+        
+        if (all.remove(pc)) {
+            total.decrementAndGet();
+            closedHits.addAndGet(pc.getStatementCache().getHits());
+            closedMisses.addAndGet(pc.getStatementCache().getMisses());
+            closedEvictions.addAndGet(pc.getStatementCache().getEvictions());
+            pc.close();
+        }
+    }
+    
+    /**
+     * Close every idle connection; leased connections get closed when they are returned.
+     */
+    void close() {
+        
+        closed = true;
+        PooledConnection pc;
+        while ((pc = idle.pollFirst()) != null) {
+            discard(pc);
+        }
+    }
+    
+    /**
+     * Change the pool bounds; surplus connections get closed once they are idle.
+     *
+     * @param minSize Connections kept open even if idle.
+     * @param maxSize Maximum number of leased connections; cursors may hold as many again.
+     */
+    synchronized void setSize(int minSize, int maxSize) {
+        
+        int newMax = Math.max(1, maxSize);
+        if (newMax > this.maxSize) {
+            permits.release(newMax - this.maxSize);
+            cursorPermits.release(newMax - this.maxSize);
+        } else if (newMax < this.maxSize) {
+            permits.reduce(this.maxSize - newMax);
+            cursorPermits.reduce(this.maxSize - newMax);
+        }
+        this.maxSize = newMax;
+        this.minSize = Math.max(0, Math.min(minSize, newMax));
+        while (total.get() > 2 * this.maxSize) {
+            PooledConnection oldest = idle.pollLast();
+            if (oldest == null) {
+                break;
+            }
+            discard(oldest);
+        }
+    }
+    
+    void setIdleTimeout(long idleTimeout) {
+        
+        this.idleTimeout = idleTimeout;
+    }
+    
+    void setValidationInterval(long validationInterval) {
+        
+        this.validationInterval = validationInterval;
+    }
+    
+    void setCheckoutTimeout(long checkoutTimeout) {
+        
+        this.checkoutTimeout = checkoutTimeout;
+    }
+    
+    void setStatementCacheSize(int statementCacheSize) {
+        
+        this.statementCacheSize = statementCacheSize;
+        for (PooledConnection pc : all) {
+            pc.getStatementCache().setCapacity(statementCacheSize);
+        }
+    }
+    
+    int getSize() {
+        
+        return total.get();
+    }
+    
+    int getIdleCount() {
+        
+        return idle.size();
+    }
+    
+    long getStatementCacheHits() {
+        
+        long hits = closedHits.get();
+        for (PooledConnection pc : all) {
+            hits += pc.getStatementCache().getHits();
+        }
+        return hits;
+    }
+    
+    long getStatementCacheMisses() {
+        
+        long misses = closedMisses.get();
+        for (PooledConnection pc : all) {
+            misses += pc.getStatementCache().getMisses();
+        }
+        return misses;
+    }
+    
+    long getStatementCacheEvictions() {
+        
+        long evictions = closedEvictions.get();
+        for (PooledConnection pc : all) {
+            evictions += pc.getStatementCache().getEvictions();
+        }
+        return evictions;
+    }
+    
+    /**
+     * Connection borrowed from the pool, shared by the leases of one thread; the last closed lease returns it.
+     */
+    private final class Checkout {
+        
+        private final PooledConnection connection;
+        private final Permits permits;
+        private final AtomicInteger leases = new AtomicInteger(1);
+        //open leases bound to the owning thread; only touched by that thread
+        private int bindings;
+        
+        private Checkout(PooledConnection connection, Permits permits) {
+            
+            this.connection = connection;
+            this.permits = permits;
+        }
+        
+        private void retain() {
+            
+            leases.incrementAndGet();
+        }
+        
+        /**
+         * @return false if the connection was already returned to the pool.
+         */
+        private boolean tryRetain() {
+            
+            int count;
+            do {
+                count = leases.get();
+                if (count == 0) {
+                    return false;
+                }
+            } while (!leases.compareAndSet(count, count + 1));
+            return true;
+        }
+        
+        private void releaseLease() {
+            
+            if (leases.decrementAndGet() == 0) {
+                release(connection, permits);
+            }
+        }
+    }
+    
+    /**
+     * Lease of a connection; closing the last lease of the connection returns it to the pool.
+     * Closing a lease again has no effect.
+     */
+    final class Lease implements AutoCloseable {
+        
+        private final Checkout checkout;
+        private final boolean bound;
+        private final AtomicBoolean closed = new AtomicBoolean();
+        
+        private Lease(Checkout checkout, boolean bound) {
+            
+            this.checkout = checkout;
+            this.bound = bound;
+        }
+        
+        Connection getConnection() {
+            
+            return checkout.connection.getConnection();
+        }
+        
+        @Override
+        public void close() {
+            
+            if (!closed.compareAndSet(false, true)) {
+                return;
+            }
+            //bound leases are closed by their own thread, so the binding count needs no synchronization
+            if (bound && --checkout.bindings == 0) {
+                current.remove();
+            }
+            checkout.releaseLease();
+        }
+    }
+    
+    /**
+     * A pooled JDBC connection together with its own statement cache.
+     */
+    static final class PooledConnection {
+        
+        private final Connection connection;
+        private final StatementCache statementCache;
+        private volatile long lastUsed = System.currentTimeMillis();
+        
+        private PooledConnection(Connection connection, int statementCacheSize) {
+            
+            this.connection = connection;
+            this.statementCache = new StatementCache(connection, statementCacheSize);
+        }
+        
+        Connection getConnection() {
+            
+            return connection;
+        }
+        
+        StatementCache getStatementCache() {
+            
+            return statementCache;
+        }
+        
+        private boolean isValid() {
+            
+            try {
+                return connection.isValid(1);
+            } catch (SQLException e) {
+                return false;
+            }
+        }
+        
+        private boolean isClosed() {
+            
+            try {
+                return connection.isClosed();
+            } catch (SQLException e) {
+                return true;
+            }
+        }
+        
+        private void close() {
+            
+            statementCache.clear();
+            try {
+                connection.close();
+            } catch (SQLException e) {
+                e.printStackTrace();
+            }
+        }
+    }
+    
+    /**
+     * Semaphore whose permits can be reduced when the pool shrinks.
+     */
+    private static final class Permits extends Semaphore {
+        
+        private static final long serialVersionUID = 1L;
+        
+        private Permits(int permits) {
+            
+            super(permits);
+        }
+        
+        private void reduce(int reduction) {
+            
+            reducePermits(reduction);
+        }
+    }
+}
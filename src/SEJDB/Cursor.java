@@ -0,0 +1,170 @@
+package SEJDB;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.LongConsumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Lazy iterator over the rows of a query.
+ * <p>
+ * Rows are fetched from the database while iterating; only the current row is held in memory.
+ * The cursor keeps its connection until it is closed; it closes itself once the last row was read,
+ * but must be closed explicitly (preferably with try-with-resources) if the iteration ends early.
+ * A row that can't be read ends the iteration with an exception, never like the end of the rows.
+ *
+ * @author Dennis Sellemann <a>dsellemann@gmail.com</a>
+ * @version 0.5
+ */
+public final class Cursor implements Iterator<Row>, Iterable<Row>, AutoCloseable {
+    
+    private final ConnectionPool.Lease lease;
+    private final PreparedStatement statement;
+    private final ResultSet rs;
+    private final RowLayout layout;
+    private Row next;
+    private final AtomicBoolean closed;
+    private long rowsRead;
+    private LongConsumer onClose;
+    
+    /**
+     * Constructor for a cursor over an executed query; takes ownership of all passed resources.
+     *
+     * @param lease     Connection lease to return on close; may be null.
+     * @param statement Statement to close on close; may be null.
+     * @param rs        Result set to iterate; null for an empty cursor.
+     * @throws SQLException if the result set metadata can't be read.
+     */
+    Cursor(ConnectionPool.Lease lease, PreparedStatement statement, ResultSet rs) throws SQLException {
+        
+        this.lease = lease;
+        this.statement = statement;
+        this.rs = rs;
+        this.closed = new AtomicBoolean(rs == null);
+        this.layout = rs == null ? RowLayout.empty() : RowLayout.of(rs);
+    }
+    
+    /**
+     * @return a cursor without rows.
+     */
+    static Cursor empty() {
+        
+        try {
+            return new Cursor(null, null, null);
+        } catch (SQLException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+    
+    /**
+     * Register a callback receiving the number of rows read once the cursor gets closed.
+     *
+     * @param onClose Callback; replaces a previous one.
+     */
+    void onClose(LongConsumer onClose) {
+        
+        this.onClose = onClose;
+    }
+    
+    /**
+     * @return column names shared by all rows of this cursor.
+     */
+    public List<String> getColumnNames() {
+        
+        return layout.getNames();
+    }
+    
+    /**
+     * @return true if another row was read.
+     * @throws IllegalStateException wrapping the SQLException if the next row can't be read; e.g. because the
+     *                               connection of the cursor was rolled back. The cursor is closed then.
+     */
+    @Override
+    public boolean hasNext() {
+        
+        if (next != null) {
+            return true;
+        }
+        if (closed.get()) {
+            return false;
+        }
+        try {
+            if (rs.next()) {
+                Object[] values = new Object[layout.size()];
+                layout.read(rs, values, 0);
+                next = new Row(layout, values, 0);
+                rowsRead++;
+                return true;
+            }
+        } catch (SQLException e) {
+            close();
+            throw new IllegalStateException("unable to read rows after row " + rowsRead + "!", e);
+        }
+        close();
+        return false;
+    }
+    
+    @Override
+    public Row next() {
+        
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        Row row = next;
+        next = null;
+        return row;
+    }
+    
+    @Override
+    public Iterator<Row> iterator() {
+        
+        return this;
+    }
+    
+    /**
+     * Return the remaining rows as sequential stream; closing the stream closes the cursor.
+     *
+     * @return stream of rows.
+     */
+    public Stream<Row> stream() {
+        
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(this, Spliterator.ORDERED | Spliterator.NONNULL),
+                false).onClose(this::close);
+    }
+    
+    /**
+     * Release the result set, the statement and the connection. Calling it again has no effect.
+     */
+    @Override
+    public void close() {
+        
+        next = null;
+        //a stream may be closed by another thread than the one that read it
+        if (!closed.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            rs.close();
+            if (statement != null) {
+                statement.close();
+            }
+        } catch (SQLException e) {
+            e.printStackTrace();
+        } finally {
+            if (lease != null) {
+                lease.close();
+            }
+            if (onClose != null) {
+                onClose.accept(rowsRead);
+            }
+        }
+    }
+}
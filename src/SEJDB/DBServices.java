@@ -1,11 +1,35 @@
 package SEJDB;
 
 import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
 import java.sql.*;
+import java.text.SimpleDateFormat;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Date;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
 import java.util.Map;
 import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Stream;
 
 /**
  * Simple framework for embedded java databases.
@@ -18,16 +42,59 @@ import java.util.Objects;
  * @author Dennis Sellemann <a>dsellemann@gmail.com</a>
  * @version 0.5
  */
+//"try (ConnectionPool.Lease lease = lease())" binds a connection to the thread for getConn() and the
+//statement cache; the body uses the lease through them, not through the variable
+@SuppressWarnings("try")
 public class DBServices {
     
     //TODO: account bezogene sicherungen integrieren; siehe "deleteDatabase()"
     //TODO: Fehlerabfangen: Datenbank wird zwischendrin gelöscht!
     
-    private Connection conn;
+    private ConnectionPool pool;
     private String dbName;
     private String login;
     private String password;
-    private String[] defaultTables;
+    private TableDefinition[] defaultTables;
+    private final Map<String, IdAllocator> idAllocators = new ConcurrentHashMap<>();
+    private final SchemaCatalog catalog = new SchemaCatalog();
+    private final Map<String, RowCache> rowCaches = new ConcurrentHashMap<>();
+    private final Map<String, NGramIndex> textIndexes = new ConcurrentHashMap<>();
+    private final IndexAdvisor indexAdvisor = new IndexAdvisor();
+    private final CommitStats commitStats = new CommitStats();
+    private final GroupCommit groupCommit = new GroupCommit((writes, work) -> runInTransaction(null, writes, work),
+            2000, 64);
+    private Durability durability = Durability.STRICT;
+    private Storage storage = Storage.DISK;
+    private Startup startup = Startup.STANDARD;
+    private final Object startLock = new Object();
+    private volatile boolean startPending;
+    private boolean starting;
+    private boolean startFailed;
+    private final Map<String, Long> startupTimes = new LinkedHashMap<>();
+    private ScheduledExecutorService checkpointer;
+    private long checkpointSeconds = 60;
+    private final List<ChangeSubscription> subscriptions = new CopyOnWriteArrayList<>();
+    private ScheduledExecutorService changeFeed;
+    private ScheduledFuture<?> changePolling;
+    private ScheduledFuture<?> changeMaintenance;
+    private long changePollMillis = 200;
+    private long changeRetention;
+    private volatile boolean changeLogInstalled;
+    private final Map<String, Boolean> changeLogTables = new ConcurrentHashMap<>();
+    private volatile Instrumentation instrumentation = Instrumentation.NONE;
+    private volatile int autoIndexThreshold;
+    private ExecutorService indexer;
+    private final AtomicBoolean indexCheckQueued = new AtomicBoolean();
+    private volatile boolean lowestFreeID = true;
+    private int batchSize = 1000;
+    /**
+     * Maximum number of values per "IN (...)" list.
+     */
+    static final int IN_LIST_SIZE = 256;
+    private int fetchSize = 100;
+    private int statementCacheSize = 64;
+    private int minConnections = 1;
+    private int maxConnections = Math.max(4, Runtime.getRuntime().availableProcessors());
     
     
     //---Constructors------------------------------------------------------------------------------
@@ -42,9 +109,24 @@ public class DBServices {
      */
     public DBServices(String dbName, String login, String password) {
         
+        this(dbName, login, password, Durability.STRICT);
+    }
+    
+    /**
+     * Constructor for a database without given default tables and with the given durability.
+     * Best use if the database already exists.
+     *
+     * @param dbName     Name of the Database
+     * @param login      Account- Name for the Connection
+     * @param password   Login- Password for the Connection
+     * @param durability How writes are made durable
+     */
+    public DBServices(String dbName, String login, String password, Durability durability) {
+        
         setDbName(dbName);
         setLogin(login);
         setPassword(password);
+        setDurability(durability);
         setUpDB();
     }
     
@@ -59,9 +141,25 @@ public class DBServices {
      */
     public DBServices(String dbName, String login, String password, String[] defaultTables) {
         
+        this(dbName, login, password, defaultTables, Durability.STRICT);
+    }
+    
+    /**
+     * Constructor for a database without given default tables and with the given durability.
+     * Best use if the database doesn't exists already.
+     *
+     * @param dbName        Name of the Database
+     * @param login         Account- Name for the Connection
+     * @param password      Login- Password for the connection
+     * @param defaultTables Array of default tables to create if the database doesn't exist already
+     * @param durability    How writes are made durable
+     */
+    public DBServices(String dbName, String login, String password, String[] defaultTables, Durability durability) {
+        
         setDbName(dbName);
         setLogin(login);
         setPassword(password);
+        setDurability(durability);
         setDefaultTables(defaultTables);
         if (getDefaultTables().length <= 0) {
             System.out.println("no default tables detected!");
@@ -69,6 +167,99 @@ public class DBServices {
         setUpDB();
     }
     
+    /**
+     * Constructor for a database with typed default tables.
+     * Best use if the database doesn't exists already.
+     *
+     * @param dbName        Name of the Database
+     * @param login         Account- Name for the Connection
+     * @param password      Login- Password for the connection
+     * @param defaultTables Definitions of the default tables to create if the database doesn't exist already
+     */
+    public DBServices(String dbName, String login, String password, TableDefinition[] defaultTables) {
+        
+        this(dbName, login, password, defaultTables, Durability.STRICT);
+    }
+    
+    /**
+     * Constructor for a database with typed default tables and the given durability.
+     * Best use if the database doesn't exists already.
+     *
+     * @param dbName        Name of the Database
+     * @param login         Account- Name for the Connection
+     * @param password      Login- Password for the connection
+     * @param defaultTables Definitions of the default tables to create if the database doesn't exist already
+     * @param durability    How writes are made durable
+     */
+    public DBServices(String dbName, String login, String password, TableDefinition[] defaultTables,
+                      Durability durability) {
+        
+        this(dbName, login, password, defaultTables, durability, Storage.DISK);
+    }
+    
+    /**
+     * Constructor for a database without given default tables, kept in the given storage.
+     * Best use if the database already exists.
+     *
+     * @param dbName   Name of the Database
+     * @param login    Account- Name for the Connection
+     * @param password Login- Password for the Connection
+     * @param storage  Where the database is kept
+     */
+    public DBServices(String dbName, String login, String password, Storage storage) {
+        
+        setDbName(dbName);
+        setLogin(login);
+        setPassword(password);
+        setStorage(storage);
+        setUpDB();
+    }
+    
+    /**
+     * Constructor for a database with typed default tables, the given durability and storage.
+     * Best use if the database doesn't exists already.
+     *
+     * @param dbName        Name of the Database
+     * @param login         Account- Name for the Connection
+     * @param password      Login- Password for the connection
+     * @param defaultTables Definitions of the default tables to create if the database doesn't exist already
+     * @param durability    How writes are made durable
+     * @param storage       Where the database is kept
+     */
+    public DBServices(String dbName, String login, String password, TableDefinition[] defaultTables,
+                      Durability durability, Storage storage) {
+        
+        this(dbName, login, password, defaultTables, durability, storage, Startup.STANDARD);
+    }
+    
+    /**
+     * Constructor for a database with typed default tables, the given durability, storage and startup.
+     * Use {@link Startup#FAST} or {@link Startup#LAZY} when many instances are created or startup time matters.
+     *
+     * @param dbName        Name of the Database
+     * @param login         Account- Name for the Connection
+     * @param password      Login- Password for the connection
+     * @param defaultTables Definitions of the default tables to create if they don't exist already
+     * @param durability    How writes are made durable
+     * @param storage       Where the database is kept
+     * @param startup       How the database is connected and the default tables are created
+     */
+    public DBServices(String dbName, String login, String password, TableDefinition[] defaultTables,
+                      Durability durability, Storage storage, Startup startup) {
+        
+        setDbName(dbName);
+        setStorage(storage);
+        setLogin(login);
+        setPassword(password);
+        setDurability(durability);
+        setDefaultTables(defaultTables);
+        this.startup = startup == null ? Startup.STANDARD : startup;
+        if (getDefaultTables().length <= 0 && this.startup == Startup.STANDARD) {
+            System.out.println("no default tables detected!");
+        }
+        setUpDB();
+    }
+    
     //---Private Methods----------------------------------------------------------------------------
     
     /**
@@ -88,545 +279,4110 @@ public class DBServices {
         if (getPassword().equals("")) {
             setPassword("password");
         }
+        if (startup == Startup.LAZY) {
+            startPending = true;
+            return;
+        }
+        if (startup == Startup.FAST) {
+            fastStart();
+            //a failed start is tried again on the next call, like a lazy one
+            startPending = pool == null;
+            return;
+        }
         
+        long start = System.nanoTime();
         try {
-            String url = "jdbc:derby:" + System.getProperty("user.dir") + "/DataBases/" + getDbName();
-            setConn(DriverManager.getConnection(url));//, getLogin(), getPassword()));    //TODO: add account support later
+            setPool(openPool(getDbUrl()));
+            long connected = phase("connect", start);
+            refreshSchema();
+            phase("catalog", connected);
             System.out.println("Database excise...");
             System.out.println("connected to database: \"" + getDbName() + "\"\n");
         } catch (SQLException e) {
-            initDb();
+            //the failed attempt counts as connect time
+            long created = phase("connect", start);
+            if (!loadCheckpoint()) {
+                initDb();
+            }
+            phase("bootstrap", created);
         }
+        phase("total", start);
+        scheduleCheckpoints();
     }
     
     /**
-     * Initialise a new Database with default Tables if passed.
+     * Connect with a single attempt and bootstrap the default tables only if their schema version changed;
+     * see {@link Startup#FAST}.
      */
-    private void initDb() {
+    private void fastStart() {
         
+        long start = System.nanoTime();
+        //a hybrid database starts from its last checkpoint; createFrom and create are ignored if the database exists
+        File checkpoint = getStorage() == Storage.HYBRID ? getCheckpointSource() : null;
         try {
-            String url = "jdbc:derby:" + System.getProperty("user.dir") + "/DataBases/" + getDbName() + ";create=true";
-            setConn(DriverManager.getConnection(url));//, getLogin(), getPassword()));    //TODO: add account support later
-            
-            if (getDefaultTables() != null) {
-                System.out.println("creating new tables:");
-                for (String s : getDefaultTables()) {
-                    createTable(s);
+            setPool(openPool(getDbUrl() + (checkpoint == null ? ";create=true" : ";createFrom=" + checkpoint.getPath())));
+            long phase = phase("connect", start);
+            try (ConnectionPool.Lease lease = lease()) {
+                catalog.load(getConn());
+                phase = phase("catalog", phase);
+                String version = SchemaVersion.of(getDefaultTables());
+                //a default table dropped by deleteTable leaves the version unchanged; create it again
+                if (!version.equals(SchemaVersion.read(getConn())) || missesDefaultTable()) {
+                    bootstrap(version);
                 }
-            } else {
-                System.out.println("no default tables set!");
+                phase("bootstrap", phase);
             }
         } catch (SQLException e) {
-            e.printStackTrace();
+            System.out.println("unable to connect to database \"" + getDbName() + "\"!");
+            if (!startFailed) {
+                //every further call reports the failure again; the details are printed once
+                startFailed = true;
+                e.printStackTrace();
+            }
+            if (pool != null) {
+                pool.close();
+                setPool(null);
+            }
+            return;
         }
-        System.out.println("\nDatabase initialisation completed!\n");
+        phase("total", start);
+        record("startup", null, start, 0, 0);
+        if (instrumentation.isLogging()) {
+            instrumentation.log("connected to database: \"" + getDbName() + "\" " + getStartupTimes());
+        }
+        scheduleCheckpoints();
     }
     
     /**
-     * Delete a file and if file is a directory; deleting its sub-directory's and sub-files.
-     *
-     * @param file File to delete.
+     * @return true if one of the default tables isn't in the loaded catalog.
      */
-    private void delete(File file) {
+    private boolean missesDefaultTable() {
         
-        if (file.isDirectory()) {
-            for (File c : Objects.requireNonNull(file.listFiles()))
-                delete(c);
+        if (getDefaultTables() != null) {
+            for (TableDefinition table : getDefaultTables()) {
+                if (!table.getName().isEmpty() && !catalog.contains(table.getName())) {
+                    return true;
+                }
+            }
         }
-        if (!file.delete())
-            System.out.println("Failed to delete file: " + file);
-    }
-    
-    //---Non Public Setter and Getter--------------------------------------------------------------
-    
-    private String getDbName() {
-        
-        return this.dbName;
+        return false;
     }
     
-    private void setDbName(String dbName) {
+    /**
+     * Create the missing default tables and store the schema version, all in one transaction.
+     *
+     * @param version Schema version of the default tables.
+     * @throws SQLException if a table can't be created; nothing is created then.
+     */
+    private void bootstrap(String version) throws SQLException {
         
-        this.dbName = dbName;
+        Connection conn = getConn();
+        conn.setAutoCommit(false);
+        List<String> created = new ArrayList<>();
+        try (Statement stmt = conn.createStatement()) {
+            if (getDefaultTables() != null) {
+                for (TableDefinition table : getDefaultTables()) {
+                    String name = table.getName().toUpperCase();
+                    if (!name.isEmpty() && !catalog.contains(name) && !created.contains(name)) {
+                        stmt.executeUpdate(table.toSQL());
+                        created.add(name);
+                    }
+                }
+            }
+            SchemaVersion.write(conn, version);
+            conn.commit();
+        } finally {
+            conn.rollback();
+            conn.setAutoCommit(true);
+        }
+        for (String name : created) {
+            catalog.load(conn, name);
+        }
     }
     
-    private Connection getConn() {
+    /**
+     * Connect a {@link Startup#LAZY} instance on its first use; other threads wait until it is connected.
+     * If the connection fails, the pool stays null and the next call tries again.
+     */
+    private void ensureStarted() {
         
-        return this.conn;
+        if (startPending) {
+            synchronized (startLock) {
+                //the starting thread itself passes through; its nested calls must not start again
+                if (startPending && !starting) {
+                    starting = true;
+                    try {
+                        fastStart();
+                    } finally {
+                        starting = false;
+                        startPending = pool == null;
+                    }
+                }
+            }
+        }
     }
     
-    private void setConn(Connection conn) {
+    /**
+     * Record the duration of a startup phase.
+     *
+     * @param name  Name of the phase.
+     * @param start Start of the phase in nanoseconds.
+     * @return the end of the phase; the start of the next one.
+     */
+    private long phase(String name, long start) {
         
-        this.conn = conn;
+        long now = System.nanoTime();
+        synchronized (startupTimes) {
+            startupTimes.put(name, (now - start) / 1000);
+        }
+        return now;
     }
     
-    private String getLogin() {
+    /**
+     * Load the last checkpoint of a hybrid database into memory.
+     *
+     * @return true if a checkpoint was loaded.
+     */
+    private boolean loadCheckpoint() {
         
-        return this.login;
+        File checkpoint = getCheckpointSource();
+        if (getStorage() != Storage.HYBRID || checkpoint == null) {
+            return false;
+        }
+        try {
+            //createFrom only matters while the database gets created; reconnect without it
+            openPool(getDbUrl() + ";createFrom=" + checkpoint.getPath()).close();
+            setPool(openPool(getDbUrl()));
+            refreshSchema();
+            System.out.println("loaded checkpoint of database: \"" + getDbName() + "\"\n");
+            return true;
+        } catch (SQLException e) {
+            System.out.println("unable to load checkpoint \"" + checkpoint + "\"!");
+        }
+        return false;
     }
     
-    private void setLogin(String login) {
+    /**
+     * @return directory of the last complete checkpoint; null if there is none.
+     */
+    private File getCheckpointSource() {
         
-        this.login = login;
+        File checkpoint = new File(getDbPath());
+        if (checkpoint.isDirectory()) {
+            return checkpoint;
+        }
+        //a checkpoint interrupted while it replaced the previous one
+        checkpoint = new File(getDbPath() + ".checkpoint", getDbName());
+        return checkpoint.isDirectory() ? checkpoint : null;
     }
     
-    private String getPassword() {
+    /**
+     * (Re-)start the periodic checkpoints of a hybrid database.
+     */
+    private synchronized void scheduleCheckpoints() {
         
-        return this.password;
+        stopCheckpoints();
+        if (getStorage() != Storage.HYBRID || checkpointSeconds <= 0) {
+            return;
+        }
+        checkpointer = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "SEJDB-checkpoint-" + getDbName());
+            thread.setDaemon(true);
+            return thread;
+        });
+        checkpointer.scheduleWithFixedDelay(this::checkpoint, checkpointSeconds, checkpointSeconds, TimeUnit.SECONDS);
     }
     
-    private void setPassword(String password) {
+    private synchronized void stopCheckpoints() {
         
-        this.password = password;
+        if (checkpointer != null) {
+            checkpointer.shutdown();
+            checkpointer = null;
+        }
     }
     
-    private String[] getDefaultTables() {
+    /**
+     * @return path of the database directory on disk; the checkpoint location of a hybrid database.
+     */
+    private String getDbPath() {
         
-        return this.defaultTables;
+        return System.getProperty("user.dir") + "/DataBases/" + getDbName();
     }
     
-    private void setDefaultTables(String[] defaultTables) {
+    /**
+     * @return JDBC url of the database without attributes.
+     */
+    private String getDbUrl() {
         
-        this.defaultTables = defaultTables;
+        return "jdbc:derby:" + (getStorage() == Storage.DISK ? getDbPath() : "memory:" + getDbName());
     }
     
-    //---Public Methods----------------------------------------------------------------------------
-    
     /**
-     * Perform a basic SQL statement without error correction!
-     * Can't show or print results.
-     *
-     * @param sql A SQL statement in string format.
+     * Initialise a new Database with default Tables if passed.
      */
-    public void sql(String sql) {
+    private void initDb() {
         
-        if (!sql.contains(";")) {
-            if (!sql.contains("SELECT") && !sql.contains("select")) {
-                try {
-                    Statement statement = getConn().createStatement();
-                    statement.execute(sql);
-                    System.out.println("SQL statement performed.");
-                } catch (SQLException e) {
-                    System.out.println("unable to perform sql statement!");
+        try {
+            setPool(openPool(getDbUrl() + ";create=true"));
+            refreshSchema();
+            
+            if (getDefaultTables() != null) {
+                System.out.println("creating new tables:");
+                for (TableDefinition table : getDefaultTables()) {
+                    createTable(table);
                 }
             } else {
-                try {
-                    Statement stmt = getConn().createStatement();
-                    ResultSet rs = stmt.executeQuery(sql);
-                    ResultSetMetaData rsmd = rs.getMetaData();
-                    while (rs.next()) {
-                        for (int i = 1; i <= rsmd.getColumnCount(); i++) {
-                            System.out.print(rs.getString(i) + "\t");
-                        }
-                        System.out.println("");
-                    }
-                    rs.close();
-                    System.out.println("");
-                } catch (SQLException e) {
-                    System.out.println("unable to perform sql statement containing 'select'!");
-                }
+                System.out.println("no default tables set!");
             }
-        } else {
-            System.out.println("unable to perform sql statement containing ; or multiple commands appended!");
+        } catch (SQLException e) {
+            e.printStackTrace();
         }
+        System.out.println("\nDatabase initialisation completed!\n");
     }
     
     /**
-     * Close the current connection to the belonged database.
+     * Open the connection pool; the database boots with the chosen durability.
+     *
+     * @param url JDBC url of the database.
+     * @return the opened pool.
+     * @throws SQLException if no connection can be established.
      */
-    public void closeConnection() {
+    private ConnectionPool openPool(String url) throws SQLException {
         
+        ConnectionPool pool = new ConnectionPool(url, minConnections, maxConnections, statementCacheSize);
+        if (getDurability() != Durability.RELAXED) {
+            pool.open();//, getLogin(), getPassword()));    //TODO: add account support later
+            return pool;
+        }
+        //Derby reads the property when the database boots; restore it so other databases of the JVM stay durable
+        String previous = System.getProperty("derby.system.durability");
+        System.setProperty("derby.system.durability", "test");
         try {
-            getConn().close();
-            System.out.println("closed connection to \"" + getDbName() + "\".");
-        } catch (SQLException e) {
-            e.printStackTrace();
+            pool.open();
+        } finally {
+            if (previous == null) {
+                System.clearProperty("derby.system.durability");
+            } else {
+                System.setProperty("derby.system.durability", previous);
+            }
         }
+        return pool;
     }
     
     /**
-     * Create a new table (with a fix primary-key: "id" as Integer) if not already exists.
+     * Check if a write of the current thread has to join a group commit: only outside of a transaction.
      *
-     * @param tableName Name for the new table
+     * @return true if the write has to be passed to the group commit.
      */
-    public void createTable(String tableName) {
-        //create table with a default id "id"
+    private boolean joinsGroupCommit() {
+        
+        if (getDurability() != Durability.GROUP_COMMIT || getPool() == null) {
+            return false;
+        }
+        ConnectionPool.PooledConnection current = getPool().current();
         try {
-            if (!existsTable(tableName)) {
-                if (!tableName.equals("")) {
-                    
-                    Statement statement = getConn().createStatement();
-                    statement.executeUpdate("CREATE TABLE " + tableName + " (ID INT PRIMARY KEY, NAME VARCHAR (50))");
-                    System.out.println("table \"" + tableName + "\" created successfully.");
-                    
-                } else {
-                    System.out.println("ignoring empty table!");
-                }
-            }
+            return current == null || current.getConnection().getAutoCommit();
         } catch (SQLException e) {
-            System.out.println("unable to create table: \"" + tableName + "\"");
+            return false;
         }
     }
     
     /**
-     * Delete the hole table if exists.
+     * Record the duration of a write as commit latency if it was committed automatically.
      *
-     * @param tableName Name of the Table to delete.
+     * @param start Start of the write in nanoseconds.
+     * @throws SQLException if the connection is closed.
      */
-    public void deleteTable(String tableName) {
+    private void recordAutoCommit(long start) throws SQLException {
         
-        try {
-            if (!existsTable(tableName)) {
-                System.out.println("Table: \"" + tableName + "\" not found!");
-            } else {
-                String sql = "DROP TABLE " + tableName;
-                Statement statement = getConn().createStatement();
-                statement.executeUpdate(sql);
-                System.out.println("deleted table:\"" + tableName + "\" successfully!");
-            }
-        } catch (SQLException e) {
-            System.out.println("\nunable to delete table: \"" + tableName + "\"!\n");
-            e.printStackTrace();
+        if (getConn().getAutoCommit()) {
+            commitStats.record(System.nanoTime() - start, 1);
         }
-        
     }
     
     /**
-     * Print the names of all current tables in the database.
+     * Report a completed operation to the instrumentation.
+     *
+     * @param operation   Name of the public method.
+     * @param tableName   Targeting table; may be null.
+     * @param start       Start of the operation in nanoseconds.
+     * @param rowsRead    Number of rows returned.
+     * @param rowsWritten Number of rows inserted or deleted.
      */
-    public void printTableNames() {
+    private void record(String operation, String tableName, long start, long rowsRead, long rowsWritten) {
         
-        try {
-            DatabaseMetaData meta = getConn().getMetaData();
-            ResultSet rs = meta.getTables(null, null, null, new String[]{"TABLE"});
-            System.out.println("\nList of tables: ");
-            while (rs.next()) {
-                System.out.println(rs.getString("TABLE_NAME"));
-            }
-            System.out.println("\n");
-            rs.close();
-        } catch (SQLException e) {
-            e.printStackTrace();
-        }
+        instrumentation.operation(operation, tableName, System.nanoTime() - start, rowsRead, rowsWritten);
     }
     
+    /**
+     * Check if a SQL statement changes the structure of the database.
+     *
+     * @param sql A SQL statement in string format.
+     * @return true for CREATE, DROP, ALTER and RENAME statements.
+     */
+    private boolean isDDL(String sql) {
+        
+        String statement = sql.trim().toUpperCase();
+        return statement.startsWith("CREATE") || statement.startsWith("DROP") || statement.startsWith("ALTER")
+                || statement.startsWith("RENAME");
+    }
     
     /**
-     * Print the content of the given table to the console.
+     * Delete a file and if file is a directory; deleting its sub-directory's and sub-files.
      *
-     * @param tableName The name of the table to print.
+     * @param file File to delete.
      */
-    public void printTable(String tableName) {
+    private void delete(File file) {
         
+        if (file.isDirectory()) {
+            for (File c : Objects.requireNonNull(file.listFiles()))
+                delete(c);
+        }
+        if (!file.delete())
+            System.out.println("Failed to delete file: " + file);
+    }
+    
+    /**
+     * Return the ID allocator of the table; seeded from the table on first use.
+     *
+     * @param tableName Targeting table.
+     * @return the allocator belonging to the table.
+     * @throws SQLException if the table can't be read.
+     */
+    private IdAllocator getIdAllocator(String tableName) throws SQLException {
+        
+        String key = tableName.toUpperCase();
+        IdAllocator allocator = idAllocators.get(key);
+        if (allocator == null) {
+            IdAllocator seeded = seedIdAllocator(tableName);
+            allocator = idAllocators.putIfAbsent(key, seeded);
+            if (allocator == null) {
+                allocator = seeded;
+            }
+        }
+        return allocator;
+    }
+    
+    /**
+     * Create a new ID allocator for the table.
+     * Lowest free ID mode needs every used ID once; append mode only needs MAX(ID).
+     *
+     * @param tableName Targeting table.
+     * @return seeded allocator.
+     * @throws SQLException if the table can't be read.
+     */
+    private IdAllocator seedIdAllocator(String tableName) throws SQLException {
+        
+        IdAllocator allocator = new IdAllocator(isLowestFreeID());
+        String sql = allocator.isLowestFree() ? "SELECT ID FROM " + tableName : "SELECT MAX(ID) FROM " + tableName;
+        try (Statement stmt = getConn().createStatement(); ResultSet rs = stmt.executeQuery(sql)) {
+            while (rs.next()) {
+                long ID = rs.getLong(1);
+                if (!rs.wasNull()) {
+                    allocator.markUsed(ID);
+                }
+            }
+        }
+        return allocator;
+    }
+    
+    /**
+     * Forget the ID allocator of the table; it gets seeded again on next use.
+     *
+     * @param tableName Targeting table.
+     */
+    private void dropIdAllocator(String tableName) {
+        
+        idAllocators.remove(tableName.toUpperCase());
+    }
+    
+    //---Non Public Setter and Getter--------------------------------------------------------------
+    
+    private String getDbName() {
+        
+        return this.dbName;
+    }
+    
+    private void setDbName(String dbName) {
+        
+        this.dbName = dbName;
+    }
+    
+    private Durability getDurability() {
+        
+        return this.durability;
+    }
+    
+    private void setDurability(Durability durability) {
+        
+        this.durability = durability == null ? Durability.STRICT : durability;
+    }
+    
+    private void setStorage(Storage storage) {
+        
+        this.storage = storage == null ? Storage.DISK : storage;
+    }
+    
+    private ConnectionPool getPool() {
+        
+        ensureStarted();
+        return this.pool;
+    }
+    
+    /**
+     * @return the schema catalog; a lazy instance connects first.
+     */
+    private SchemaCatalog catalog() {
+        
+        ensureStarted();
+        return this.catalog;
+    }
+    
+    private void setPool(ConnectionPool pool) {
+        
+        this.pool = pool;
+    }
+    
+    /**
+     * Borrow a connection from the pool for the current thread.
+     * Nested calls share the connection; it goes back to the pool when the outermost lease is closed.
+     *
+     * @return lease to close after use.
+     * @throws SQLException if no connection is available.
+     */
+    private ConnectionPool.Lease lease() throws SQLException {
+        
+        if (getPool() == null) {
+            throw new SQLException("no connection to database \"" + getDbName() + "\"", "08003");
+        }
+        return getPool().lease();
+    }
+    
+    /**
+     * Borrow a connection that isn't bound to the current thread; used by cursors.
+     *
+     * @return lease to close after use.
+     * @throws SQLException if no connection is available.
+     */
+    private ConnectionPool.Lease detachedLease() throws SQLException {
+        
+        if (getPool() == null) {
+            throw new SQLException("no connection to database \"" + getDbName() + "\"", "08003");
+        }
+        return getPool().detachedLease();
+    }
+    
+    /**
+     * Execute a query and return a lazy cursor over its rows.
+     * The cursor owns its own statement; cached statements must not be used, a nested call could reuse them
+     * while the cursor is still open.
+     *
+     * @param tableName  Targeting table.
+     * @param sql        Query to execute.
+     * @param parameters Values for the "?" parameters of the query, bound with their own type.
+     * @return cursor over the found rows; empty if the table doesn't exist or the query fails.
+     */
+    private Cursor openCursor(String tableName, String sql, Object... parameters) {
+        
+        long start = System.nanoTime();
+        if (!existsTable(tableName)) {
+            System.out.println("Table \"" + tableName + "\" does not exist!");
+            return Cursor.empty();
+        }
+        ConnectionPool.Lease lease = null;
+        PreparedStatement stmt = null;
         try {
+            lease = detachedLease();
+            stmt = lease.getConnection().prepareStatement(sql, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+            stmt.setFetchSize(getFetchSize());
+            for (int i = 0; i < parameters.length; i++) {
+                stmt.setObject(i + 1, parameters[i]);
+            }
+            Cursor cursor = new Cursor(lease, stmt, stmt.executeQuery());
+            cursor.onClose(rows -> record("scan", tableName, start, rows, 0));
+            return cursor;
+        } catch (SQLException e) {
+            try {
+                if (stmt != null) {
+                    stmt.close();
+                }
+            } catch (SQLException ignored) {
+                //already failing; the original error is reported below
+            }
+            if (lease != null) {
+                lease.close();
+            }
+            System.out.println("unable to get rows!");
+            return Cursor.empty();
+        }
+    }
+    
+    /**
+     * @return the connection leased by the current thread; only valid inside a {@link #lease()} block.
+     */
+    private Connection getConn() {
+        
+        return getPool().current().getConnection();
+    }
+    
+    /**
+     * @return the statement cache of the connection leased by the current thread.
+     */
+    private StatementCache getStatementCache() {
+        
+        return getPool().current().getStatementCache();
+    }
+    
+    private String getLogin() {
+        
+        return this.login;
+    }
+    
+    private void setLogin(String login) {
+        
+        this.login = login;
+    }
+    
+    private String getPassword() {
+        
+        return this.password;
+    }
+    
+    private void setPassword(String password) {
+        
+        this.password = password;
+    }
+    
+    private TableDefinition[] getDefaultTables() {
+        
+        return this.defaultTables;
+    }
+    
+    private void setDefaultTables(TableDefinition[] defaultTables) {
+        
+        this.defaultTables = defaultTables;
+    }
+    
+    private void setDefaultTables(String[] defaultTables) {
+        
+        TableDefinition[] tables = new TableDefinition[defaultTables.length];
+        for (int i = 0; i < defaultTables.length; i++) {
+            tables[i] = TableDefinition.standard(defaultTables[i]);
+        }
+        setDefaultTables(tables);
+    }
+    
+    //---Public Methods----------------------------------------------------------------------------
+    
+    /**
+     * Perform a basic SQL statement without error correction!
+     * The rows of a query are printed to the console; other statements drop the cached IDs, rows and text indexes,
+     * as they may have changed any table.
+     *
+     * @param sql A SQL statement in string format.
+     */
+    public void sql(String sql) {
+        
+        try (ConnectionPool.Lease lease = lease()) {
+            if (!sql.contains(";")) {
+                long start = System.nanoTime();
+                try (Statement statement = getConn().createStatement()) {
+                    if (statement.execute(sql)) {
+                        long rows = 0;
+                        try (ResultSet rs = statement.getResultSet()) {
+                            ResultSetMetaData rsmd = rs.getMetaData();
+                            while (rs.next()) {
+                                for (int i = 1; i <= rsmd.getColumnCount(); i++) {
+                                    System.out.print(rs.getString(i) + "\t");
+                                }
+                                System.out.println("");
+                                rows++;
+                            }
+                        }
+                        record("sql", null, start, rows, 0);
+                        System.out.println("");
+                    } else {
+                        int count = statement.getUpdateCount();
+                        record("sql", null, start, 0, Math.max(0, count));
+                        idAllocators.clear();
+                        for (RowCache cache : rowCaches.values()) {
+                            cache.clear();
+                        }
+                        for (NGramIndex index : textIndexes.values()) {
+                            index.invalidate();
+                        }
+                        if (isDDL(sql)) {
+                            catalog().load(getConn());
+                            //e.g. a dropped trigger or table
+                            changeLogTables.clear();
+                        }
+                        if (instrumentation.isLogging()) {
+                            instrumentation.log("SQL statement performed.");
+                        }
+                    }
+                } catch (SQLException e) {
+                    System.out.println("unable to perform sql statement!");
+                }
+            } else {
+                System.out.println("unable to perform sql statement containing ; or multiple commands appended!");
+            }
+        } catch (SQLException e) {
+            System.out.println("unable to perform sql statement!");
+        }
+    }
+    
+    /**
+     * Close the current connection to the belonged database.
+     */
+    public void closeConnection() {
+        
+        if (startPending) {
+            //never connected; don't connect just to close again
+            System.out.println("closed connection to \"" + getDbName() + "\".");
+            return;
+        }
+        stopChangeFeed();
+        stopIndexer();
+        stopCheckpoints();
+        if (getStorage() == Storage.HYBRID) {
+            checkpoint();
+        }
+        getPool().close();
+        System.out.println("closed connection to \"" + getDbName() + "\".");
+    }
+    
+    /**
+     * Create a new table (with a fix primary-key: "id" as Integer) if not already exists.
+     *
+     * @param tableName Name for the new table
+     */
+    public void createTable(String tableName) {
+        
+        createTable(TableDefinition.standard(tableName));
+    }
+    
+    /**
+     * Create a new table with typed columns if not already exists.
+     * The ID primary key is added automatically; as INT or as BIGINT if requested by the definition.
+     *
+     * @param table Definition of the new table
+     */
+    public void createTable(TableDefinition table) {
+        
+        String tableName = table.getName();
+        //create table with a default id "id"
+        try (ConnectionPool.Lease lease = lease()) {
             if (!existsTable(tableName)) {
-                System.out.println("unable to print the content of table: \"" + tableName + "\"\n");
+                if (!tableName.equals("")) {
+                    
+                    try (Statement statement = getConn().createStatement()) {
+                        statement.executeUpdate(table.toSQL());
+                    }
+                    catalog().load(getConn(), tableName);
+                    System.out.println("table \"" + tableName + "\" created successfully.");
+                    
+                } else {
+                    System.out.println("ignoring empty table!");
+                }
+            }
+        } catch (SQLException e) {
+            System.out.println("unable to create table: \"" + tableName + "\"");
+        }
+    }
+    
+    /**
+     * Delete the hole table if exists.
+     *
+     * @param tableName Name of the Table to delete.
+     */
+    public void deleteTable(String tableName) {
+        
+        try (ConnectionPool.Lease lease = lease()) {
+            if (!existsTable(tableName)) {
+                System.out.println("Table: \"" + tableName + "\" not found!");
             } else {
-                Statement stmt = getConn().createStatement();
-                ResultSet rs = stmt.executeQuery("SELECT * FROM " + tableName);
-                ResultSetMetaData rsmd = rs.getMetaData();
-                System.out.println("Content of table \"" + tableName + "\":");
-                
-                while (rs.next()) {
-                    for (int i = 1; i <= rsmd.getColumnCount(); i++) {
-                        System.out.print(rs.getString(i) + "\t");
+                String sql = "DROP TABLE " + tableName;
+                getStatementCache().invalidate(tableName);
+                if (!isLogged(tableName)) {
+                    try (Statement statement = getConn().createStatement()) {
+                        statement.executeUpdate(sql);
+                    }
+                } else if (!runInTransaction(tableName, 0, () -> {
+                    //dropping the table drops its triggers; its logged changes go in the same transaction
+                    try (Statement statement = getConn().createStatement()) {
+                        statement.executeUpdate(sql);
+                        ChangeLog.forget(getConn(), tableName);
+                    } catch (SQLException e) {
+                        throw new IllegalStateException(e);
                     }
-                    System.out.println("");
+                })) {
+                    return;
+                }
+                changeLogTables.remove(tableName.toUpperCase());
+                dropIdAllocator(tableName);
+                catalog().remove(tableName);
+                textIndexes.values().removeIf(index -> index.getTableName().equalsIgnoreCase(tableName));
+                invalidateTable(tableName);
+                indexAdvisor.forget(tableName);
+                System.out.println("deleted table:\"" + tableName + "\" successfully!");
+            }
+        } catch (SQLException e) {
+            System.out.println("\nunable to delete table: \"" + tableName + "\"!\n");
+            e.printStackTrace();
+        }
+        
+    }
+    
+    /**
+     * Print the names of all current tables in the database.
+     */
+    public void printTableNames() {
+        
+        try (ConnectionPool.Lease lease = lease()) {
+            DatabaseMetaData meta = getConn().getMetaData();
+            //only the tables of the current schema, not the internal ones of the "SEJDB" schema
+            try (ResultSet rs = meta.getTables(null, getConn().getSchema(), null, new String[]{"TABLE"})) {
+                System.out.println("\nList of tables: ");
+                while (rs.next()) {
+                    System.out.println(rs.getString("TABLE_NAME"));
+                }
+                System.out.println("\n");
+            }
+        } catch (SQLException e) {
+            e.printStackTrace();
+        }
+    }
+    
+    
+    /**
+     * Print the content of the given table to the console.
+     *
+     * @param tableName The name of the table to print.
+     */
+    public void printTable(String tableName) {
+        
+        if (!existsTable(tableName)) {
+            System.out.println("unable to print the content of table: \"" + tableName + "\"\n");
+            return;
+        }
+        try (Cursor cursor = scan(tableName)) {
+            System.out.println("Content of table \"" + tableName + "\":");
+            
+            for (Row row : cursor) {
+                for (int i = 0; i < row.size(); i++) {
+                    System.out.print(row.get(i) + "\t");
                 }
-                rs.close();
                 System.out.println("");
             }
-        } catch (Exception e) {
-            System.out.println("unable to print the content of table: \"" + tableName + "\"\n");
+            System.out.println("");
+        } catch (Exception e) {
+            System.out.println("unable to print the content of table: \"" + tableName + "\"\n");
+        }
+    }
+    
+    /**
+     * Print the content of the given table to the console with a limit of rows to print.
+     *
+     * @param tableName The name of the table to print.
+     * @param limit     The limit of rows to print.
+     */
+    public void printTable(String tableName, int limit) {
+        
+        if (!existsTable(tableName)) {
+            System.out.println("unable to print the content of table: \"" + tableName + "\"\n");
+            return;
+        }
+        //the limit is part of the query, so Derby stops reading after the last printed row
+        try (Cursor cursor = openCursor(tableName, "SELECT * FROM " + tableName + " FETCH FIRST " +
+                Math.max(1, limit) + " ROWS ONLY")) {
+            System.out.println("\nContent of table \"" + tableName + "\":");
+            
+            int rowCounter = 1;
+            while (rowCounter <= limit && cursor.hasNext()) {
+                Row row = cursor.next();
+                for (int i = 0; i < row.size(); i++) {
+                    System.out.print(row.get(i) + "\t");
+                }
+                System.out.println("");
+                rowCounter++;
+            }
+            System.out.println("");
+        } catch (Exception e) {
+            System.out.println("unable to print the content of table: \"" + tableName + "\"\n");
+        }
+    }
+    
+    /**
+     * Check if a table exists in the database.
+     *
+     * @param tableName Name of the table to check.
+     * @return false if table don't exists in the Database; true if it exists.
+     */
+    public boolean existsTable(String tableName) {
+        
+        return catalog().contains(tableName);
+    }
+    
+    /**
+     * Reload the cached schema (tables and their columns) from the database.
+     * Only necessary after changing tables in other ways than the methods of this class.
+     * DDL performed through {@link #sql(String)} is picked up automatically.
+     */
+    public void refreshSchema() {
+        
+        try (ConnectionPool.Lease lease = lease()) {
+            catalog().load(getConn());
+        } catch (SQLException e) {
+            e.printStackTrace();
+        }
+    }
+    
+    /**
+     * Return the column names of a table, in table order.
+     *
+     * @param tableName Targeting table.
+     * @return column names; empty if the table doesn't exist.
+     */
+    public List<String> getColumnNames(String tableName) {
+        
+        SchemaCatalog.TableSchema schema = catalog().get(tableName);
+        return schema == null ? Collections.<String>emptyList() : schema.getColumnNames();
+    }
+    
+    /**
+     * Delete the hole database and everything belong to it.
+     * Use with caution! No recovery!!!
+     */
+    public void deleteDatabase() {
+        
+        System.out.println("deleting database \"" + getDbName() + "\"...");
+        stopChangeFeed();
+        stopIndexer();
+        textIndexes.clear();
+        stopCheckpoints();
+        //an instance that never connected only has to delete its files; an in-memory database doesn't exist yet
+        boolean connected = !startPending;
+        if (connected) {
+            getPool().close();
+        }
+        
+        if (connected && getStorage() != Storage.DISK) {
+            shutdown(";drop=true");
+        }
+        File target = new File(getDbPath());
+        if (getStorage() == Storage.DISK || target.exists()) {
+            delete(target);
+        }
+        System.out.println("Database \"" + getDbName() + "\" successfully deleted!\n");
+        
+    }
+    
+    /**
+     * Write the in-memory database of a hybrid instance to "DataBases/&lt;dbName&gt;".
+     * Runs as online backup, so reads and writes go on meanwhile; the previous checkpoint is only replaced
+     * once the new one is complete. Called at the checkpoint interval and on {@link #closeConnection()}.
+     *
+     * @return true if the checkpoint was written.
+     */
+    public synchronized boolean checkpoint() {
+        
+        if (getStorage() != Storage.HYBRID) {
+            System.out.println("database \"" + getDbName() + "\" has no checkpoints!");
+            return false;
+        }
+        long start = System.nanoTime();
+        File temp = new File(getDbPath() + ".checkpoint");
+        File old = new File(getDbPath() + ".old");
+        File target = new File(getDbPath());
+        if (temp.exists()) {
+            delete(temp);
+        }
+        try (ConnectionPool.Lease lease = lease();
+             CallableStatement statement = getConn().prepareCall("CALL SYSCS_UTIL.SYSCS_BACKUP_DATABASE(?)")) {
+            statement.setString(1, temp.getPath());
+            statement.execute();
+        } catch (SQLException e) {
+            System.out.println("unable to checkpoint database \"" + getDbName() + "\"!");
+            return false;
+        }
+        if (old.exists()) {
+            delete(old);
+        }
+        if ((target.exists() && !target.renameTo(old)) || !new File(temp, getDbName()).renameTo(target)) {
+            System.out.println("unable to replace checkpoint of database \"" + getDbName() + "\"!");
+            return false;
+        }
+        if (old.exists()) {
+            delete(old);
+        }
+        delete(temp);
+        record("checkpoint", null, start, 0, 0);
+        return true;
+    }
+    
+    /**
+     * Set the interval of the automatic checkpoints of a hybrid database; default 60 seconds.
+     *
+     * @param seconds Seconds between two checkpoints; 0 to only checkpoint on {@link #closeConnection()}.
+     */
+    public void setCheckpointInterval(long seconds) {
+        
+        this.checkpointSeconds = Math.max(0, seconds);
+        scheduleCheckpoints();
+    }
+    
+    /**
+     * @return where the database is kept.
+     */
+    public Storage getStorage() {
+        
+        return this.storage;
+    }
+    
+    /**
+     * @return how the database is connected and the default tables are created.
+     */
+    public Startup getStartup() {
+        
+        return this.startup;
+    }
+    
+    /**
+     * Duration of the startup phases in microseconds: "connect" (booting the database), "catalog" (reading the
+     * schema), "bootstrap" (creating the database or the default tables, if necessary) and "total".
+     * A {@link Startup#LAZY} instance reports nothing before its first use.
+     *
+     * @return startup phases with their duration in microseconds, in order.
+     */
+    public Map<String, Long> getStartupTimes() {
+        
+        synchronized (startupTimes) {
+            return new LinkedHashMap<>(startupTimes);
+        }
+    }
+    
+    /**
+     * Shut the database down; e.g. to restore it or to drop an in-memory database.
+     *
+     * @param attribute ";shutdown=true" or ";drop=true".
+     */
+    private void shutdown(String attribute) {
+        
+        try {
+            DriverManager.getConnection(getDbUrl() + attribute).close();
+        } catch (SQLException e) {
+            //a successful shutdown or drop is reported as exception with SQLState 08006
+            if (!"08006".equals(e.getSQLState())) {
+                e.printStackTrace();
+            }
+        }
+    }
+    
+    /**
+     * Create an online backup of the database in "Backups/&lt;dbName&gt;/&lt;timestamp&gt;".
+     * Reads and writes continue while the backup is written; the snapshot contains every transaction
+     * committed before the backup started.
+     *
+     * @return directory of the snapshot; null if the backup failed.
+     */
+    public String backup() {
+        
+        String directory = System.getProperty("user.dir") + "/Backups/" + getDbName() + "/" +
+                new SimpleDateFormat("yyyyMMdd-HHmmss-SSS").format(new Date());
+        return backup(directory) ? directory : null;
+    }
+    
+    /**
+     * Create an online backup of the database in the given directory; see {@link #backup()}.
+     * The snapshot is written into a sub-directory named after the database.
+     *
+     * @param directory Targeting directory.
+     * @return true if the backup was written.
+     */
+    public boolean backup(String directory) {
+        
+        try (ConnectionPool.Lease lease = lease();
+             CallableStatement statement = getConn().prepareCall("CALL SYSCS_UTIL.SYSCS_BACKUP_DATABASE(?)")) {
+            statement.setString(1, directory);
+            statement.execute();
+            System.out.println("backup of \"" + getDbName() + "\" written to \"" + directory + "\".");
+            return true;
+        } catch (SQLException e) {
+            System.out.println("unable to backup database \"" + getDbName() + "\"!");
+        }
+        return false;
+    }
+    
+    /**
+     * Create an online backup and keep all following transaction logs (log archive mode).
+     * A later {@link #restore(String, boolean)} with roll forward restores the snapshot and replays the
+     * archived logs up to the last commit, so only the changes since the snapshot have to be kept
+     * instead of a full backup each time. Older archived logs are deleted.
+     *
+     * @param directory Targeting directory of the snapshot.
+     * @return true if the backup was written and log archive mode is enabled.
+     */
+    public boolean enableLogArchive(String directory) {
+        
+        try (ConnectionPool.Lease lease = lease();
+             CallableStatement statement = getConn().prepareCall(
+                     "CALL SYSCS_UTIL.SYSCS_BACKUP_DATABASE_AND_ENABLE_LOG_ARCHIVE_MODE(?, 1)")) {
+            statement.setString(1, directory);
+            statement.execute();
+            System.out.println("backup of \"" + getDbName() + "\" written to \"" + directory +
+                    "\"; archiving transaction logs.");
+            return true;
+        } catch (SQLException e) {
+            System.out.println("unable to backup database \"" + getDbName() + "\"!");
+        }
+        return false;
+    }
+    
+    /**
+     * Stop keeping transaction logs for roll forward recovery and delete the archived ones.
+     */
+    public void disableLogArchive() {
+        
+        try (ConnectionPool.Lease lease = lease();
+             CallableStatement statement = getConn().prepareCall("CALL SYSCS_UTIL.SYSCS_DISABLE_LOG_ARCHIVE_MODE(1)")) {
+            statement.execute();
+        } catch (SQLException e) {
+            System.out.println("unable to disable log archive mode of \"" + getDbName() + "\"!");
+        }
+    }
+    
+    /**
+     * Replace the database with a snapshot written by {@link #backup()}; see {@link #restore(String, boolean)}.
+     *
+     * @param snapshotDirectory Directory of the snapshot.
+     * @return true if the database was restored.
+     */
+    public boolean restore(String snapshotDirectory) {
+        
+        return restore(snapshotDirectory, false);
+    }
+    
+    /**
+     * Replace the database with a snapshot and reconnect.
+     * All changes since the snapshot are lost, unless rollForward is used with a snapshot written by
+     * {@link #enableLogArchive(String)}; then the archived logs get replayed up to the last commit.
+     * No other operation may use the database meanwhile; open cursors get closed.
+     *
+     * @param snapshotDirectory Directory of the snapshot.
+     * @param rollForward       true to replay the archived transaction logs.
+     * @return true if the database was restored.
+     */
+    public boolean restore(String snapshotDirectory, boolean rollForward) {
+        
+        String source = new File(snapshotDirectory, getDbName()).getPath();
+        if (!new File(source).isDirectory()) {
+            System.out.println("no snapshot of \"" + getDbName() + "\" found in \"" + snapshotDirectory + "\"!");
+            return false;
+        }
+        if (rollForward && getStorage() != Storage.DISK) {
+            System.out.println("unable to roll forward \"" + getDbName() + "\"; the database has no logs on disk!");
+            return false;
+        }
+        if (getPool() != null) {
+            getPool().close();
+        }
+        String attribute;
+        if (getStorage() == Storage.DISK) {
+            shutdown(";shutdown=true");
+            attribute = rollForward ? ";rollForwardRecoveryFrom=" : ";restoreFrom=";
+        } else {
+            shutdown(";drop=true");
+            attribute = ";createFrom=";
+        }
+        boolean restored = false;
+        try {
+            openPool(getDbUrl() + attribute + source).close();
+            restored = true;
+            System.out.println("restored database \"" + getDbName() + "\" from \"" + snapshotDirectory + "\".");
+        } catch (SQLException e) {
+            System.out.println("unable to restore database \"" + getDbName() + "\" from \"" + snapshotDirectory + "\"!");
+        }
+        try {
+            setPool(openPool(getDbUrl()));
+        } catch (SQLException e) {
+            e.printStackTrace();
+        }
+        idAllocators.clear();
+        for (RowCache cache : rowCaches.values()) {
+            cache.clear();
+        }
+        for (NGramIndex index : textIndexes.values()) {
+            index.invalidate();
+        }
+        changeLogInstalled = false;
+        changeLogTables.clear();
+        refreshSchema();
+        return restored;
+    }
+    
+    /**
+     * Stream all rows of a table into the given stream; far faster than reading them one by one.
+     * Every column type round-trips through {@link #importTable(String, InputStream, TableFormat)};
+     * LOBs are exported with their content, XML serialized.
+     * The stream is flushed but not closed.
+     *
+     * @param tableName Targeting table.
+     * @param out       Targeting stream; e.g. a FileOutputStream.
+     * @param format    File format.
+     * @return number of exported rows; -1 if the export failed.
+     */
+    public long exportTable(String tableName, OutputStream out, TableFormat format) {
+        
+        long start = System.nanoTime();
+        SchemaCatalog.TableSchema schema = catalog().get(tableName);
+        if (schema == null) {
+            System.out.println("Table \"" + tableName + "\" does not exist!");
+            return -1;
+        }
+        long rows = 0;
+        TableCodec.RowWriter writer = TableCodec.writer(format, out);
+        //XML values can't be selected as they are
+        List<String> select = new ArrayList<>();
+        for (String column : schema.getColumnNames()) {
+            Integer type = schema.getColumnType(column);
+            select.add(type != null && type == Types.SQLXML ? "XMLSERIALIZE(" + column + " AS CLOB) AS " + column
+                    : column);
+        }
+        try (ConnectionPool.Lease lease = lease();
+             Statement stmt = getConn().createStatement(ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY)) {
+            stmt.setFetchSize(Math.max(getFetchSize(), 1000));
+            try (ResultSet rs = stmt.executeQuery("SELECT " + String.join(", ", select) + " FROM " + tableName)) {
+                RowLayout layout = RowLayout.of(rs);
+                List<Integer> types = new ArrayList<>();
+                for (String column : layout.getNames()) {
+                    types.add(schema.getColumnType(column));
+                }
+                writer.writeHeader(layout.getNames(), types);
+                //one row view over a reused array; nothing is allocated per row
+                Object[] values = new Object[layout.size()];
+                Row row = new Row(layout, values, 0);
+                while (rs.next()) {
+                    layout.read(rs, values, 0);
+                    writer.writeRow(row);
+                    rows++;
+                }
+            }
+            writer.finish();
+        } catch (SQLException | IOException e) {
+            System.out.println("unable to export table \"" + tableName + "\"!");
+            return -1;
+        }
+        record("exportTable", tableName, start, rows, 0);
+        return rows;
+    }
+    
+    /**
+     * Insert all rows of a stream written by {@link #exportTable(String, OutputStream, TableFormat)}
+     * (or any CSV with the column names in the first line) into an existing table.
+     * <p>
+     * The rows are sent as JDBC batches of {@link #getBatchSize()} rows, each committed as one transaction.
+     * IDs contained in the data are kept; rows without ID get new IDs. If a batch fails, e.g. because an ID
+     * is already used, it is rolled back and the import stops.
+     *
+     * @param tableName Targeting table.
+     * @param in        Stream to read; not closed.
+     * @param format    File format.
+     * @return number of imported rows.
+     */
+    public long importTable(String tableName, InputStream in, TableFormat format) {
+        
+        long start = System.nanoTime();
+        SchemaCatalog.TableSchema schema = catalog().get(tableName);
+        if (schema == null) {
+            System.out.println("Table \"" + tableName + "\" does not exist!");
+            return 0;
+        }
+        long imported = 0;
+        try (ConnectionPool.Lease lease = lease()) {
+            TableCodec.RowReader reader = TableCodec.reader(format, in);
+            List<String> columns = new ArrayList<>(reader.getColumnNames());
+            int idIndex = -1;
+            for (int i = 0; i < columns.size(); i++) {
+                if (!schema.hasColumn(columns.get(i))) {
+                    System.out.println("unable to import into table \"" + tableName + "\"; unknown column \"" +
+                            columns.get(i) + "\"!");
+                    return 0;
+                }
+                if (columns.get(i).equalsIgnoreCase("ID")) {
+                    idIndex = i;
+                }
+            }
+            List<String> insertColumns = new ArrayList<>(columns);
+            if (idIndex < 0) {
+                insertColumns.add(0, "ID");
+            }
+            List<String> values = new ArrayList<>();
+            for (String column : insertColumns) {
+                Integer type = schema.getColumnType(column);
+                //XML is exported serialized
+                values.add(type != null && type == Types.SQLXML ? "XMLPARSE(DOCUMENT CAST(? AS CLOB) PRESERVE WHITESPACE)"
+                        : "?");
+            }
+            IdAllocator allocator = getIdAllocator(tableName);
+            getConn().setAutoCommit(false);
+            try (PreparedStatement statement = getConn().prepareStatement("INSERT INTO " + tableName + " (" +
+                    String.join(", ", insertColumns) + ") VALUES (" + String.join(", ", values) + ")")) {
+                Object[] row = reader.next();
+                while (row != null) {
+                    List<Long> allocated = new ArrayList<>();
+                    int chunkSize = 0;
+                    while (row != null && chunkSize < getBatchSize()) {
+                        int parameter = 1;
+                        if (idIndex < 0) {
+                            long ID = allocator.allocate();
+                            allocated.add(ID);
+                            statement.setLong(parameter++, ID);
+                        } else {
+                            allocator.markUsed(row[idIndex] instanceof Number ? ((Number) row[idIndex]).longValue()
+                                    : Long.parseLong(row[idIndex].toString().trim()));
+                        }
+                        for (int i = 0; i < columns.size(); i++) {
+                            Integer type = schema.getColumnType(columns.get(i));
+                            if (row[i] == null && type != null && type == Types.SQLXML) {
+                                statement.setNull(parameter++, Types.CLOB);
+                            } else {
+                                bind(statement, parameter++, TableCodec.toColumnType(row[i], type), schema,
+                                        columns.get(i));
+                            }
+                        }
+                        statement.addBatch();
+                        chunkSize++;
+                        row = reader.next();
+                    }
+                    try {
+                        statement.executeBatch();
+                        long commitStart = System.nanoTime();
+                        getConn().commit();
+                        commitStats.record(System.nanoTime() - commitStart, chunkSize);
+                    } catch (SQLException e) {
+                        getConn().rollback();
+                        statement.clearBatch();
+                        //IDs taken from the data may be wrong; seed the allocator again
+                        dropIdAllocator(tableName);
+                        System.out.println("\nunable to import into table \"" + tableName + "\"! batch of " +
+                                chunkSize + " rows rolled back after " + imported + " rows.\n");
+                        break;
+                    }
+                    imported += chunkSize;
+                }
+            } finally {
+                getConn().rollback();
+                getConn().setAutoCommit(true);
+                invalidateTable(tableName);
+            }
+        } catch (SQLException | IOException | RuntimeException e) {
+            System.out.println("\nunable to import into table \"" + tableName + "\"! stopped after " + imported +
+                    " rows.\n");
+        }
+        record("importTable", tableName, start, 0, imported);
+        return imported;
+    }
+    
+    /**
+     * Insert one or more data for a single row in the table.
+     *
+     * @param tableName Targeting table.
+     * @param input     HashMap containing the input data: &lt;columnName, values&gt;.
+     */
+    public void insertData(String tableName, HashMap<String, String> input) {
+        
+        insertRow(tableName, input);
+    }
+    
+    /**
+     * Insert a single row with typed values; e.g. Integer for INT columns, Long for BIGINT columns.
+     * The values are bound as they are, without converting them to Strings.
+     *
+     * @param tableName Targeting table.
+     * @param input     Map containing the input data: &lt;columnName, value&gt;.
+     * @return the ID of the new row; -1 if the row couldn't be inserted.
+     */
+    public long insertRow(String tableName, Map<String, ?> input) {
+        
+        long start = System.nanoTime();
+        long ID = -1;
+        if (!joinsGroupCommit()) {
+            ID = writeRow(tableName, input);
+        } else {
+            try {
+                ID = groupCommit.execute(() -> writeRow(tableName, input));
+            } catch (SQLException e) {
+                System.out.println("\nunable to edit table: \"" + tableName + "\"!\n");
+            }
+        }
+        record("insertData", tableName, start, 0, ID < 0 ? 0 : 1);
+        return ID;
+    }
+    
+    /**
+     * Insert a single row with an ID chosen by the caller; e.g. a global ID of {@link ShardedDBServices}.
+     *
+     * @param tableName Targeting table.
+     * @param ID        ID of the new row.
+     * @param input     Map containing the input data: &lt;columnName, value&gt;.
+     * @return true if the row was inserted; false if the ID is already used or the insert failed.
+     */
+    boolean insertRow(String tableName, long ID, Map<String, ?> input) {
+        
+        long start = System.nanoTime();
+        boolean inserted = false;
+        if (!joinsGroupCommit()) {
+            inserted = writeRow(tableName, ID, input);
+        } else {
+            try {
+                inserted = groupCommit.execute(() -> writeRow(tableName, ID, input));
+            } catch (SQLException e) {
+                System.out.println("\nunable to edit table: \"" + tableName + "\"!\n");
+            }
+        }
+        record("insertData", tableName, start, 0, inserted ? 1 : 0);
+        return inserted;
+    }
+    
+    /**
+     * Insert a single row with the given ID on the connection of the current thread.
+     *
+     * @param tableName Targeting table.
+     * @param ID        ID of the new row.
+     * @param input     Map containing the input data: &lt;columnName, value&gt;.
+     * @return true if the row was inserted.
+     */
+    private boolean writeRow(String tableName, long ID, Map<String, ?> input) {
+        
+        try (ConnectionPool.Lease lease = lease()) {
+            if (!existsTable(tableName)) {
+                System.out.println("Table: \"" + tableName + "\" not found!");
+                return false;
+            }
+            List<String> columns = changedColumns(input);
+            SchemaCatalog.TableSchema schema = catalog().get(tableName);
+            PreparedStatement statement = prepareInsert(tableName, columns);
+            statement.setLong(1, ID);
+            for (int i = 0; i < columns.size(); i++) {
+                bind(statement, i + 2, input.get(columns.get(i)), schema, columns.get(i));
+            }
+            long start = System.nanoTime();
+            statement.executeUpdate();
+            recordAutoCommit(start);
+            //the ID isn't free any more; the allocator of this table has to skip it
+            changed(tableName, ID, true);
+            if (instrumentation.isLogging()) {
+                instrumentation.log("edited table:\"" + tableName + "\".");
+            }
+            return true;
+        } catch (SQLException e) {
+            abortIfRolledBack(e);
+            System.out.println("\nunable to edit table: \"" + tableName + "\"" +
+                    ("23505".equals(e.getSQLState()) ? "; ID " + ID + " already used" : "") + "!\n");
+        }
+        return false;
+    }
+    
+    /**
+     * Insert a single row on the connection of the current thread; see {@link #insertRow(String, Map)}.
+     *
+     * @param tableName Targeting table.
+     * @param input     Map containing the input data: &lt;columnName, value&gt;.
+     * @return the ID of the new row; -1 if the row couldn't be inserted.
+     */
+    private long writeRow(String tableName, Map<String, ?> input) {
+        
+        try (ConnectionPool.Lease lease = lease()) {
+            if (!existsTable(tableName)) {
+                System.out.println("Table: \"" + tableName + "\" not found!");
+            } else {
+                List<String> columns = new ArrayList<>(input.keySet());
+                Collections.sort(columns);
+                SchemaCatalog.TableSchema schema = catalog().get(tableName);
+                //retry once with a freshly seeded allocator if the ID was taken behind our back (e.g. via sql())
+                for (int attempt = 0; attempt < 2; attempt++) {
+                    IdAllocator allocator = null;
+                    long ID = -1;
+                    try {
+                        allocator = getIdAllocator(tableName);
+                        ID = allocator.allocate();
+                        PreparedStatement statement = prepareInsert(tableName, columns);
+                        statement.setLong(1, ID);
+                        for (int i = 0; i < columns.size(); i++) {
+                            bind(statement, i + 2, input.get(columns.get(i)), schema, columns.get(i));
+                        }
+                        long start = System.nanoTime();
+                        statement.executeUpdate();
+                        recordAutoCommit(start);
+                        invalidateRow(tableName, ID);
+                        if (instrumentation.isLogging()) {
+                            instrumentation.log("edited table:\"" + tableName + "\".");
+                        }
+                        return ID;
+                        
+                    } catch (SQLException e) {
+                        if (allocator != null) {
+                            allocator.release(ID);
+                        }
+                        abortIfRolledBack(e);
+                        if (!"23505".equals(e.getSQLState())) {
+                            System.out.println("\nunable to edit table: \"" + tableName + "\"!\n");
+                            return -1;
+                        }
+                        dropIdAllocator(tableName);
+                    }
+                }
+                System.out.println("\nunable to edit table: \"" + tableName + "\"!\n");
+            }
+        } catch (SQLException e) {
+            System.out.println("\nunable to edit table: \"" + tableName + "\"!\n");
+        }
+        return -1;
+    }
+    
+    /**
+     * Change columns of an existing row; the row keeps its ID. Columns not in the map stay as they are.
+     *
+     * @param tableName Targeting table.
+     * @param ID        ID of the row to change.
+     * @param changes   Map containing the new values: &lt;columnName, value&gt;; an "ID" entry is ignored.
+     * @return number of changed rows; 0 if there is no row with the ID.
+     */
+    public int updateRow(String tableName, long ID, Map<String, ?> changes) {
+        
+        return writeChanges("updateRow", tableName, ID, changes, false);
+    }
+    
+    /**
+     * Change the row with the ID or insert it with exactly this ID if it doesn't exist (one MERGE statement).
+     *
+     * @param tableName Targeting table.
+     * @param ID        ID of the row.
+     * @param values    Map containing the values: &lt;columnName, value&gt;; an "ID" entry is ignored.
+     * @return number of changed or inserted rows.
+     */
+    public int upsert(String tableName, long ID, Map<String, ?> values) {
+        
+        return writeChanges("upsert", tableName, ID, values, true);
+    }
+    
+    /**
+     * Change several rows in a single transaction; see {@link #updateRow(String, long, Map)}.
+     * Rows changing the same columns share one prepared statement and are sent as JDBC batches.
+     * If one update fails, none of the rows is changed.
+     *
+     * @param tableName Targeting table.
+     * @param changes   Changes by ID, each one a Map containing &lt;columnName, value&gt;.
+     * @return number of changed rows; IDs without a row don't count.
+     * @throws IllegalArgumentException if an ID is null.
+     */
+    public int updateRows(String tableName, Map<Long, ? extends Map<String, ?>> changes) {
+        
+        return writeChanges("updateRows", tableName, changes, false);
+    }
+    
+    /**
+     * Change or insert several rows in a single transaction; see {@link #upsert(String, long, Map)} and
+     * {@link #updateRows(String, Map)}.
+     *
+     * @param tableName Targeting table.
+     * @param rows      Values by ID, each one a Map containing &lt;columnName, value&gt;.
+     * @return number of changed or inserted rows.
+     * @throws IllegalArgumentException if an ID is null.
+     */
+    public int upsertRows(String tableName, Map<Long, ? extends Map<String, ?>> rows) {
+        
+        return writeChanges("upsertRows", tableName, rows, true);
+    }
+    
+    /**
+     * Update or upsert a single row; joins the group commit like inserts and deletes.
+     *
+     * @param operation Name of the operation for the metrics.
+     * @param tableName Targeting table.
+     * @param ID        ID of the row.
+     * @param values    Map containing the values: &lt;columnName, value&gt;.
+     * @param upsert    true to insert the row if it doesn't exist.
+     * @return number of affected rows.
+     */
+    private int writeChanges(String operation, String tableName, long ID, Map<String, ?> values, boolean upsert) {
+        
+        long start = System.nanoTime();
+        int affected = 0;
+        if (!joinsGroupCommit()) {
+            affected = changeRow(tableName, ID, values, upsert);
+        } else {
+            try {
+                affected = groupCommit.execute(() -> changeRow(tableName, ID, values, upsert));
+            } catch (SQLException e) {
+                System.out.println("\nunable to edit table: \"" + tableName + "\"!\n");
+            }
+        }
+        record(operation, tableName, start, 0, affected);
+        return affected;
+    }
+    
+    /**
+     * Update or upsert a single row on the connection of the current thread.
+     *
+     * @param tableName Targeting table.
+     * @param ID        ID of the row.
+     * @param values    Map containing the values: &lt;columnName, value&gt;.
+     * @param upsert    true to insert the row if it doesn't exist.
+     * @return number of affected rows.
+     */
+    private int changeRow(String tableName, long ID, Map<String, ?> values, boolean upsert) {
+        
+        try (ConnectionPool.Lease lease = lease()) {
+            if (!existsTable(tableName)) {
+                System.out.println("Table: \"" + tableName + "\" not found!");
+                return 0;
+            }
+            List<String> columns = changedColumns(values);
+            if (columns.isEmpty() && !upsert) {
+                return 0;
+            }
+            PreparedStatement statement = prepareChange(tableName, columns, upsert);
+            bindChange(statement, ID, values, columns, catalog().get(tableName), upsert);
+            long start = System.nanoTime();
+            int affected = statement.executeUpdate();
+            recordAutoCommit(start);
+            changed(tableName, ID, upsert);
+            if (instrumentation.isLogging()) {
+                instrumentation.log("edited table:\"" + tableName + "\".");
+            }
+            return affected;
+        } catch (SQLException e) {
+            abortIfRolledBack(e);
+            System.out.println("\nunable to edit table: \"" + tableName + "\"!\n");
+        }
+        return 0;
+    }
+    
+    /**
+     * Update or upsert several rows in one transaction.
+     *
+     * @param operation Name of the operation for the metrics.
+     * @param tableName Targeting table.
+     * @param rows      Values by ID, each one a Map containing &lt;columnName, value&gt;.
+     * @param upsert    true to insert rows that don't exist.
+     * @return number of affected rows; 0 if the transaction was rolled back.
+     */
+    private int writeChanges(String operation, String tableName, Map<Long, ? extends Map<String, ?>> rows,
+                             boolean upsert) {
+        
+        long start = System.nanoTime();
+        if (!existsTable(tableName)) {
+            System.out.println("Table: \"" + tableName + "\" not found!");
+            return 0;
+        }
+        //group the rows by their column set; each group shares one statement
+        Map<List<String>, List<Long>> groups = new LinkedHashMap<>();
+        for (Map.Entry<Long, ? extends Map<String, ?>> row : rows.entrySet()) {
+            if (row.getKey() == null) {
+                throw new IllegalArgumentException("row without ID in table \"" + tableName + "\"");
+            }
+            List<String> columns = changedColumns(row.getValue());
+            if (!columns.isEmpty() || upsert) {
+                groups.computeIfAbsent(columns, k -> new ArrayList<>()).add(row.getKey());
+            }
+        }
+        SchemaCatalog.TableSchema schema = catalog().get(tableName);
+        int[] affected = new int[1];
+        boolean committed = runInTransaction(tableName, rows.size(), () -> {
+            try {
+                for (Map.Entry<List<String>, List<Long>> group : groups.entrySet()) {
+                    PreparedStatement statement = prepareChange(tableName, group.getKey(), upsert);
+                    try {
+                        int pending = 0;
+                        for (Long ID : group.getValue()) {
+                            bindChange(statement, ID, rows.get(ID), group.getKey(), schema, upsert);
+                            statement.addBatch();
+                            if (++pending % getBatchSize() == 0 || pending == group.getValue().size()) {
+                                for (int count : statement.executeBatch()) {
+                                    affected[0] += count == Statement.SUCCESS_NO_INFO ? 1 : Math.max(0, count);
+                                }
+                            }
+                        }
+                    } finally {
+                        //the statement is cached; don't leave a failed batch behind
+                        statement.clearBatch();
+                    }
+                }
+            } catch (SQLException e) {
+                throw new IllegalStateException(e);
+            }
+        });
+        if (!committed) {
+            return 0;
+        }
+        for (Long ID : rows.keySet()) {
+            changed(tableName, ID, upsert);
+        }
+        if (instrumentation.isLogging()) {
+            instrumentation.log("edited table:\"" + tableName + "\"; " + affected[0] + " rows.");
+        }
+        record(operation, tableName, start, 0, affected[0]);
+        return affected[0];
+    }
+    
+    /**
+     * @param values Map containing &lt;columnName, value&gt;.
+     * @return the sorted column names without ID.
+     */
+    private static List<String> changedColumns(Map<String, ?> values) {
+        
+        List<String> columns = new ArrayList<>();
+        for (String column : values.keySet()) {
+            if (!column.equalsIgnoreCase("ID")) {
+                columns.add(column);
+            }
+        }
+        Collections.sort(columns);
+        return columns;
+    }
+    
+    /**
+     * Return the cached statement changing the columns of a row:
+     * "UPDATE table SET A=?, B=? WHERE ID=?" or
+     * "MERGE INTO table ... ON ID=? WHEN MATCHED THEN UPDATE SET A=?, B=? WHEN NOT MATCHED THEN INSERT (ID, A, B) VALUES (?, ?, ?)".
+     *
+     * @param tableName Targeting table.
+     * @param columns   Column names besides ID.
+     * @param upsert    true for the MERGE statement.
+     * @return prepared statement; don't close it.
+     * @throws SQLException if the statement can't be prepared.
+     */
+    private PreparedStatement prepareChange(String tableName, List<String> columns, boolean upsert) throws SQLException {
+        
+        StringBuilder assignments = new StringBuilder(); //Form: "NAME = ?, DAMAGE = ?"
+        StringBuilder valueNames = new StringBuilder("ID"); //Form: "ID, NAME, DAMAGE"
+        StringBuilder values = new StringBuilder("?");    //Form: "?, ?, ?"
+        for (String column : columns) {
+            assignments.append(assignments.length() == 0 ? "" : ", ").append(column).append(" = ?");
+            valueNames.append(", ").append(column);
+            values.append(", ?");
+        }
+        String sql;
+        if (!upsert) {
+            sql = "UPDATE " + tableName + " SET " + assignments + " WHERE ID = ?";
+        } else {
+            sql = "MERGE INTO " + tableName + " USING SYSIBM.SYSDUMMY1 ON " + tableName + ".ID = ?" +
+                    (columns.isEmpty() ? "" : " WHEN MATCHED THEN UPDATE SET " + assignments) +
+                    " WHEN NOT MATCHED THEN INSERT (" + valueNames + ") VALUES (" + values + ")";
+        }
+        return getStatementCache().prepare(StatementCache.key(tableName, (upsert ? "upsert" : "update") + columns), sql);
+    }
+    
+    /**
+     * Bind the parameters of a statement from {@link #prepareChange(String, List, boolean)}.
+     *
+     * @param statement Targeting statement.
+     * @param ID        ID of the row.
+     * @param values    Map containing &lt;columnName, value&gt;.
+     * @param columns   Column names of the statement.
+     * @param schema    Schema of the table; may be null.
+     * @param upsert    true for the MERGE statement.
+     * @throws SQLException if a value can't be bound.
+     */
+    private static void bindChange(PreparedStatement statement, long ID, Map<String, ?> values, List<String> columns,
+                                   SchemaCatalog.TableSchema schema, boolean upsert) throws SQLException {
+        
+        int index = 1;
+        if (upsert) {
+            statement.setLong(index++, ID);
+        }
+        for (String column : columns) {
+            bind(statement, index++, values.get(column), schema, column);
+        }
+        statement.setLong(index++, ID);
+        if (upsert) {
+            for (String column : columns) {
+                bind(statement, index++, values.get(column), schema, column);
+            }
+        }
+    }
+    
+    /**
+     * Drop the cached copy of a changed row; an upserted ID is no longer free.
+     *
+     * @param tableName Targeting table.
+     * @param ID        ID of the row.
+     * @param upsert    true if the row may have been inserted.
+     */
+    private void changed(String tableName, long ID, boolean upsert) {
+        
+        invalidateRow(tableName, ID);
+        IdAllocator allocator = upsert ? idAllocators.get(tableName.toUpperCase()) : null;
+        if (allocator != null) {
+            allocator.markUsed(ID);
+        }
+    }
+    
+    /**
+     * Bind a value to a statement parameter with its own type; null is bound with the column type from the schema.
+     *
+     * @param statement  Targeting statement.
+     * @param index      Parameter index, starting at 1.
+     * @param value      Value to bind; may be null.
+     * @param schema     Schema of the table; may be null.
+     * @param columnName Column the value belongs to.
+     * @throws SQLException if the value can't be bound.
+     */
+    private static void bind(PreparedStatement statement, int index, Object value, SchemaCatalog.TableSchema schema,
+                             String columnName) throws SQLException {
+        
+        if (value != null) {
+            statement.setObject(index, value);
+        } else {
+            Integer type = schema == null ? null : schema.getColumnType(columnName);
+            statement.setNull(index, type == null ? Types.VARCHAR : type);
+        }
+    }
+    
+    /**
+     * Insert many rows at once; see {@link #insertBatch(String, Iterator)}.
+     *
+     * @param tableName Targeting table.
+     * @param rows      Rows to insert, each one a Map containing &lt;columnName, value&gt;.
+     * @return number of rows inserted.
+     */
+    public int insertBatch(String tableName, Iterable<? extends Map<String, ?>> rows) {
+        
+        return insertBatch(tableName, rows.iterator());
+    }
+    
+    /**
+     * Insert a stream of rows in chunks of {@link #getBatchSize()} rows.
+     * <p>
+     * Rows with the same columns share one prepared statement; every chunk is sent as JDBC batch and
+     * committed as a single transaction. If a chunk fails it is rolled back completely and the insert stops,
+     * so the table only contains the chunks committed before.
+     * The rows are pulled from the iterator one chunk at a time; the input never has to fit into memory.
+     *
+     * @param tableName Targeting table.
+     * @param rows      Iterator over the rows to insert, each one a Map containing &lt;columnName, value&gt;.
+     * @return number of rows inserted.
+     */
+    public int insertBatch(String tableName, Iterator<? extends Map<String, ?>> rows) {
+        
+        long batchStart = System.nanoTime();
+        int inserted = 0;
+        try (ConnectionPool.Lease lease = lease()) {
+            if (!existsTable(tableName)) {
+                System.out.println("Table: \"" + tableName + "\" not found!");
+                return 0;
+            }
+            IdAllocator allocator = getIdAllocator(tableName);
+            getConn().setAutoCommit(false);
+            try {
+                while (rows.hasNext()) {
+                    //group the rows of this chunk by their column set
+                    Map<List<String>, List<Map<String, ?>>> chunk = new LinkedHashMap<>();
+                    int chunkSize = 0;
+                    while (rows.hasNext() && chunkSize < getBatchSize()) {
+                        Map<String, ?> row = rows.next();
+                        List<String> columns = new ArrayList<>(row.keySet());
+                        Collections.sort(columns);
+                        chunk.computeIfAbsent(columns, k -> new ArrayList<>()).add(row);
+                        chunkSize++;
+                    }
+                    
+                    long start = System.nanoTime();
+                    ArrayList<Long> IDs = new ArrayList<>(chunkSize);
+                    try {
+                        for (Map.Entry<List<String>, List<Map<String, ?>>> group : chunk.entrySet()) {
+                            insertGroup(tableName, group.getKey(), group.getValue(), allocator, IDs);
+                        }
+                        long commitStart = System.nanoTime();
+                        getConn().commit();
+                        commitStats.record(System.nanoTime() - commitStart, chunkSize);
+                        for (long ID : IDs) {
+                            invalidateRow(tableName, ID);
+                        }
+                    } catch (SQLException e) {
+                        getConn().rollback();
+                        for (long ID : IDs) {
+                            allocator.release(ID);
+                        }
+                        System.out.println("\nunable to edit table: \"" + tableName + "\"! batch of " + chunkSize +
+                                " rows rolled back after " + inserted + " rows.\n");
+                        break;
+                    }
+                    inserted += chunkSize;
+                    if (instrumentation.isLogging()) {
+                        long nanos = Math.max(1, System.nanoTime() - start);
+                        instrumentation.log("edited table:\"" + tableName + "\"; batch of " + chunkSize + " rows in " +
+                                nanos / 1000000 + " ms (" + (long) (chunkSize * 1e9 / nanos) + " rows/s).");
+                    }
+                }
+            } finally {
+                //never let switching back to auto-commit commit a half written chunk
+                getConn().rollback();
+                getConn().setAutoCommit(true);
+            }
+        } catch (SQLException e) {
+            System.out.println("\nunable to edit table: \"" + tableName + "\"!\n");
+        }
+        record("insertBatch", tableName, batchStart, 0, inserted);
+        return inserted;
+    }
+    
+    /**
+     * Add rows sharing the same columns to one prepared batch and execute it.
+     *
+     * @param tableName Targeting table.
+     * @param columns   Column names shared by all rows.
+     * @param rows      Rows to insert.
+     * @param allocator ID allocator of the table.
+     * @param IDs       Collects the IDs reserved for the rows.
+     * @throws SQLException if the batch fails.
+     */
+    private void insertGroup(String tableName, List<String> columns, List<Map<String, ?>> rows,
+                             IdAllocator allocator, List<Long> IDs) throws SQLException {
+        
+        PreparedStatement statement = prepareInsert(tableName, columns);
+        SchemaCatalog.TableSchema schema = catalog().get(tableName);
+        try {
+            for (Map<String, ?> row : rows) {
+                long ID = allocator.allocate();
+                IDs.add(ID);
+                statement.setLong(1, ID);
+                for (int i = 0; i < columns.size(); i++) {
+                    bind(statement, i + 2, row.get(columns.get(i)), schema, columns.get(i));
+                }
+                statement.addBatch();
+            }
+            statement.executeBatch();
+        } catch (SQLException e) {
+            statement.clearBatch();
+            throw e;
+        }
+    }
+    
+    /**
+     * Return the cached insert statement for the table and columns: "INSERT INTO table(ID, columns...) VALUES (?, ...)".
+     *
+     * @param tableName Targeting table.
+     * @param columns   Column names besides ID; the ID is always the first parameter.
+     * @return prepared statement; don't close it.
+     * @throws SQLException if the statement can't be prepared.
+     */
+    private PreparedStatement prepareInsert(String tableName, List<String> columns) throws SQLException {
+        
+        String key = StatementCache.key(tableName, "insert" + columns);
+        StringBuilder valueNames = new StringBuilder(); //Form: "ID, NAME, DAMAGE"
+        StringBuilder values = new StringBuilder();     //Form: "?, ?, ?"
+        valueNames.append("ID");
+        values.append("?");
+        for (String column : columns) {
+            valueNames.append(", ").append(column);
+            values.append(", ?");
+        }
+        String sql = "INSERT INTO " + tableName + "(" + valueNames.toString() + ") VALUES (" + values.toString() + ")";
+        return getStatementCache().prepare(key, sql);
+    }
+    
+    /**
+     * @return number of statement cache lookups answered by an already prepared statement.
+     */
+    public long getStatementCacheHits() {
+        
+        return getPool() == null ? 0 : getPool().getStatementCacheHits();
+    }
+    
+    /**
+     * @return number of statement cache lookups that had to prepare a new statement.
+     */
+    public long getStatementCacheMisses() {
+        
+        return getPool() == null ? 0 : getPool().getStatementCacheMisses();
+    }
+    
+    /**
+     * @return number of prepared statements closed because the cache was full.
+     */
+    public long getStatementCacheEvictions() {
+        
+        return getPool() == null ? 0 : getPool().getStatementCacheEvictions();
+    }
+    
+    /**
+     * Set the maximum number of prepared statements kept open per connection.
+     * The least recently used statements get closed first.
+     *
+     * @param size maximum number of cached statements; at least 1.
+     */
+    public void setStatementCacheSize(int size) {
+        
+        this.statementCacheSize = Math.max(1, size);
+        if (getPool() != null) {
+            getPool().setStatementCacheSize(this.statementCacheSize);
+        }
+    }
+    
+    /**
+     * Set the bounds of the connection pool.
+     * Up to maxConnections threads can work on the database at the same time; further callers wait.
+     * Open cursors hold connections of their own, up to maxConnections more.
+     *
+     * @param minConnections connections kept open even if idle.
+     * @param maxConnections maximum number of leased connections; at least 1.
+     */
+    public void setPoolSize(int minConnections, int maxConnections) {
+        
+        this.maxConnections = Math.max(1, maxConnections);
+        this.minConnections = Math.max(0, Math.min(minConnections, this.maxConnections));
+        if (getPool() != null) {
+            getPool().setSize(this.minConnections, this.maxConnections);
+        }
+    }
+    
+    /**
+     * Set how long a connection beyond the minimum pool size may stay idle before it gets closed.
+     *
+     * @param millis idle timeout in milliseconds.
+     */
+    public void setIdleTimeout(long millis) {
+        
+        if (getPool() != null) {
+            getPool().setIdleTimeout(millis);
+        }
+    }
+    
+    /**
+     * Set after how long of being idle a connection gets validated before it is handed out again.
+     *
+     * @param millis validation interval in milliseconds.
+     */
+    public void setValidationInterval(long millis) {
+        
+        if (getPool() != null) {
+            getPool().setValidationInterval(millis);
+        }
+    }
+    
+    /**
+     * @return number of currently open connections.
+     */
+    public int getPoolSize() {
+        
+        return getPool() == null ? 0 : getPool().getSize();
+    }
+    
+    /**
+     * Put a read-through cache in front of {@link #getRow(String, long)} and {@link #fetchRow(String, long)}
+     * for the table. Useful for tables whose rows get read far more often than they change.
+     * The cache is kept consistent with all changes made through this class; changes made by
+     * {@link #sql(String)} drop all cached rows.
+     *
+     * @param tableName  Targeting table.
+     * @param maxEntries Maximum number of cached rows; the least recently used rows get evicted first.
+     */
+    public void enableRowCache(String tableName, int maxEntries) {
+        
+        rowCaches.put(tableName.toUpperCase(), new RowCache(maxEntries));
+    }
+    
+    /**
+     * Remove the row cache of the table.
+     *
+     * @param tableName Targeting table.
+     */
+    public void disableRowCache(String tableName) {
+        
+        rowCaches.remove(tableName.toUpperCase());
+    }
+    
+    /**
+     * @return number of rows answered by the row caches of all tables.
+     */
+    public long getRowCacheHits() {
+        
+        long hits = 0;
+        for (RowCache cache : rowCaches.values()) {
+            hits += cache.getHits();
+        }
+        return hits;
+    }
+    
+    /**
+     * @return number of row cache lookups that had to read the database.
+     */
+    public long getRowCacheMisses() {
+        
+        long misses = 0;
+        for (RowCache cache : rowCaches.values()) {
+            misses += cache.getMisses();
+        }
+        return misses;
+    }
+    
+    /**
+     * @return number of rows evicted from the row caches because they were full.
+     */
+    public long getRowCacheEvictions() {
+        
+        long evictions = 0;
+        for (RowCache cache : rowCaches.values()) {
+            evictions += cache.getEvictions();
+        }
+        return evictions;
+    }
+    
+    /**
+     * @return share of row cache lookups answered from the cache, between 0 and 1.
+     */
+    public double getRowCacheHitRatio() {
+        
+        long hits = getRowCacheHits();
+        long total = hits + getRowCacheMisses();
+        return total == 0 ? 0 : (double) hits / total;
+    }
+    
+    /**
+     * Drop a single row from the row cache of the table.
+     *
+     * @param tableName Targeting table.
+     * @param ID        row ID.
+     */
+    void invalidateRow(String tableName, long ID) {
+        
+        RowCache cache = rowCaches.get(tableName.toUpperCase());
+        if (cache != null) {
+            cache.invalidate(ID);
+        }
+        for (NGramIndex index : textIndexes.values()) {
+            if (index.getTableName().equalsIgnoreCase(tableName)) {
+                index.invalidate(ID);
+            }
+        }
+    }
+    
+    /**
+     * Drop all rows from the row cache of the table.
+     *
+     * @param tableName Targeting table.
+     */
+    private void invalidateTable(String tableName) {
+        
+        RowCache cache = rowCaches.get(tableName.toUpperCase());
+        if (cache != null) {
+            cache.clear();
+        }
+        for (NGramIndex index : textIndexes.values()) {
+            if (index.getTableName().equalsIgnoreCase(tableName)) {
+                index.invalidate();
+            }
+        }
+    }
+    
+    /**
+     * Rethrow an error that made the database roll back the whole transaction of the current thread, not only the
+     * failed statement (SQLState class 40: deadlock, lock timeout). Inside {@link #runInTransaction} the earlier
+     * writes of the transaction are lost then, so they must not be committed and reported as done.
+     * Outside of a transaction only the failed write is lost; the caller reports it as usual.
+     *
+     * @param e Error of a write.
+     * @throws IllegalStateException wrapping the error if a transaction of this thread was rolled back.
+     */
+    private void abortIfRolledBack(SQLException e) {
+        
+        if (!GroupCommit.rollsBackTransaction(e)) {
+            return;
+        }
+        ConnectionPool.PooledConnection current = getPool().current();
+        boolean inTransaction;
+        try {
+            inTransaction = current != null && !current.getConnection().getAutoCommit();
+        } catch (SQLException closed) {
+            inTransaction = true;
+        }
+        if (inTransaction) {
+            throw new IllegalStateException(e);
+        }
+    }
+    
+    /**
+     * Run several operations of the current thread in one transaction; used by the group commit and the
+     * write-behind queue of {@link DBServicesAsync}. A statement failing with a statement error (e.g. a duplicate
+     * key) only undoes itself, the rest gets committed. A deadlock or lock timeout rolls back the whole transaction
+     * in Derby; the write hitting it throws (see {@link #abortIfRolledBack(SQLException)}), so the work is aborted
+     * and nothing is reported as committed.
+     * If the work or the commit fails everything is rolled back and the cached IDs and rows of the changed tables
+     * are dropped.
+     *
+     * @param tableName Table changed by the work; null if the work may change several tables.
+     * @param writes    Number of writes of the work.
+     * @param work      Operations calling the public methods of this class.
+     * @return true if the work was committed.
+     */
+    boolean runInTransaction(String tableName, int writes, Runnable work) {
+        
+        try (ConnectionPool.Lease lease = lease()) {
+            getConn().setAutoCommit(false);
+            try {
+                work.run();
+                long start = System.nanoTime();
+                getConn().commit();
+                commitStats.record(System.nanoTime() - start, writes);
+                return true;
+            } catch (SQLException | RuntimeException e) {
+                System.out.println("\nunable to edit table: \"" + (tableName == null ? "*" : tableName) +
+                        "\"! transaction rolled back.\n");
+            } finally {
+                getConn().rollback();
+                getConn().setAutoCommit(true);
+            }
+        } catch (SQLException e) {
+            e.printStackTrace();
+        }
+        if (tableName == null) {
+            idAllocators.clear();
+            for (RowCache cache : rowCaches.values()) {
+                cache.clear();
+            }
+            for (NGramIndex index : textIndexes.values()) {
+                index.invalidate();
+            }
+        } else {
+            dropIdAllocator(tableName);
+            invalidateTable(tableName);
+        }
+        return false;
+    }
+    
+    /**
+     * @return number of rows sent and committed together by {@link #insertBatch(String, Iterator)}.
+     */
+    public int getBatchSize() {
+        
+        return this.batchSize;
+    }
+    
+    /**
+     * Set the number of rows sent and committed together by {@link #insertBatch(String, Iterator)}.
+     *
+     * @param batchSize rows per batch; at least 1.
+     */
+    public void setBatchSize(int batchSize) {
+        
+        this.batchSize = Math.max(1, batchSize);
+    }
+    
+    /**
+     * Set the instrumentation receiving the progress messages and measurements of all operations;
+     * e.g. {@link OperationMetrics}, {@link Instrumentation#jfr(long)} or {@link Instrumentation#console()}.
+     * By default nothing is recorded or printed, besides errors.
+     *
+     * @param instrumentation Instrumentation to use; null for none.
+     */
+    public void setInstrumentation(Instrumentation instrumentation) {
+        
+        this.instrumentation = instrumentation == null ? Instrumentation.NONE : instrumentation;
+    }
+    
+    /**
+     * @return the current instrumentation; {@link Instrumentation#NONE} if none is set.
+     */
+    public Instrumentation getInstrumentation() {
+        
+        return this.instrumentation;
+    }
+    
+    /**
+     * Print the statistics of the connection pool, the statement and row caches and the commits,
+     * followed by the operation metrics if {@link OperationMetrics} are used.
+     */
+    public void printStats() {
+        
+        System.out.println("\nStatistics of \"" + getDbName() + "\":");
+        System.out.println("startup (" + getStartup() + ", us): " + getStartupTimes());
+        System.out.println("connections: " + getPoolSize() + "\tidle: "
+                + (getPool() == null ? 0 : getPool().getIdleCount()));
+        System.out.println("statement cache hits: " + getStatementCacheHits() + "\tmisses: " + getStatementCacheMisses()
+                + "\tevictions: " + getStatementCacheEvictions());
+        System.out.println("row cache hits: " + getRowCacheHits() + "\tmisses: " + getRowCacheMisses()
+                + "\tevictions: " + getRowCacheEvictions()
+                + "\thit ratio: " + String.format("%.2f", getRowCacheHitRatio()));
+        printCommitStats();
+        if (instrumentation instanceof OperationMetrics) {
+            ((OperationMetrics) instrumentation).print();
+        }
+    }
+    
+    /**
+     * Set how long the first write of a group commit waits for concurrent writes, and the maximum group size.
+     * Only used with {@link Durability#GROUP_COMMIT}.
+     *
+     * @param micros    Maximum wait in microseconds.
+     * @param maxWrites Maximum number of writes committed together; at least 1.
+     */
+    public void setGroupCommitWindow(long micros, int maxWrites) {
+        
+        groupCommit.setWindow(micros, maxWrites);
+    }
+    
+    /**
+     * @return number of commits; a write in auto-commit mode counts as its own commit.
+     */
+    public long getCommitCount() {
+        
+        return commitStats.getCommits();
+    }
+    
+    /**
+     * @return number of inserted and deleted rows made durable by the commits.
+     */
+    public long getCommittedWrites() {
+        
+        return commitStats.getWrites();
+    }
+    
+    /**
+     * @return average duration of a commit in milliseconds.
+     */
+    public double getAverageCommitMillis() {
+        
+        return commitStats.averageMillis();
+    }
+    
+    /**
+     * @return longest commit in milliseconds.
+     */
+    public double getMaxCommitMillis() {
+        
+        return commitStats.maxMillis();
+    }
+    
+    /**
+     * Print the commit statistics of the chosen durability mode.
+     */
+    public void printCommitStats() {
+        
+        System.out.println("\nCommits (" + getDurability() + "):");
+        System.out.println("commits: " + getCommitCount() + "\twrites: " + getCommittedWrites()
+                + "\twrites/commit: " + String.format("%.1f", getCommitCount() == 0 ? 0.0
+                : (double) getCommittedWrites() / getCommitCount())
+                + "\tavg ms: " + String.format("%.3f", getAverageCommitMillis())
+                + "\tmax ms: " + String.format("%.3f", getMaxCommitMillis()) + "\n");
+    }
+    
+    /**
+     * Reset the commit statistics.
+     */
+    public void resetCommitStats() {
+        
+        commitStats.reset();
+    }
+    
+    /**
+     * Generate a new free ID to use.
+     * Returns the lowest ID possible, or MAX(ID) + 1 if lowest free ID mode is disabled.
+     * The ID is not reserved; inserts reserve their own ID.
+     *
+     * @param tableName Targeting table.
+     * @return free ID
+     * @throws ArithmeticException if the next ID of a BIGINT table exceeds the INT range.
+     */
+    public int getFreeID(String tableName) {
+        
+        try (ConnectionPool.Lease lease = lease()) {
+            return Math.toIntExact(getIdAllocator(tableName).peek());
+        } catch (SQLException e) {
+            e.printStackTrace();
+        }
+        return 0;
+    }
+    
+    /**
+     * Choose how new IDs are generated.
+     * <p>
+     * true (default): reuse the lowest free ID, gaps left by deleted rows get filled.<p>
+     * false: always append after the highest ID; faster to seed for big tables.
+     *
+     * @param lowestFreeID true to reuse gaps, false to append.
+     */
+    public void setLowestFreeID(boolean lowestFreeID) {
+        
+        if (this.lowestFreeID != lowestFreeID) {
+            this.lowestFreeID = lowestFreeID;
+            idAllocators.clear();
+        }
+    }
+    
+    /**
+     * @return true if new IDs reuse the lowest free ID; false if they are appended.
+     */
+    public boolean isLowestFreeID() {
+        
+        return this.lowestFreeID;
+    }
+    
+    /**
+     * Check if the ID is already used in the table; a primary key lookup, unless the row is cached.
+     *
+     * @param tableName Targeting table.
+     * @param ID        ID to check.
+     * @return true if the table contains the ID, false if not.
+     */
+    public boolean containsID(String tableName, long ID) {
+        
+        long start = System.nanoTime();
+        boolean found = false;
+        RowCache cache = rowCaches.get(tableName.toUpperCase());
+        //a probe isn't a read of the row; it must not count as a hit or miss of the cache
+        if (cache != null && cache.contains(ID)) {
+            found = true;
+        } else if (existsTable(tableName)) {
+            found = aggregate(tableName, "containsID", "SELECT 1 FROM SYSIBM.SYSDUMMY1 WHERE EXISTS (SELECT 1 FROM " +
+                    tableName + " WHERE ID = ?)", ID) != null;
+        }
+        record("containsID", tableName, start, found ? 1 : 0, 0);
+        return found;
+    }
+    
+    /**
+     * Count the rows of the table inside the database.
+     *
+     * @param tableName Targeting table.
+     * @return number of rows; 0 if the table doesn't exist.
+     */
+    public long count(String tableName) {
+        
+        long start = System.nanoTime();
+        Object count = existsTable(tableName) ? aggregate(tableName, "count", "SELECT COUNT(*) FROM " + tableName) : null;
+        record("count", tableName, start, 0, 0);
+        return count == null ? 0 : ((Number) count).longValue();
+    }
+    
+    /**
+     * Count the rows with the "value" inside their "column"; matched like {@link #getRows(String, String, String)}.
+     *
+     * @param tableName  Targeting table.
+     * @param columnName Column name to search for.
+     * @param value      Column data to search for.
+     * @return number of matching rows; 0 if the table or column doesn't exist.
+     */
+    public long count(String tableName, String columnName, String value) {
+        
+        long start = System.nanoTime();
+        Object count = null;
+        if (hasColumn(tableName, columnName)) {
+            count = aggregate(tableName, "count" + (isPattern(value) ? ":" : "=") + columnName.toUpperCase(),
+                    "SELECT COUNT(*) FROM " + tableName + " WHERE " + columnName + (isPattern(value) ? " like ?" : " = ?"),
+                    value);
+        }
+        record("count", tableName, start, 0, 0);
+        return count == null ? 0 : ((Number) count).longValue();
+    }
+    
+    /**
+     * Check if at least one row has the "value" inside its "column"; stops at the first match.
+     *
+     * @param tableName  Targeting table.
+     * @param columnName Column name to search for.
+     * @param value      Column data to search for.
+     * @return true if a matching row exists.
+     */
+    public boolean exists(String tableName, String columnName, String value) {
+        
+        long start = System.nanoTime();
+        boolean found = false;
+        if (hasColumn(tableName, columnName)) {
+            found = aggregate(tableName, "exists" + (isPattern(value) ? ":" : "=") + columnName.toUpperCase(),
+                    "SELECT 1 FROM SYSIBM.SYSDUMMY1 WHERE EXISTS (SELECT 1 FROM " + tableName + " WHERE " + columnName +
+                            (isPattern(value) ? " like ?" : " = ?") + ")", value) != null;
+        }
+        record("exists", tableName, start, found ? 1 : 0, 0);
+        return found;
+    }
+    
+    /**
+     * @param tableName  Targeting table.
+     * @param columnName Column to read.
+     * @return the smallest value of the column in its SQL type; null if the table is empty.
+     */
+    public Object min(String tableName, String columnName) {
+        
+        return columnAggregate(tableName, "MIN", columnName);
+    }
+    
+    /**
+     * @param tableName  Targeting table.
+     * @param columnName Column to read.
+     * @return the biggest value of the column in its SQL type; null if the table is empty.
+     */
+    public Object max(String tableName, String columnName) {
+        
+        return columnAggregate(tableName, "MAX", columnName);
+    }
+    
+    /**
+     * Sum up a numeric column; integer columns are summed as BIGINT, so the sum doesn't overflow the column type.
+     *
+     * @param tableName  Targeting table.
+     * @param columnName Numeric column to sum up.
+     * @return the sum; a Long for integer columns. 0 if the table is empty.
+     */
+    public Number sum(String tableName, String columnName) {
+        
+        Object sum = columnAggregate(tableName, "SUM", columnName);
+        return sum == null ? 0L : (Number) sum;
+    }
+    
+    /**
+     * @param tableName  Targeting table.
+     * @param columnName Numeric column.
+     * @return the average of the column, computed as DOUBLE; NaN if the table is empty.
+     */
+    public double avg(String tableName, String columnName) {
+        
+        Object avg = columnAggregate(tableName, "AVG", columnName);
+        return avg == null ? Double.NaN : ((Number) avg).doubleValue();
+    }
+    
+    /**
+     * Count the rows per distinct value of the column (GROUP BY inside the database).
+     *
+     * @param tableName  Targeting table.
+     * @param columnName Column to group by.
+     * @return number of rows by value, sorted by value; null values are counted under the key null.
+     */
+    public Map<Object, Long> groupBy(String tableName, String columnName) {
+        
+        Map<Object, Long> counts = new LinkedHashMap<>();
+        for (Map.Entry<Object, Object> entry : groupBy(tableName, columnName, "COUNT", "*").entrySet()) {
+            counts.put(entry.getKey(), ((Number) entry.getValue()).longValue());
+        }
+        return counts;
+    }
+    
+    /**
+     * Compute an aggregate per distinct value of the column (GROUP BY inside the database).
+     * Example: {@code db.groupBy("ORDERS", "CUSTOMER", "SUM", "AMOUNT")}.
+     *
+     * @param tableName   Targeting table.
+     * @param columnName  Column to group by.
+     * @param function    One of "COUNT", "MIN", "MAX", "SUM", "AVG".
+     * @param valueColumn Column to aggregate; "*" for COUNT.
+     * @return the aggregate by value, sorted by value; empty if the table or a column doesn't exist.
+     */
+    public Map<Object, Object> groupBy(String tableName, String columnName, String function, String valueColumn) {
+        
+        long start = System.nanoTime();
+        Map<Object, Object> groups = new LinkedHashMap<>();
+        String expression = aggregateExpression(tableName, function, valueColumn);
+        if (expression == null || !hasColumn(tableName, columnName)) {
+            return groups;
+        }
+        try (ConnectionPool.Lease lease = lease()) {
+            PreparedStatement stmt = getStatementCache().prepare(StatementCache.key(tableName, "groupBy:" +
+                    columnName.toUpperCase() + ":" + expression), "SELECT " + columnName + ", " + expression +
+                    " FROM " + tableName + " GROUP BY " + columnName + " ORDER BY " + columnName);
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    groups.put(rs.getObject(1), rs.getObject(2));
+                }
+            }
+        } catch (SQLException e) {
+            System.out.println("unable to group table \"" + tableName + "\"!");
+        }
+        record("groupBy", tableName, start, groups.size(), 0);
+        return groups;
+    }
+    
+    /**
+     * Compute a single aggregate over a column of the whole table.
+     *
+     * @param tableName  Targeting table.
+     * @param function   Aggregate function.
+     * @param columnName Column to aggregate.
+     * @return the aggregate; null if the table is empty or a name doesn't exist.
+     */
+    private Object columnAggregate(String tableName, String function, String columnName) {
+        
+        long start = System.nanoTime();
+        String expression = aggregateExpression(tableName, function, columnName);
+        Object result = expression == null ? null : aggregate(tableName, "aggregate:" + expression,
+                "SELECT " + expression + " FROM " + tableName);
+        record(function.toLowerCase(), tableName, start, 0, 0);
+        return result;
+    }
+    
+    /**
+     * Build the SQL of an aggregate; SUM of integer columns is computed as BIGINT and AVG as DOUBLE,
+     * so neither overflows nor gets truncated to the column type.
+     *
+     * @param tableName  Targeting table.
+     * @param function   One of "COUNT", "MIN", "MAX", "SUM", "AVG".
+     * @param columnName Column to aggregate; "*" for COUNT.
+     * @return the expression; null if the function or column is unknown.
+     */
+    private String aggregateExpression(String tableName, String function, String columnName) {
+        
+        String name = function.trim().toUpperCase();
+        if ("COUNT".equals(name) && "*".equals(columnName)) {
+            return existsTable(tableName) ? "COUNT(*)" : null;
+        }
+        if (!Arrays.asList("COUNT", "MIN", "MAX", "SUM", "AVG").contains(name)) {
+            System.out.println("unknown aggregate function: \"" + function + "\"!");
+            return null;
+        }
+        if (!hasColumn(tableName, columnName)) {
+            return null;
+        }
+        String column = columnName.toUpperCase();
+        Integer type = catalog().get(tableName).getColumnType(column);
+        boolean integer = type != null && (type == Types.TINYINT || type == Types.SMALLINT || type == Types.INTEGER ||
+                type == Types.BIGINT);
+        if ("SUM".equals(name) && integer) {
+            return "SUM(CAST(" + column + " AS BIGINT))";
+        }
+        if ("AVG".equals(name)) {
+            return "AVG(CAST(" + column + " AS DOUBLE))";
+        }
+        return name + "(" + column + ")";
+    }
+    
+    /**
+     * @param tableName  Targeting table.
+     * @param columnName Column to check.
+     * @return true if the table and column exist; prints a message if not.
+     */
+    private boolean hasColumn(String tableName, String columnName) {
+        
+        SchemaCatalog.TableSchema schema = catalog().get(tableName);
+        if (schema == null) {
+            System.out.println("Table \"" + tableName + "\" does not exist!");
+            return false;
+        }
+        if (!schema.hasColumn(columnName)) {
+            System.out.println("Column \"" + columnName + "\" does not exist in table \"" + tableName + "\"!");
+            return false;
+        }
+        return true;
+    }
+    
+    /**
+     * Run a query returning a single value with a cached statement.
+     *
+     * @param tableName  Targeting table.
+     * @param operation  Statement cache key.
+     * @param sql        Query to run.
+     * @param parameters Values for the "?" parameters of the query.
+     * @return the value of the first column of the first row; null if there is no row or the query fails.
+     */
+    private Object aggregate(String tableName, String operation, String sql, Object... parameters) {
+        
+        try (ConnectionPool.Lease lease = lease()) {
+            PreparedStatement stmt = getStatementCache().prepare(StatementCache.key(tableName, operation), sql);
+            for (int i = 0; i < parameters.length; i++) {
+                stmt.setObject(i + 1, parameters[i]);
+            }
+            try (ResultSet rs = stmt.executeQuery()) {
+                return rs.next() ? rs.getObject(1) : null;
+            }
+        } catch (SQLException e) {
+            System.out.println("unable to read table \"" + tableName + "\"!");
+        }
+        return null;
+    }
+    
+    /**
+     * Delete a hole Row in the table identified by its ID.
+     *
+     * @param tableName Targeting table.
+     * @param ID        ID of the Row to delete.
+     */
+    public void deleteRow(String tableName, long ID) {
+        
+        long start = System.nanoTime();
+        boolean deleted = false;
+        if (!joinsGroupCommit()) {
+            deleted = removeRow(tableName, ID);
+        } else {
+            try {
+                deleted = groupCommit.execute(() -> removeRow(tableName, ID));
+            } catch (SQLException e) {
+                System.out.println("unable to delete row, ID: " + ID + " , in table \"" + tableName + "\"!");
+            }
+        }
+        record("deleteRow", tableName, start, 0, deleted ? 1 : 0);
+    }
+    
+    /**
+     * Delete a single row on the connection of the current thread; see {@link #deleteRow(String, long)}.
+     *
+     * @param tableName Targeting table.
+     * @param ID        ID of the Row to delete.
+     * @return true if the row was deleted.
+     */
+    private boolean removeRow(String tableName, long ID) {
+        
+        try (ConnectionPool.Lease lease = lease()) {
+            if (existsTable(tableName)) {
+                try {
+                    PreparedStatement statement = getStatementCache().prepare(StatementCache.key(tableName, "deleteRow"),
+                            "DELETE FROM " + tableName + " WHERE ID=?");
+                    statement.setLong(1, ID);
+                    long start = System.nanoTime();
+                    int deleted = statement.executeUpdate();
+                    recordAutoCommit(start);
+                    if (deleted == 0) {
+                        System.out.println("no row with ID: " + ID + " found in table \"" + tableName + "\"!");
+                        return false;
+                    }
+                    invalidateRow(tableName, ID);
+                    IdAllocator allocator = idAllocators.get(tableName.toUpperCase());
+                    if (allocator != null) {
+                        allocator.release(ID);
+                    }
+                    if (instrumentation.isLogging()) {
+                        instrumentation.log("Row, ID: " + ID + " , in Table \"" + tableName + "\" successfully deleted.");
+                    }
+                    return true;
+                } catch (SQLException e) {
+                    abortIfRolledBack(e);
+                    e.printStackTrace();
+                }
+            } else {
+                System.out.println("Table \"" + tableName + "\" does not exist!");
+            }
+        } catch (SQLException e) {
+            e.printStackTrace();
+        }
+        return false;
+    }
+    
+    /**
+     * Delete several rows identified by their IDs in a single transaction.
+     * The deletes are sent as JDBC batches of up to {@link #getBatchSize()} rows; if one fails, none of the
+     * rows is deleted.
+     *
+     * @param tableName Targeting table.
+     * @param IDs       IDs of the rows to delete.
+     * @return for every ID, true if its row was deleted and false if there was no row with the ID; null IDs are
+     * ignored. Empty if the table doesn't exist or the transaction was rolled back.
+     */
+    public Map<Long, Boolean> deleteRows(String tableName, Collection<Long> IDs) {
+        
+        long start = System.nanoTime();
+        Map<Long, Boolean> result = new LinkedHashMap<>();
+        if (!existsTable(tableName)) {
+            System.out.println("Table \"" + tableName + "\" does not exist!");
+            return result;
+        }
+        SchemaCatalog.TableSchema schema = catalog().get(tableName);
+        List<Long> targets = new ArrayList<>();
+        for (Long ID : new LinkedHashSet<>(IDs)) {
+            if (ID != null && fitsID(schema, ID)) {
+                targets.add(ID);
+            } else if (ID != null) {
+                //an INT column can't hold the ID; binding it would fail the whole batch
+                result.put(ID, false);
+            }
+        }
+        boolean committed = runInTransaction(tableName, targets.size(), () -> {
+            try {
+                PreparedStatement statement = getStatementCache().prepare(StatementCache.key(tableName, "deleteRow"),
+                        "DELETE FROM " + tableName + " WHERE ID=?");
+                try {
+                    for (int from = 0; from < targets.size(); from += getBatchSize()) {
+                        List<Long> chunk = targets.subList(from, Math.min(targets.size(), from + getBatchSize()));
+                        for (Long ID : chunk) {
+                            statement.setLong(1, ID);
+                            statement.addBatch();
+                        }
+                        int[] counts = statement.executeBatch();
+                        for (int i = 0; i < chunk.size(); i++) {
+                            result.put(chunk.get(i), counts[i] > 0 || counts[i] == Statement.SUCCESS_NO_INFO);
+                        }
+                    }
+                } finally {
+                    //the statement is cached; don't leave a failed batch behind
+                    statement.clearBatch();
+                }
+            } catch (SQLException e) {
+                throw new IllegalStateException(e);
+            }
+        });
+        if (!committed) {
+            System.out.println("unable to delete rows in table \"" + tableName + "\"!");
+            return new LinkedHashMap<>();
+        }
+        IdAllocator allocator = idAllocators.get(tableName.toUpperCase());
+        int deleted = 0;
+        for (Map.Entry<Long, Boolean> entry : result.entrySet()) {
+            if (entry.getValue()) {
+                invalidateRow(tableName, entry.getKey());
+                if (allocator != null) {
+                    allocator.release(entry.getKey());
+                }
+                deleted++;
+            }
+        }
+        if (instrumentation.isLogging()) {
+            instrumentation.log(deleted + " rows in Table \"" + tableName + "\" successfully deleted.");
+        }
+        record("deleteRows", tableName, start, 0, deleted);
+        return result;
+    }
+    
+    /**
+     * Search in the table for a single row by ID and return its data.
+     *
+     * @param tableName Targeting table.
+     * @param ID        row ID.
+     * @return single HashMap containing &lt;ColumnNames, ColumnValue&gt; as Strings for the found row.
+     */
+    public HashMap<String, String> getRow(String tableName, long ID) {
+        
+        Row row = fetchRow(tableName, ID);
+        return row == null ? new HashMap<>() : row.toHashMap();
+    }
+    
+    /**
+     * Search in the table for a single row by ID and return it with typed values.
+     *
+     * @param tableName Targeting table.
+     * @param ID        row ID.
+     * @return the found row; null if there is no row with the ID.
+     */
+    public Row fetchRow(String tableName, long ID) {
+        
+        long start = System.nanoTime();
+        if (!existsTable(tableName)) {
+            System.out.println("Table \"" + tableName + "\" does not exist!");
+            return null;
+        }
+        RowCache cache = rowCaches.get(tableName.toUpperCase());
+        long version = 0;
+        Row row = cache == null ? null : cache.get(ID);
+        if (row == null) {
+            if (cache != null) {
+                version = cache.version();
+            }
+            try (ConnectionPool.Lease lease = lease()) {
+                row = readRow(tableName, ID);
+                if (row != null && cache != null) {
+                    cache.put(ID, row, version);
+                }
+            } catch (SQLException e) {
+                System.out.println("unable to get row!");
+            }
+        }
+        record("getRow", tableName, start, row == null ? 0 : 1, 0);
+        return row;
+    }
+    
+    /**
+     * Read a single row by ID from the database, bypassing the row cache; needs a lease.
+     *
+     * @param tableName Targeting table.
+     * @param ID        row ID.
+     * @return the found row; null if there is no row with the ID.
+     * @throws SQLException if the row can't be read.
+     */
+    private Row readRow(String tableName, long ID) throws SQLException {
+        
+        PreparedStatement stmt = getStatementCache().prepare(StatementCache.key(tableName, "getRow"),
+                "SELECT * FROM " + tableName + " WHERE ID=?");
+        stmt.setLong(1, ID);
+        try (ResultSet rs = stmt.executeQuery()) {
+            return rs.next() ? Row.read(rs) : null;
+        }
+    }
+    
+    /**
+     * Search in the table for several rows by their IDs and return their data; see
+     * {@link #fetchRows(String, Collection)}.
+     *
+     * @param tableName Targeting table.
+     * @param IDs       row IDs.
+     * @return HashMaps containing &lt;ColumnNames, ColumnValue&gt; as Strings by ID; IDs without a row and null IDs
+     * are missing.
+     */
+    public Map<Long, HashMap<String, String>> getRows(String tableName, Collection<Long> IDs) {
+        
+        Map<Long, HashMap<String, String>> result = new LinkedHashMap<>();
+        for (Map.Entry<Long, Row> entry : fetchRows(tableName, IDs).entrySet()) {
+            result.put(entry.getKey(), entry.getValue().toHashMap());
+        }
+        return result;
+    }
+    
+    /**
+     * Search in the table for several rows by their IDs; rows found in the row cache aren't read again.
+     * The other IDs are read with "WHERE ID IN (...)" queries of up to {@value #IN_LIST_SIZE} IDs each.
+     *
+     * @param tableName Targeting table.
+     * @param IDs       row IDs.
+     * @return the found rows by ID; IDs without a row and null IDs are missing.
+     */
+    public Map<Long, Row> fetchRows(String tableName, Collection<Long> IDs) {
+        
+        long start = System.nanoTime();
+        Map<Long, Row> result = new LinkedHashMap<>();
+        if (!existsTable(tableName)) {
+            System.out.println("Table \"" + tableName + "\" does not exist!");
+            return result;
+        }
+        RowCache cache = rowCaches.get(tableName.toUpperCase());
+        SchemaCatalog.TableSchema schema = catalog().get(tableName);
+        List<Long> missing = new ArrayList<>();
+        for (Long ID : IDs) {
+            if (ID == null || !fitsID(schema, ID)) {
+                continue;
+            }
+            Row row = cache == null ? null : cache.get(ID);
+            if (row != null) {
+                result.put(ID, row);
+            } else {
+                missing.add(ID);
+            }
+        }
+        if (missing.isEmpty()) {
+            record("getRowsByID", tableName, start, result.size(), 0);
+            return result;
+        }
+        long version = cache == null ? 0 : cache.version();
+        try (ConnectionPool.Lease lease = lease()) {
+            for (int from = 0; from < missing.size(); from += IN_LIST_SIZE) {
+                List<Long> chunk = missing.subList(from, Math.min(missing.size(), from + IN_LIST_SIZE));
+                PreparedStatement stmt = prepareInList(tableName, "getRows", chunk, "SELECT * FROM " + tableName, "");
+                try (ResultSet rs = stmt.executeQuery()) {
+                    RowLayout layout = RowLayout.of(rs);
+                    while (rs.next()) {
+                        Object[] values = new Object[layout.size()];
+                        layout.read(rs, values, 0);
+                        Row row = new Row(layout, values, 0);
+                        long ID = row.getLong("ID");
+                        result.put(ID, row);
+                        if (cache != null) {
+                            cache.put(ID, row, version);
+                        }
+                    }
+                }
+            }
+        } catch (SQLException e) {
+            System.out.println("unable to get rows!");
+        }
+        record("getRowsByID", tableName, start, result.size(), 0);
+        return result;
+    }
+    
+    /**
+     * Search inside the table for rows with the "value" inside their "column".
+     *
+     * @param tableName  Targeting table.
+     * @param columnName Column name to search for.
+     * @param value      Column data to search for.
+     * @return ArrayList containing HashMaps &lt;ColumnNames, ColumnValue&gt; as Strings for each found row.
+     * @see #fetchRows(String, String, String)
+     */
+    public ArrayList<HashMap<String, String>> getRows(String tableName, String columnName, String value) {
+        
+        return fetchRows(tableName, columnName, value).toHashMaps();
+    }
+    
+    /**
+     * Search inside the table for rows with the "value" inside their "column" and return them with typed values.
+     * Values containing the wildcards "%" or "_" are matched with LIKE; all other values are matched exactly,
+     * so an index on the column can be used.
+     *
+     * @param tableName  Targeting table.
+     * @param columnName Column name to search for.
+     * @param value      Column data to search for.
+     * @return the found rows; empty if nothing was found.
+     */
+    public RowSet fetchRows(String tableName, String columnName, String value) {
+        
+        try (ConnectionPool.Lease lease = lease()) {
+            if (!existsTable(tableName)) {
+                System.out.println("Table \"" + tableName + "\" does not exist!");
+            } else {
+                boolean exact = !isPattern(value);
+                NGramIndex textIndex = exact ? null : textIndexes.get(textIndexKey(tableName, columnName));
+                if (textIndex != null && (value.charAt(0) == '%' || value.charAt(0) == '_')
+                        && NGramIndex.canSearch(value)) {
+                    long start = System.nanoTime();
+                    RowSet rows = searchTextIndex(textIndex, value);
+                    record("getRows", tableName, start, rows.size(), 0);
+                    return rows;
+                }
+                PreparedStatement stmt = getStatementCache().prepare(
+                        StatementCache.key(tableName, "getRows" + (exact ? "=" : ":") + columnName.toUpperCase()),
+                        "SELECT * FROM " + tableName + " WHERE " + columnName + (exact ? " = ?" : " like ?"));
+                stmt.setString(1, value);
+                long start = System.nanoTime();
+                RowSet rows;
+                try (ResultSet rs = stmt.executeQuery()) {
+                    rows = RowSet.read(rs);
+                }
+                recordLookup(tableName, columnName, value, rows.size(), System.nanoTime() - start);
+                record("getRows", tableName, start, rows.size(), 0);
+                return rows;
+            }
+        } catch (SQLException e) {
+            System.out.println("unable to get rows!");
+        }
+        return RowSet.empty();
+    }
+    
+    /**
+     * Check if a search value contains LIKE wildcards.
+     *
+     * @param value Column data to search for.
+     * @return true if the value contains "%" or "_".
+     */
+    private static boolean isPattern(String value) {
+        
+        return value != null && (value.indexOf('%') >= 0 || value.indexOf('_') >= 0);
+    }
+    
+    /**
+     * Feed a lookup into the index advisor and check for automatic indexes if enabled; the check runs on the
+     * index thread, never inside the lookup. Lookups starting with a wildcard are ignored; an index can't help them.
+     *
+     * @param tableName  Targeting table.
+     * @param columnName Searched column.
+     * @param value      Column data searched for.
+     * @param rows       Number of found rows.
+     * @param nanos      Duration of the lookup.
+     */
+    private void recordLookup(String tableName, String columnName, String value, int rows, long nanos) {
+        
+        if (value == null || value.startsWith("%") || value.startsWith("_")) {
+            return;
+        }
+        IndexAdvisor.ColumnStats stats = indexAdvisor.record(tableName, columnName, rows, nanos);
+        int threshold = autoIndexThreshold;
+        if (threshold > 0 && indexAdvisor.dueForAutoIndex(stats, threshold)) {
+            scheduleIndexCheck();
+        }
+    }
+    
+    /**
+     * Queue a check for automatic indexes on the index thread, unless one is queued already.
+     */
+    private void scheduleIndexCheck() {
+        
+        if (!indexCheckQueued.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            indexer().execute(this::createAdvisedIndexes);
+        } catch (RejectedExecutionException e) {
+            //closed meanwhile
+            indexCheckQueued.set(false);
+        }
+    }
+    
+    /**
+     * Create the indexes advised for the columns searched at least {@link #setAutoIndexThreshold(int)} times.
+     * A column is only marked once its index exists; one that doesn't qualify yet is checked again later.
+     */
+    private void createAdvisedIndexes() {
+        
+        indexCheckQueued.set(false);
+        int threshold = autoIndexThreshold;
+        if (threshold <= 0) {
+            return;
+        }
+        for (IndexAdvisor.ColumnStats stats : adviseIndexes(threshold).keySet()) {
+            if (!indexAdvisor.isAutoIndexed(stats) && executeCreateIndex(stats.table, stats.column)) {
+                indexAdvisor.markAutoIndexed(stats);
+            }
+        }
+    }
+    
+    /**
+     * @return the thread creating automatic indexes; started on first use.
+     */
+    private synchronized ExecutorService indexer() {
+        
+        if (indexer == null) {
+            indexer = Executors.newSingleThreadExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "SEJDB-index-" + getDbName());
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+        return indexer;
+    }
+    
+    private synchronized void stopIndexer() {
+        
+        if (indexer != null) {
+            indexer.shutdown();
+            indexer = null;
+        }
+        indexCheckQueued.set(false);
+    }
+    
+    /**
+     * Find the searched columns that would profit from an index: searched at least minLookups times,
+     * not indexed yet and returning on average less than a fifth of their table.
+     *
+     * @param minLookups Minimum number of lookups.
+     * @return advised columns with the number of rows of their table.
+     */
+    private Map<IndexAdvisor.ColumnStats, Long> adviseIndexes(int minLookups) {
+        
+        Map<IndexAdvisor.ColumnStats, Long> advice = new LinkedHashMap<>();
+        Map<String, Long> rowCounts = new HashMap<>();
+        try (ConnectionPool.Lease lease = lease()) {
+            for (IndexAdvisor.ColumnStats stats : indexAdvisor.getStats()) {
+                if (stats.lookups.sum() < minLookups || !existsTable(stats.table)
+                        || getIndexedColumns(stats.table).contains(stats.column)) {
+                    continue;
+                }
+                Long rowCount = rowCounts.get(stats.table);
+                if (rowCount == null) {
+                    try (Statement stmt = getConn().createStatement();
+                         ResultSet rs = stmt.executeQuery("SELECT COUNT(*) FROM " + stats.table)) {
+                        rowCount = rs.next() ? rs.getLong(1) : 0;
+                    }
+                    rowCounts.put(stats.table, rowCount);
+                }
+                if (stats.averageRows() < rowCount / 5.0) {
+                    advice.put(stats, rowCount);
+                }
+            }
+        } catch (SQLException e) {
+            e.printStackTrace();
+        }
+        return advice;
+    }
+    
+    /**
+     * Return the columns of a table that are the first column of an index.
+     *
+     * @param tableName Targeting table.
+     * @return indexed column names.
+     * @throws SQLException if the metadata can't be read.
+     */
+    private Set<String> getIndexedColumns(String tableName) throws SQLException {
+        
+        Set<String> columns = new HashSet<>();
+        try (ResultSet rs = getConn().getMetaData().getIndexInfo(null, null, tableName.toUpperCase(), false, true)) {
+            while (rs.next()) {
+                if (rs.getShort("ORDINAL_POSITION") == 1) {
+                    columns.add(rs.getString("COLUMN_NAME"));
+                }
+            }
+        }
+        return columns;
+    }
+    
+    /**
+     * Create an index on a column, so searching the column doesn't need to scan the hole table.
+     *
+     * @param tableName  Targeting table.
+     * @param columnName Column to index.
+     */
+    public void createIndex(String tableName, String columnName) {
+        
+        executeCreateIndex(tableName, columnName);
+    }
+    
+    /**
+     * @return true if the index was created.
+     * @see #createIndex(String, String)
+     */
+    private boolean executeCreateIndex(String tableName, String columnName) {
+        
+        if (!existsTable(tableName)) {
+            System.out.println("Table \"" + tableName + "\" does not exist!");
+            return false;
+        }
+        try (ConnectionPool.Lease lease = lease(); Statement statement = getConn().createStatement()) {
+            statement.executeUpdate("CREATE INDEX " + indexName(tableName, columnName) + " ON " + tableName +
+                    " (" + columnName + ")");
+            System.out.println("index on \"" + tableName + "." + columnName + "\" created successfully.");
+            return true;
+        } catch (SQLException e) {
+            System.out.println("unable to create index on \"" + tableName + "." + columnName + "\"!");
+            return false;
+        }
+    }
+    
+    /**
+     * Delete an index created by {@link #createIndex(String, String)}.
+     *
+     * @param tableName  Targeting table.
+     * @param columnName Indexed column.
+     */
+    public void dropIndex(String tableName, String columnName) {
+        
+        try (ConnectionPool.Lease lease = lease(); Statement statement = getConn().createStatement()) {
+            statement.executeUpdate("DROP INDEX " + indexName(tableName, columnName));
+            System.out.println("index on \"" + tableName + "." + columnName + "\" deleted successfully.");
+        } catch (SQLException e) {
+            System.out.println("unable to delete index on \"" + tableName + "." + columnName + "\"!");
+        }
+    }
+    
+    /**
+     * Create an n-gram index on a text column, so searches with a leading wildcard (e.g. "%foo%") through
+     * {@link #getRows(String, String, String)} don't scan the whole table; a normal index can't help them.
+     * The index is kept in memory and built from the current rows; create it again after a restart.
+     * Changes made through this class are applied before the next search, changes made by other programs
+     * need a {@link #rebuildTextIndex(String, String)}. Searches need at least 3 characters between two wildcards.
+     *
+     * @param tableName  Targeting table.
+     * @param columnName Text column to index.
+     * @return true if the index was created.
+     */
+    public boolean createTextIndex(String tableName, String columnName) {
+        
+        SchemaCatalog.TableSchema schema = catalog().get(tableName);
+        if (schema == null) {
+            System.out.println("Table \"" + tableName + "\" does not exist!");
+            return false;
+        }
+        Integer type = schema.getColumnType(columnName);
+        if (type == null || (type != Types.CHAR && type != Types.VARCHAR && type != Types.LONGVARCHAR &&
+                type != Types.CLOB)) {
+            throw new IllegalArgumentException("\"" + tableName + "." + columnName + "\" is no text column");
+        }
+        NGramIndex index = new NGramIndex(tableName, columnName);
+        textIndexes.put(textIndexKey(tableName, columnName), index);
+        if (rebuildTextIndex(tableName, columnName) < 0) {
+            textIndexes.remove(textIndexKey(tableName, columnName));
+            return false;
+        }
+        System.out.println("text index on \"" + tableName + "." + columnName + "\" created successfully.");
+        return true;
+    }
+    
+    /**
+     * Delete an index created by {@link #createTextIndex(String, String)}.
+     *
+     * @param tableName  Targeting table.
+     * @param columnName Indexed column.
+     */
+    public void dropTextIndex(String tableName, String columnName) {
+        
+        if (textIndexes.remove(textIndexKey(tableName, columnName)) != null) {
+            System.out.println("text index on \"" + tableName + "." + columnName + "\" deleted successfully.");
+        }
+    }
+    
+    /**
+     * @param tableName  Targeting table.
+     * @param columnName Column to check.
+     * @return true if the column has a text index.
+     */
+    public boolean hasTextIndex(String tableName, String columnName) {
+        
+        return textIndexes.containsKey(textIndexKey(tableName, columnName));
+    }
+    
+    /**
+     * Build a text index again from all rows of the table; e.g. after other programs changed the table.
+     *
+     * @param tableName  Targeting table.
+     * @param columnName Indexed column.
+     * @return number of indexed rows; -1 if there is no such index or the table can't be read.
+     */
+    public int rebuildTextIndex(String tableName, String columnName) {
+        
+        NGramIndex index = textIndexes.get(textIndexKey(tableName, columnName));
+        if (index == null) {
+            System.out.println("no text index on \"" + tableName + "." + columnName + "\"!");
+            return -1;
+        }
+        long start = System.nanoTime();
+        index.invalidate();
+        try (ConnectionPool.Lease lease = lease()) {
+            refreshTextIndex(index);
+            record("rebuildTextIndex", tableName, start, index.size(), 0);
+            return index.size();
+        } catch (SQLException e) {
+            System.out.println("unable to build text index on \"" + tableName + "." + columnName + "\"!");
+        }
+        return -1;
+    }
+    
+    private static String textIndexKey(String tableName, String columnName) {
+        
+        return tableName.toUpperCase() + "." + columnName.toUpperCase();
+    }
+    
+    /**
+     * Find the rows matching a LIKE pattern with a text index; only the matching rows are read.
+     * The rows are checked against the pattern by the database again, in case they changed meanwhile.
+     *
+     * @param index   Index of the searched column.
+     * @param pattern LIKE pattern; see {@link NGramIndex#canSearch(String)}.
+     * @return the found rows in ID order.
+     * @throws SQLException if the rows can't be read.
+     */
+    private RowSet searchTextIndex(NGramIndex index, String pattern) throws SQLException {
+        
+        refreshTextIndex(index);
+        List<Long> IDs = index.search(pattern);
+        if (IDs.isEmpty()) {
+            //an ID no row has; the query still returns the columns of the table
+            IDs.add(-1L);
+        }
+        RowSet rows = null;
+        for (int from = 0; from < IDs.size(); from += IN_LIST_SIZE) {
+            List<Long> chunk = IDs.subList(from, Math.min(IDs.size(), from + IN_LIST_SIZE));
+            PreparedStatement stmt = prepareInList(index.getTableName(), "textSearch:" + index.getColumnName(),
+                    chunk, "SELECT * FROM " + index.getTableName(), " AND " + index.getColumnName() + " LIKE ?");
+            stmt.setString(inListSize(chunk.size()) + 1, pattern);
+            try (ResultSet rs = stmt.executeQuery()) {
+                if (rows == null) {
+                    rows = new RowSet(RowLayout.of(rs));
+                }
+                while (rs.next()) {
+                    rows.add(rs);
+                }
+            }
+        }
+        return rows;
+    }
+    
+    /**
+     * Bring a text index up to date: rebuild it if the table was cleared or changed too much, otherwise
+     * re-read the changed rows only.
+     *
+     * @param index Index to refresh.
+     * @throws SQLException if the table can't be read; the index gets rebuilt on the next search.
+     */
+    private void refreshTextIndex(NGramIndex index) throws SQLException {
+        
+        synchronized (index.getRefreshLock()) {
+            try {
+                if (index.isStale()) {
+                    index.beginRebuild();
+                    Map<Long, String> values = new HashMap<>();
+                    try (Statement stmt = getConn().createStatement(ResultSet.TYPE_FORWARD_ONLY,
+                            ResultSet.CONCUR_READ_ONLY)) {
+                        stmt.setFetchSize(Math.max(getFetchSize(), 1000));
+                        try (ResultSet rs = stmt.executeQuery("SELECT ID, " + index.getColumnName() + " FROM " +
+                                index.getTableName())) {
+                            while (rs.next()) {
+                                values.put(rs.getLong(1), rs.getString(2));
+                            }
+                        }
+                    }
+                    index.rebuild(values);
+                    return;
+                }
+                Set<Long> dirty = index.takeDirty();
+                if (dirty.isEmpty()) {
+                    return;
+                }
+                List<Long> IDs = new ArrayList<>(dirty);
+                Map<Long, String> values = new HashMap<>();
+                for (int from = 0; from < IDs.size(); from += IN_LIST_SIZE) {
+                    List<Long> chunk = IDs.subList(from, Math.min(IDs.size(), from + IN_LIST_SIZE));
+                    PreparedStatement stmt = prepareInList(index.getTableName(),
+                            "textRefresh:" + index.getColumnName(), chunk,
+                            "SELECT ID, " + index.getColumnName() + " FROM " + index.getTableName(), "");
+                    try (ResultSet rs = stmt.executeQuery()) {
+                        while (rs.next()) {
+                            values.put(rs.getLong(1), rs.getString(2));
+                        }
+                    }
+                }
+                index.apply(dirty, values);
+            } catch (SQLException e) {
+                index.invalidate();
+                throw e;
+            }
+        }
+    }
+    
+    /**
+     * @param schema Schema of the table; may be null.
+     * @param ID     row ID.
+     * @return false if the ID column of the table is an INT and the ID is out of its range, so no row can have it.
+     */
+    private static boolean fitsID(SchemaCatalog.TableSchema schema, long ID) {
+        
+        return schema == null || !Integer.valueOf(Types.INTEGER).equals(schema.getColumnType("ID"))
+                || (ID >= Integer.MIN_VALUE && ID <= Integer.MAX_VALUE);
+    }
+    
+    /**
+     * Pad a value list to a few fixed sizes, so a handful of cached statements serve every list;
+     * bind the last value to the padding parameters.
+     *
+     * @param values Number of values; at most {@value #IN_LIST_SIZE}.
+     * @return number of "?" in the IN list.
+     */
+    static int inListSize(int values) {
+        
+        int size = 1;
+        while (size < values) {
+            size *= 4;
+        }
+        return Math.min(size, IN_LIST_SIZE);
+    }
+    
+    /**
+     * @param column Column to compare.
+     * @param size   Number of "?" in the IN list; see {@link #inListSize(int)}.
+     * @return the condition "column IN (?, ...)".
+     */
+    static String inList(String column, int size) {
+        
+        StringBuilder sql = new StringBuilder(column).append(" IN (?");
+        for (int i = 1; i < size; i++) {
+            sql.append(", ?");
+        }
+        return sql.append(")").toString();
+    }
+    
+    /**
+     * Prepare a cached "... WHERE ID IN (?, ...)" statement and bind a chunk of IDs to it; needs a lease.
+     * Parameters of the suffix start at {@code inListSize(IDs.size()) + 1}.
+     *
+     * @param tableName Table the statement belongs to.
+     * @param op        Name of the operation.
+     * @param IDs       IDs to bind; at most {@value #IN_LIST_SIZE}.
+     * @param select    Part in front of the WHERE.
+     * @param suffix    Part behind the ID list.
+     * @return the prepared statement.
+     * @throws SQLException if the statement can't be prepared.
+     */
+    private PreparedStatement prepareInList(String tableName, String op, List<Long> IDs, String select, String suffix)
+            throws SQLException {
+        
+        int size = inListSize(IDs.size());
+        PreparedStatement stmt = getStatementCache().prepare(StatementCache.key(tableName, op + "#" + size),
+                select + " WHERE " + inList("ID", size) + suffix);
+        for (int i = 0; i < size; i++) {
+            stmt.setLong(i + 1, IDs.get(Math.min(i, IDs.size() - 1)));
+        }
+        return stmt;
+    }
+    
+    /**
+     * List all indexes of a table, including the one of the primary key.
+     *
+     * @param tableName Targeting table.
+     * @return index names with their columns in index order.
+     */
+    public Map<String, List<String>> listIndexes(String tableName) {
+        
+        Map<String, List<String>> indexes = new LinkedHashMap<>();
+        try (ConnectionPool.Lease lease = lease();
+             ResultSet rs = getConn().getMetaData().getIndexInfo(null, null, tableName.toUpperCase(), false, true)) {
+            while (rs.next()) {
+                indexes.computeIfAbsent(rs.getString("INDEX_NAME"), k -> new ArrayList<>()).add(rs.getString("COLUMN_NAME"));
+            }
+        } catch (SQLException e) {
+            e.printStackTrace();
+        }
+        return indexes;
+    }
+    
+    /**
+     * Build the name of the index created for a column.
+     *
+     * @param tableName  Targeting table.
+     * @param columnName Indexed column.
+     * @return index name.
+     */
+    private static String indexName(String tableName, String columnName) {
+        
+        return ("IDX_" + tableName + "_" + columnName).toUpperCase();
+    }
+    
+    /**
+     * Return the columns which would profit from an index, based on the lookups made so far.
+     *
+     * @param minLookups Minimum number of lookups of a column.
+     * @return advised columns as "TABLE.COLUMN".
+     */
+    public ArrayList<String> getIndexAdvice(int minLookups) {
+        
+        ArrayList<String> advice = new ArrayList<>();
+        for (IndexAdvisor.ColumnStats stats : adviseIndexes(minLookups).keySet()) {
+            advice.add(stats.table + "." + stats.column);
+        }
+        return advice;
+    }
+    
+    /**
+     * Print the columns which would profit from an index with their lookup statistics.
+     *
+     * @param minLookups Minimum number of lookups of a column.
+     */
+    public void printIndexAdvice(int minLookups) {
+        
+        Map<IndexAdvisor.ColumnStats, Long> advice = adviseIndexes(minLookups);
+        if (advice.isEmpty()) {
+            System.out.println("no missing indexes found.\n");
+            return;
+        }
+        System.out.println("\nMissing indexes:");
+        for (Map.Entry<IndexAdvisor.ColumnStats, Long> entry : advice.entrySet()) {
+            IndexAdvisor.ColumnStats stats = entry.getKey();
+            System.out.println(stats.table + "." + stats.column + "\tlookups: " + stats.lookups.sum()
+                    + "\tavg rows: " + String.format("%.1f", stats.averageRows())
+                    + "\tavg ms: " + String.format("%.2f", stats.averageMillis())
+                    + "\tscanned rows: " + stats.lookups.sum() * entry.getValue());
+        }
+        System.out.println("");
+    }
+    
+    /**
+     * Create all indexes advised by {@link #getIndexAdvice(int)}.
+     *
+     * @param minLookups Minimum number of lookups of a column.
+     * @return number of created indexes.
+     */
+    public int applyIndexAdvice(int minLookups) {
+        
+        int created = 0;
+        for (IndexAdvisor.ColumnStats stats : adviseIndexes(minLookups).keySet()) {
+            createIndex(stats.table, stats.column);
+            created++;
+        }
+        return created;
+    }
+    
+    /**
+     * Create advised indexes automatically once a column was searched the given number of times.
+     * The check runs on a background thread; a column that doesn't qualify, e.g. because its table is still small,
+     * is checked again after the same number of further lookups.
+     *
+     * @param lookups Number of lookups between two checks of a column; 0 disables automatic indexes.
+     */
+    public void setAutoIndexThreshold(int lookups) {
+        
+        this.autoIndexThreshold = Math.max(0, lookups);
+    }
+    
+    /**
+     * Open a lazy cursor over all rows of the table.
+     * Rows are fetched while iterating, so the memory use doesn't depend on the size of the table.
+     * Close the cursor if the iteration ends before the last row, preferably with try-with-resources.
+     * A row that can't be read fails the iteration with an IllegalStateException; see {@link Cursor#hasNext()}.
+     *
+     * @param tableName Targeting table.
+     * @return cursor over all rows; empty if the table doesn't exist.
+     */
+    public Cursor scan(String tableName) {
+        
+        return openCursor(tableName, "SELECT * FROM " + tableName);
+    }
+    
+    /**
+     * Open a lazy cursor over the rows with the "value" inside their "column"; the lazy form of
+     * {@link #getRows(String, String, String)}.
+     *
+     * @param tableName  Targeting table.
+     * @param columnName Column name to search for.
+     * @param value      Column data to search for.
+     * @return cursor over the found rows; empty if the table doesn't exist.
+     */
+    public Cursor scan(String tableName, String columnName, String value) {
+        
+        String operator = isPattern(value) ? " like ?" : " = ?";
+        return openCursor(tableName, "SELECT * FROM " + tableName + " WHERE " + columnName + operator, value);
+    }
+    
+    /**
+     * Start a query on the table; see {@link Query}.
+     * <p>
+     * Example: {@code db.query("USERS").select("NAME").where("AGE", ">", 30).or("NAME", "like", "A%").fetch()}
+     *
+     * @param tableName Targeting table.
+     * @return new query selecting every row and column of the table.
+     */
+    public Query query(String tableName) {
+        
+        return new Query(this, tableName, catalog().get(tableName));
+    }
+    
+    /**
+     * Run a query with a cached statement and read all found rows; see {@link Query#fetch()}.
+     *
+     * @param query Query to run.
+     * @return the found rows; empty if the table doesn't exist or the query fails.
+     */
+    RowSet fetch(Query query) {
+        
+        long start = System.nanoTime();
+        String tableName = query.getTableName();
+        if (!existsTable(tableName)) {
+            System.out.println("Table \"" + tableName + "\" does not exist!");
+            return RowSet.empty();
+        }
+        String sql = query.toSql();
+        try (ConnectionPool.Lease lease = lease()) {
+            PreparedStatement stmt = getStatementCache().prepare(StatementCache.key(tableName, "query:" + sql), sql);
+            List<Object> parameters = query.getParameters();
+            for (int i = 0; i < parameters.size(); i++) {
+                stmt.setObject(i + 1, parameters.get(i));
+            }
+            RowSet rows;
+            try (ResultSet rs = stmt.executeQuery()) {
+                rows = RowSet.read(rs);
+            }
+            record("query", tableName, start, rows.size(), 0);
+            return rows;
+        } catch (SQLException e) {
+            System.out.println("unable to get rows!");
+        }
+        return RowSet.empty();
+    }
+    
+    /**
+     * Count the rows of a query inside the database; see {@link Query#count()}.
+     *
+     * @param query Query to count.
+     * @return number of found rows; 0 if the table doesn't exist or the query fails.
+     */
+    long count(Query query) {
+        
+        long start = System.nanoTime();
+        String tableName = query.getTableName();
+        if (!existsTable(tableName)) {
+            System.out.println("Table \"" + tableName + "\" does not exist!");
+            return 0;
+        }
+        String sql = "SELECT COUNT(*) FROM (" + query.toSql() + ") AS Q";
+        Object count = aggregate(tableName, "query:" + sql, sql, query.getParameters().toArray());
+        record("count", tableName, start, 0, 0);
+        return count == null ? 0 : ((Number) count).longValue();
+    }
+    
+    /**
+     * Run a query and return a lazy cursor; see {@link Query#cursor()}.
+     *
+     * @param query Query to run.
+     * @return cursor over the found rows; empty if the table doesn't exist or the query fails.
+     */
+    Cursor open(Query query) {
+        
+        return openCursor(query.getTableName(), query.toSql(), query.getParameters().toArray());
+    }
+    
+    /**
+     * Read one page of the table, ordered by ID.
+     * Offset and page size are part of the query, so only the rows of the page are sent; Derby still has to
+     * step over the skipped rows. Use {@link #rowsAfter(String, long, int)} to page through big tables.
+     *
+     * @param tableName Targeting table.
+     * @param offset    Number of rows to skip.
+     * @param pageSize  Maximum number of rows of the page.
+     * @return the rows of the page; empty behind the last page.
+     */
+    public RowSet fetchPage(String tableName, long offset, int pageSize) {
+        
+        return readPage("getPage", tableName, "SELECT * FROM " + tableName +
+                " ORDER BY ID OFFSET ? ROWS FETCH FIRST ? ROWS ONLY", Math.max(0, offset), pageSize);
+    }
+    
+    /**
+     * Read the next page of the table behind the given ID (keyset pagination), ordered by ID.
+     * The page is found through the primary key index, so a deep page costs the same as the first one and
+     * rows inserted or deleted meanwhile don't shift the pages.
+     * <pre>
+     * long last = -1;
+     * for (RowSet page = db.rowsAfter(table, last, 100); page.size() &gt; 0; page = db.rowsAfter(table, last, 100)) {
+     *     ...
+     *     last = page.get(page.size() - 1).getLong("ID");
+     * }
+     * </pre>
+     *
+     * @param tableName Targeting table.
+     * @param lastID    ID of the last row of the previous page; -1 for the first page.
+     * @param pageSize  Maximum number of rows of the page.
+     * @return the rows with an ID greater than lastID; empty behind the last page.
+     */
+    public RowSet rowsAfter(String tableName, long lastID, int pageSize) {
+        
+        return readPage("rowsAfter", tableName, "SELECT * FROM " + tableName +
+                " WHERE ID > ? ORDER BY ID FETCH FIRST ? ROWS ONLY", lastID, pageSize);
+    }
+    
+    /**
+     * Read a page with a cached statement taking the position and the page size as parameters.
+     *
+     * @param operation Name of the operation; statement cache key and metric.
+     * @param tableName Targeting table.
+     * @param sql       Query with the parameters position and page size.
+     * @param position  Offset or last ID.
+     * @param pageSize  Maximum number of rows of the page.
+     * @return the rows of the page; empty if the table doesn't exist or the query fails.
+     */
+    private RowSet readPage(String operation, String tableName, String sql, long position, int pageSize) {
+        
+        long start = System.nanoTime();
+        if (!existsTable(tableName)) {
+            System.out.println("Table \"" + tableName + "\" does not exist!");
+            return RowSet.empty();
+        }
+        try (ConnectionPool.Lease lease = lease()) {
+            PreparedStatement stmt = getStatementCache().prepare(StatementCache.key(tableName, operation), sql);
+            stmt.setLong(1, position);
+            stmt.setInt(2, Math.max(1, pageSize));
+            stmt.setFetchSize(Math.max(1, pageSize));
+            RowSet rows;
+            try (ResultSet rs = stmt.executeQuery()) {
+                rows = RowSet.read(rs);
+            }
+            record(operation, tableName, start, rows.size(), 0);
+            return rows;
+        } catch (SQLException e) {
+            System.out.println("unable to get rows!");
         }
+        return RowSet.empty();
     }
     
     /**
-     * Print the content of the given table to the console with a limit of rows to print.
+     * Stream all rows of the table lazily; see {@link #scan(String)}.
+     * Close the stream (try-with-resources) to release the cursor if it isn't consumed completely.
      *
-     * @param tableName The name of the table to print.
-     * @param limit     The limit of rows to print.
+     * @param tableName Targeting table.
+     * @return stream of all rows.
      */
-    public void printTable(String tableName, int limit) {
+    public Stream<Row> streamRows(String tableName) {
         
-        try {
+        return scan(tableName).stream();
+    }
+    
+    /**
+     * Stream the rows with the "value" inside their "column" lazily; see {@link #scan(String, String, String)}.
+     * Close the stream (try-with-resources) to release the cursor if it isn't consumed completely.
+     *
+     * @param tableName  Targeting table.
+     * @param columnName Column name to search for.
+     * @param value      Column data to search for.
+     * @return stream of the found rows.
+     */
+    public Stream<Row> streamRows(String tableName, String columnName, String value) {
+        
+        return scan(tableName, columnName, value).stream();
+    }
+    
+    /**
+     * @return number of rows a cursor fetches from the database at once.
+     */
+    public int getFetchSize() {
+        
+        return this.fetchSize;
+    }
+    
+    /**
+     * Set the number of rows a cursor fetches from the database at once.
+     *
+     * @param fetchSize rows per fetch; at least 1.
+     */
+    public void setFetchSize(int fetchSize) {
+        
+        this.fetchSize = Math.max(1, fetchSize);
+    }
+    
+    /**
+     * Print the given HashMap on the console.
+     *
+     * @param map HashMap with Keys and Values as String.
+     */
+    public void printHashMap(HashMap<String, String> map) {
+        
+        StringBuilder builder = new StringBuilder();
+        for (String name : map.keySet()) {
+            builder.append(name).append(": ").append(map.get(name)).append("\t");
+        }
+        System.out.println(builder.toString() + "\n");
+    }
+    
+    /**
+     * Print the HashMaps inside the given ArrayList on the console.
+     *
+     * @param list ArrayList containing HashMaps with Keys and Values as String.
+     */
+    public void printListOfHashMaps(ArrayList<HashMap<String, String>> list) {
+        
+        StringBuilder builder = new StringBuilder();
+        for (HashMap<String, String> map : list) {
+            for (String name : map.keySet()) {
+                builder.append(name).append(": ").append(map.get(name)).append("\t");
+            }
+            builder.append("\n");
+        }
+        System.out.println(builder.toString() + "\n");
+    }
+    
+    /**
+     * Clear the hole table without damaging its structure.
+     *
+     * @param tableName Targeting table.
+     */
+    public void clearTable(String tableName) {
+        
+        try (ConnectionPool.Lease lease = lease()) {
             if (!existsTable(tableName)) {
-                System.out.println("unable to print the content of table: \"" + tableName + "\"\n");
+                System.out.println("Table \"" + tableName + "\" does not exist!");
             } else {
-                Statement stmt = getConn().createStatement();
-                ResultSet rs = stmt.executeQuery("SELECT * FROM " + tableName);
-                ResultSetMetaData rsmd = rs.getMetaData();
-                System.out.println("\nContent of table \"" + tableName + "\":");
-                
-                int rowCounter = 1;
-                while (rs.next() && rowCounter <= limit) {
-                    for (int i = 1; i <= rsmd.getColumnCount(); i++) {
-                        System.out.print(rs.getString(i) + "\t");
+                try {
+                    long start = System.nanoTime();
+                    if (!isLogged(tableName)) {
+                        PreparedStatement statement = getStatementCache().prepare(StatementCache.key(tableName,
+                                "clearTable"), "TRUNCATE TABLE " + tableName);
+                        statement.executeUpdate();
+                    } else if (!runInTransaction(tableName, 0, () -> {
+                        try {
+                            ChangeLog.truncate(getConn(), tableName);
+                        } catch (SQLException e) {
+                            throw new IllegalStateException(e);
+                        }
+                    })) {
+                        return;
                     }
-                    System.out.println("");
-                    rowCounter++;
+                    record("clearTable", tableName, start, 0, 0);
+                    invalidateTable(tableName);
+                    IdAllocator allocator = idAllocators.get(tableName.toUpperCase());
+                    if (allocator != null) {
+                        allocator.clear();
+                    }
+                    if (instrumentation.isLogging()) {
+                        instrumentation.log("Table \"" + tableName + "\" cleared successfully.");
+                    }
+                } catch (SQLException e) {
+                    System.out.println("unable to clear Table \"" + tableName + "\"!");
                 }
-                rs.close();
-                System.out.println("");
             }
-        } catch (Exception e) {
-            System.out.println("unable to print the content of table: \"" + tableName + "\"\n");
+        } catch (SQLException e) {
+            System.out.println("unable to clear Table \"" + tableName + "\"!");
         }
     }
     
     /**
-     * Check if a table exists in the database.
+     * Start logging the inserts, updates and deletes of the table, including changes made through {@link #sql(String)}
+     * and by other programs; {@link #clearTable(String)} is logged as one truncation.
+     * The changes are written by triggers in the same transaction as the change itself.
      *
-     * @param tableName Name of the table to check.
-     * @return false if table don't exists in the Database; true if it exists.
+     * @param tableName Targeting table.
+     * @return true if the change log of the table is enabled.
      */
-    public boolean existsTable(String tableName) {
+    public boolean enableChangeLog(String tableName) {
         
-        try {
-            DatabaseMetaData metadata = getConn().getMetaData();
-            ResultSet rs = metadata.getTables(null, null, tableName.toUpperCase(), new String[]{"TABLE"});
-            if (rs.next()) {
-                if (rs.getString("TABLE_NAME").equals(tableName.toUpperCase())) {
-                    rs.close();
-                    return true;
-                }
+        if (!existsTable(tableName)) {
+            System.out.println("Table \"" + tableName + "\" does not exist!");
+            return false;
+        }
+        try (ConnectionPool.Lease lease = lease()) {
+            installChangeLog();
+            if (!isLogged(tableName)) {
+                ChangeLog.enable(getConn(), tableName);
+                changeLogTables.put(tableName.toUpperCase(), true);
+                System.out.println("change log of table \"" + tableName + "\" enabled.");
             }
+            return true;
         } catch (SQLException e) {
-            e.printStackTrace();
+            System.out.println("unable to enable the change log of table \"" + tableName + "\"!");
         }
         return false;
     }
     
     /**
-     * Delete the hole database and everything belong to it.
-     * Use with caution! No recovery!!!
+     * Stop logging the changes of the table and drop its logged changes.
+     *
+     * @param tableName Targeting table.
      */
-    public void deleteDatabase() {
+    public void disableChangeLog(String tableName) {
         
-        try {
-            System.out.println("deleting database \"" + getDbName() + "\"...");
-            getConn().close();
-            
-            File target = new File(System.getProperty("user.dir") + "/DataBases/" + getDbName());
-            delete(target);
-            System.out.println("Database \"" + getDbName() + "\" successfully deleted!\n");
-            
+        try (ConnectionPool.Lease lease = lease()) {
+            if (isLogged(tableName)) {
+                ChangeLog.disable(getConn(), tableName);
+                changeLogTables.put(tableName.toUpperCase(), false);
+                System.out.println("change log of table \"" + tableName + "\" disabled.");
+            }
         } catch (SQLException e) {
-            e.printStackTrace();
+            System.out.println("unable to disable the change log of table \"" + tableName + "\"!");
         }
+    }
+    
+    /**
+     * @param tableName Targeting table.
+     * @return true if the changes of the table are logged.
+     */
+    public boolean isChangeLogEnabled(String tableName) {
         
+        try (ConnectionPool.Lease lease = lease()) {
+            return isLogged(tableName);
+        } catch (SQLException e) {
+            System.out.println("unable to read the change log of table \"" + tableName + "\"!");
+        }
+        return false;
     }
     
     /**
-     * Insert one or more data for a single row in the table.
+     * Read the changes of the table after a sequence number, oldest first.
+     * Pass the sequence number of the last change read to get the next ones; a consumer mirroring the table
+     * re-reads the changed rows (e.g. with {@link #getRows(String, Collection)}).
+     * If older changes were dropped by the retention, the list starts with a {@link Change.Kind#RESYNC}.
      *
      * @param tableName Targeting table.
-     * @param input     HashMap containing the input data: &lt;columnName, values&gt;.
+     * @param sequence  Sequence number of the last known change; -1 for all logged changes.
+     * @param max       Maximum number of changes.
+     * @return the changes; empty if there are no newer changes.
      */
-    public void insertData(String tableName, HashMap<String, String> input) {
+    public List<Change> changesSince(String tableName, long sequence, int max) {
         
-        if (!existsTable(tableName)) {
-            System.out.println("Table: \"" + tableName + "\" not found!");
-        } else {
-            StringBuilder valueNames = new StringBuilder(); //Form: "NAME, DAMAGE, Derfg "
-            StringBuilder values = new StringBuilder();     //Form: "'xxx', 'dfg', 'dgds' "
-            for (Map.Entry<String, String> entry : input.entrySet()) {
-                valueNames.append(", ").append(entry.getKey());
-                values.append(", '").append(entry.getValue()).append("'");
-            }
-            try {
-                int ID = getFreeID(tableName);
-                String sql = "INSERT INTO " + tableName + "(ID" + valueNames.toString() + ") VALUES (" + ID + values.toString() + ")";
-                Statement statement = getConn().createStatement();
-                statement.execute(sql);
-                System.out.println("edited table:\"" + tableName + "\".");
-                
-            } catch (SQLException e) {
-                System.out.println("\nunable to edit table: \"" + tableName + "\"!\n");
-            }
+        long start = System.nanoTime();
+        List<Change> changes = readChanges(tableName, sequence, max);
+        record("changesSince", tableName, start, changes.size(), 0);
+        return changes;
+    }
+    
+    /**
+     * @param tableName Targeting table.
+     * @return sequence number of the latest logged change of the table; -1 if there is none.
+     */
+    public long getLatestChange(String tableName) {
+        
+        try (ConnectionPool.Lease lease = lease()) {
+            installChangeLog();
+            return ChangeLog.latest(getStatementCache(), tableName);
+        } catch (SQLException e) {
+            System.out.println("unable to read the change log of table \"" + tableName + "\"!");
         }
+        return -1;
     }
     
     /**
-     * Generate a new free ID to use.
-     * Always returns the lowers ID possible.
+     * Push all future changes of the table to the listener; see {@link #addChangeListener(String, long, ChangeListener)}.
      *
      * @param tableName Targeting table.
-     * @return free ID
+     * @param listener  Listener to call.
      */
-    public int getFreeID(String tableName) {
+    public void addChangeListener(String tableName, ChangeListener listener) {
+        
+        addChangeListener(tableName, getLatestChange(tableName), listener);
+    }
+    
+    /**
+     * Push the changes of the table after the sequence number to the listener, in sequence order.
+     * A background thread polls the change log at the poll interval, so changes made by other programs are
+     * delivered as well.
+     *
+     * @param tableName Targeting table; its change log has to be enabled.
+     * @param sequence  Sequence number of the last known change.
+     * @param listener  Listener to call.
+     */
+    public synchronized void addChangeListener(String tableName, long sequence, ChangeListener listener) {
+        
+        subscriptions.add(new ChangeSubscription(tableName, sequence, listener));
+        if (changePolling == null) {
+            changePolling = changeFeed().scheduleWithFixedDelay(this::pollChanges, changePollMillis, changePollMillis,
+                    TimeUnit.MILLISECONDS);
+        }
+    }
+    
+    /**
+     * Stop pushing changes to the listener.
+     *
+     * @param listener Listener to remove from all tables.
+     */
+    public void removeChangeListener(ChangeListener listener) {
+        
+        subscriptions.removeIf(subscription -> subscription.listener == listener);
+    }
+    
+    /**
+     * Set how often the listeners are checked for new changes; default 200 ms.
+     *
+     * @param millis Milliseconds between two checks; at least 1.
+     */
+    public synchronized void setChangePollInterval(long millis) {
+        
+        this.changePollMillis = Math.max(1, millis);
+        if (changePolling != null) {
+            changePolling.cancel(false);
+            changePolling = changeFeed().scheduleWithFixedDelay(this::pollChanges, changePollMillis, changePollMillis,
+                    TimeUnit.MILLISECONDS);
+        }
+    }
+    
+    /**
+     * Keep the change log bounded: once a minute, every logged table is compacted
+     * (see {@link #compactChanges(String)}) and trimmed to the given number of changes.
+     *
+     * @param maxChanges Number of changes to keep per table; 0 to keep all (default).
+     */
+    public synchronized void setChangeRetention(long maxChanges) {
         
-        int freeID = 0;
-        while (containsID(tableName, freeID)) {
-            freeID++;
+        this.changeRetention = Math.max(0, maxChanges);
+        if (changeMaintenance != null) {
+            changeMaintenance.cancel(false);
+            changeMaintenance = null;
+        }
+        if (changeRetention > 0) {
+            changeMaintenance = changeFeed().scheduleWithFixedDelay(() -> {
+                for (String tableName : catalog().getTableNames()) {
+                    if (isChangeLogEnabled(tableName)) {
+                        compactChanges(tableName);
+                        trimChanges(tableName, changeRetention);
+                    }
+                }
+            }, 1, 60, TimeUnit.SECONDS);
         }
-        return freeID;
     }
     
     /**
-     * Check if the ID is already used in the table.
+     * Drop changes a consumer doesn't need to get to the current rows: every change before the last truncation
+     * and every change of a row that was changed again later.
      *
      * @param tableName Targeting table.
-     * @param ID        ID to check.
-     * @return true if the table contains the ID, false if not.
+     * @return number of dropped changes.
      */
-    public boolean containsID(String tableName, int ID) {
+    public int compactChanges(String tableName) {
         
-        try {
-            Statement stmt = getConn().createStatement();
-            ResultSet rs = stmt.executeQuery("SELECT ID FROM " + tableName);
-            
-            ArrayList<Integer> ids = new ArrayList<>();
-            while (rs.next()) {
-                ids.add(rs.getInt(1));
-            }
-            rs.close();
-            if (ids.contains(ID)) {
-                return true;
-            }
+        try (ConnectionPool.Lease lease = lease()) {
+            return ChangeLog.compact(getConn(), tableName);
         } catch (SQLException e) {
-            e.printStackTrace();
+            System.out.println("unable to compact the change log of table \"" + tableName + "\"!");
         }
-        return false;
+        return 0;
     }
     
     /**
-     * Delete a hole Row in the table identified by its ID.
+     * Drop all but the latest changes of the table. Consumers behind the dropped changes get a
+     * {@link Change.Kind#RESYNC} and have to read the whole table again.
      *
      * @param tableName Targeting table.
-     * @param ID        ID of the Row to delete.
+     * @param keep      Number of changes to keep.
+     * @return number of dropped changes.
      */
-    public void deleteRow(String tableName, int ID) {
+    public int trimChanges(String tableName, long keep) {
         
-        if (containsID(tableName, ID)) {
+        int[] dropped = new int[1];
+        runInTransaction(tableName, 0, () -> {
             try {
-                Statement statement = getConn().createStatement();
-                statement.execute("DELETE FROM " + tableName + " WHERE ID=" + ID);
-                System.out.println("Row, ID: " + ID + " , in Table \"" + tableName + "\" successfully deleted.");
+                dropped[0] = ChangeLog.trim(getConn(), tableName, keep);
             } catch (SQLException e) {
-                e.printStackTrace();
+                throw new IllegalStateException(e);
             }
-        } else {
-            System.out.println("no row with ID: " + ID + " found in table \"" + tableName + "\"!");
-        }
+        });
+        return dropped[0];
     }
     
     /**
-     * Search in the table for a single row by ID and return its data.
+     * Read changes without recording them; see {@link #changesSince(String, long, int)}.
      *
      * @param tableName Targeting table.
-     * @param ID        row ID.
-     * @return single HashMap containing &lt;ColumnNames, ColumnValue&gt; as Strings for the found row.
+     * @param sequence  Sequence number of the last known change.
+     * @param max       Maximum number of changes.
+     * @return the changes; empty if the log can't be read.
      */
-    public HashMap<String, String> getRow(String tableName, int ID) {
+    private List<Change> readChanges(String tableName, long sequence, int max) {
         
-        HashMap<String, String> result = new HashMap<>();
-        try {
-            if (!existsTable(tableName)) {
-                System.out.println("Table \"" + tableName + "\" does not exist!");
-            } else {
-                Statement stmt = getConn().createStatement();
-                ResultSet rs = stmt.executeQuery("SELECT * FROM " + tableName + " WHERE ID=" + ID);
-                ResultSetMetaData rsmd = rs.getMetaData();
-                
-                while (rs.next()) {
-                    for (int i = 1; i <= rsmd.getColumnCount(); i++) {
-                        result.put(rsmd.getColumnName(i), rs.getString(i));
-                    }
-                }
-                rs.close();
-            }
+        try (ConnectionPool.Lease lease = lease()) {
+            installChangeLog();
+            return ChangeLog.since(getStatementCache(), tableName, sequence, max);
         } catch (SQLException e) {
-            System.out.println("unable to get row!");
+            changeLogInstalled = false;
+            System.out.println("unable to read the change log of table \"" + tableName + "\"!");
         }
-        return result;
+        return new ArrayList<>();
     }
     
     /**
-     * Search inside the table for rows with the "value" inside their "column".
+     * Check if the change log of a table is enabled; the system tables are only read once per table,
+     * instead of on every write or clear. Needs a lease.
      *
-     * @param tableName  Targeting table.
-     * @param columnName Column name to search for.
-     * @param value      Column data to search for.
-     * @return ArrayList containing HashMaps &lt;ColumnNames, ColumnValue&gt; as Strings for each found row.
+     * @param tableName Targeting table.
+     * @return true if the triggers of the table exist.
+     * @throws SQLException if the system tables can't be read.
      */
-    public ArrayList<HashMap<String, String>> getRows(String tableName, String columnName, String value) {
+    private boolean isLogged(String tableName) throws SQLException {
         
-        ArrayList<HashMap<String, String>> result = new ArrayList<>();
-        
-        try {
-            if (!existsTable(tableName)) {
-                System.out.println("Table \"" + tableName + "\" does not exist!");
-            } else {
-                Statement stmt = getConn().createStatement();
-                ResultSet rs = stmt.executeQuery("SELECT * FROM " + tableName + " WHERE " + columnName + " like '" +
-                        value + "'");
-                ResultSetMetaData rsmd = rs.getMetaData();
-                
-                while (rs.next()) {
-                    HashMap<String, String> tempMap = new HashMap<>();
-                    for (int i = 1; i <= rsmd.getColumnCount(); i++) {
-                        tempMap.put(rsmd.getColumnName(i), rs.getString(i));
-                    }
-                    result.add(tempMap);
-                }
-                rs.close();
-            }
-        } catch (SQLException e) {
-            System.out.println("unable to get rows!");
+        String name = tableName.toUpperCase();
+        Boolean enabled = changeLogTables.get(name);
+        if (enabled == null) {
+            enabled = ChangeLog.isEnabled(getConn(), name);
+            changeLogTables.put(name, enabled);
         }
-        return result;
+        return enabled;
     }
     
     /**
-     * Print the given HashMap on the console.
+     * Create the change log tables once per connection, instead of checking the metadata on every read.
      *
-     * @param map HashMap with Keys and Values as String.
+     * @throws SQLException if the tables can't be created.
      */
-    public void printHashMap(HashMap<String, String> map) {
+    private void installChangeLog() throws SQLException {
         
-        StringBuilder builder = new StringBuilder();
-        for (String name : map.keySet()) {
-            builder.append(name).append(": ").append(map.get(name)).append("\t");
+        if (!changeLogInstalled) {
+            ChangeLog.install(getConn());
+            changeLogInstalled = true;
         }
-        System.out.println(builder.toString() + "\n");
     }
     
     /**
-     * Print the HashMaps inside the given ArrayList on the console.
-     *
-     * @param list ArrayList containing HashMaps with Keys and Values as String.
+     * Deliver the new changes of every subscribed table to its listener.
      */
-    public void printListOfHashMaps(ArrayList<HashMap<String, String>> list) {
+    private void pollChanges() {
         
-        StringBuilder builder = new StringBuilder();
-        for (HashMap<String, String> map : list) {
-            for (String name : map.keySet()) {
-                builder.append(name).append(": ").append(map.get(name)).append("\t");
-            }
-            builder.append("\n");
+        for (ChangeSubscription subscription : subscriptions) {
+            List<Change> changes;
+            do {
+                changes = readChanges(subscription.tableName, subscription.sequence, 1000);
+                for (Change change : changes) {
+                    try {
+                        subscription.listener.changed(change);
+                    } catch (RuntimeException e) {
+                        e.printStackTrace();
+                    }
+                    subscription.sequence = change.getSequence();
+                }
+            } while (changes.size() >= 1000);
         }
-        System.out.println(builder.toString() + "\n");
     }
     
     /**
-     * Clear the hole table without damaging its structure.
-     *
-     * @param tableName Targeting table.
+     * @return the thread delivering changes and keeping the change log bounded; started on first use.
      */
-    public void clearTable(String tableName) {
+    private synchronized ScheduledExecutorService changeFeed() {
         
-        if (!existsTable(tableName)) {
-            System.out.println("Table \"" + tableName + "\" does not exist!");
-        } else {
-            try {
-                Statement statement = getConn().createStatement();
-                statement.execute("TRUNCATE TABLE " + tableName);
-                System.out.println("Table \"" + tableName + "\" cleared successfully.");
-            } catch (SQLException e) {
-                System.out.println("unable to clear Table \"" + tableName + "\"!");
-            }
+        if (changeFeed == null) {
+            changeFeed = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "SEJDB-changes-" + getDbName());
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+        return changeFeed;
+    }
+    
+    private synchronized void stopChangeFeed() {
+        
+        if (changeFeed != null) {
+            changeFeed.shutdown();
+            changeFeed = null;
+            changePolling = null;
+            changeMaintenance = null;
         }
+        changeLogInstalled = false;
     }
     
+    /**
+     * A listener with the sequence number of the last change it got.
+     */
+    private static final class ChangeSubscription {
+        
+        private final String tableName;
+        private final ChangeListener listener;
+        private volatile long sequence;
+        
+        private ChangeSubscription(String tableName, long sequence, ChangeListener listener) {
+            
+            this.tableName = tableName;
+            this.sequence = sequence;
+            this.listener = listener;
+        }
+    }
 }
-
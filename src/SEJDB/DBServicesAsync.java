@@ -0,0 +1,356 @@
+package SEJDB;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * Asynchronous facade for {@link DBServices}; every method returns at once with a CompletableFuture
+ * and the database work runs on a pool of worker threads.
+ * <p>
+ * At most queueCapacity operations can be pending at the same time; further callers wait until an operation
+ * completes, so a fast producer can't flood the memory.
+ * Inserts and deletes of the same table are executed in the order they were submitted.
+ * In write-behind mode the pending inserts and deletes of a table are merged into one transaction of up to
+ * batchSize operations; their futures complete once the transaction is committed.
+ * Reads don't wait for pending writes; call {@link #flush()} first to read your own writes.
+ *
+ * @author Dennis Sellemann <a>dsellemann@gmail.com</a>
+ * @version 0.5
+ */
+public class DBServicesAsync implements AutoCloseable {
+    
+    private final DBServices db;
+    private final ExecutorService executor;
+    private final Semaphore permits;
+    private final boolean writeBehind;
+    private final int batchSize;
+    private final Map<String, TableQueue> queues = new ConcurrentHashMap<>();
+    
+    /**
+     * Constructor for a facade executing every write in its own transaction.
+     *
+     * @param db            Database to work on.
+     * @param threads       Number of worker threads; should not exceed the connection pool size.
+     * @param queueCapacity Maximum number of pending operations.
+     */
+    public DBServicesAsync(DBServices db, int threads, int queueCapacity) {
+        
+        this(db, threads, queueCapacity, false, 1);
+    }
+    
+    /**
+     * Constructor for a facade with optional write-behind mode.
+     *
+     * @param db            Database to work on.
+     * @param threads       Number of worker threads; should not exceed the connection pool size.
+     * @param queueCapacity Maximum number of pending operations.
+     * @param writeBehind   true to merge pending inserts and deletes of a table into one transaction.
+     * @param batchSize     Maximum number of operations per transaction in write-behind mode.
+     */
+    public DBServicesAsync(DBServices db, int threads, int queueCapacity, boolean writeBehind, int batchSize) {
+        
+        this.db = db;
+        this.permits = new Semaphore(Math.max(1, queueCapacity));
+        this.writeBehind = writeBehind;
+        this.batchSize = writeBehind ? Math.max(1, batchSize) : 1;
+        AtomicInteger counter = new AtomicInteger();
+        this.executor = Executors.newFixedThreadPool(Math.max(1, threads), runnable -> {
+            Thread thread = new Thread(runnable, "SEJDB-async-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+    
+    /**
+     * Insert a single row; see {@link DBServices#insertRow(String, Map)}.
+     *
+     * @param tableName Targeting table.
+     * @param input     Map containing the input data: &lt;columnName, value&gt;.
+     * @return future of the ID of the new row; -1 if the row couldn't be inserted.
+     */
+    public CompletableFuture<Long> insertData(String tableName, Map<String, ?> input) {
+        
+        return write(tableName, new WriteOp(WriteOp.INSERT, input, -1)).thenApply(ID -> (Long) ID);
+    }
+    
+    /**
+     * Delete a single row; see {@link DBServices#deleteRow(String, long)}.
+     *
+     * @param tableName Targeting table.
+     * @param ID        ID of the row to delete.
+     * @return future completing once the row is deleted.
+     */
+    public CompletableFuture<Void> deleteRow(String tableName, long ID) {
+        
+        return write(tableName, new WriteOp(WriteOp.DELETE, null, ID)).thenApply(ignored -> null);
+    }
+    
+    /**
+     * Search a single row by ID; see {@link DBServices#getRow(String, long)}.
+     *
+     * @param tableName Targeting table.
+     * @param ID        row ID.
+     * @return future of the row as HashMap; empty if there is no row with the ID.
+     */
+    public CompletableFuture<HashMap<String, String>> getRow(String tableName, long ID) {
+        
+        return read(() -> db.getRow(tableName, ID));
+    }
+    
+    /**
+     * Search rows by column value; see {@link DBServices#getRows(String, String, String)}.
+     *
+     * @param tableName  Targeting table.
+     * @param columnName Column name to search for.
+     * @param value      Column data to search for.
+     * @return future of the found rows.
+     */
+    public CompletableFuture<ArrayList<HashMap<String, String>>> getRows(String tableName, String columnName,
+                                                                        String value) {
+        
+        return read(() -> db.getRows(tableName, columnName, value));
+    }
+    
+    /**
+     * Return a future completing once every insert and delete submitted before is executed and committed.
+     *
+     * @return future of the barrier.
+     */
+    public CompletableFuture<Void> flush() {
+        
+        List<CompletableFuture<Object>> barriers = new ArrayList<>();
+        for (String tableName : queues.keySet()) {
+            barriers.add(write(tableName, new WriteOp(WriteOp.FLUSH, null, -1)));
+        }
+        return CompletableFuture.allOf(barriers.toArray(new CompletableFuture<?>[0]));
+    }
+    
+    /**
+     * @return true if inserts and deletes are merged into batched transactions.
+     */
+    public boolean isWriteBehind() {
+        
+        return this.writeBehind;
+    }
+    
+    /**
+     * Execute all pending operations and stop the worker threads. The database connection stays open.
+     */
+    @Override
+    public void close() {
+        
+        try {
+            flush().join();
+        } finally {
+            executor.shutdown();
+            try {
+                if (!executor.awaitTermination(1, TimeUnit.MINUTES)) {
+                    System.out.println("unable to finish all pending database operations!");
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+    
+    /**
+     * Wait for a free slot in the queue.
+     *
+     * @return false if the caller was interrupted while waiting.
+     */
+    private boolean acquire() {
+        
+        try {
+            permits.acquire();
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+    
+    /**
+     * Run a read on a worker thread.
+     *
+     * @param read Read to run.
+     * @param <T>  Result type.
+     * @return future of the result.
+     */
+    private <T> CompletableFuture<T> read(Supplier<T> read) {
+        
+        CompletableFuture<T> future = new CompletableFuture<>();
+        if (!acquire()) {
+            future.completeExceptionally(new InterruptedException("interrupted while waiting for the queue"));
+            return future;
+        }
+        future.whenComplete((result, error) -> permits.release());
+        try {
+            executor.execute(() -> {
+                try {
+                    future.complete(read.get());
+                } catch (RuntimeException e) {
+                    future.completeExceptionally(e);
+                }
+            });
+        } catch (RuntimeException e) {
+            future.completeExceptionally(e);
+        }
+        return future;
+    }
+    
+    /**
+     * Append a write to the queue of its table.
+     *
+     * @param tableName Targeting table.
+     * @param op        Write to queue.
+     * @return future of the result.
+     */
+    private CompletableFuture<Object> write(String tableName, WriteOp op) {
+        
+        if (!acquire()) {
+            op.future.completeExceptionally(new InterruptedException("interrupted while waiting for the queue"));
+            return op.future;
+        }
+        op.future.whenComplete((result, error) -> permits.release());
+        queues.computeIfAbsent(tableName.toUpperCase(), TableQueue::new).submit(op);
+        return op.future;
+    }
+    
+    /**
+     * Pending writes of one table; at most one worker drains a queue at a time, which keeps the order.
+     */
+    private final class TableQueue {
+        
+        private final String tableName;
+        private final Queue<WriteOp> ops = new ConcurrentLinkedQueue<>();
+        private final AtomicBoolean scheduled = new AtomicBoolean();
+        
+        private TableQueue(String tableName) {
+            
+            this.tableName = tableName;
+        }
+        
+        private void submit(WriteOp op) {
+            
+            ops.add(op);
+            schedule();
+        }
+        
+        private void schedule() {
+            
+            if (!ops.isEmpty() && scheduled.compareAndSet(false, true)) {
+                try {
+                    executor.execute(this::drain);
+                } catch (RuntimeException e) {
+                    scheduled.set(false);
+                    WriteOp op;
+                    while ((op = ops.poll()) != null) {
+                        op.future.completeExceptionally(e);
+                    }
+                }
+            }
+        }
+        
+        /**
+         * Execute one batch and hand the worker back, so other tables get their turn.
+         */
+        private void drain() {
+            
+            try {
+                List<WriteOp> batch = new ArrayList<>();
+                WriteOp op;
+                while (batch.size() < batchSize && (op = ops.poll()) != null) {
+                    batch.add(op);
+                }
+                execute(batch);
+            } finally {
+                scheduled.set(false);
+                schedule();
+            }
+        }
+        
+        private void execute(List<WriteOp> batch) {
+            
+            if (!writeBehind) {
+                for (WriteOp op : batch) {
+                    try {
+                        op.future.complete(op.apply(db, tableName));
+                    } catch (RuntimeException e) {
+                        op.future.completeExceptionally(e);
+                    }
+                }
+                return;
+            }
+            Object[] results = new Object[batch.size()];
+            boolean committed = db.runInTransaction(tableName, batch.size(), () -> {
+                for (int i = 0; i < batch.size(); i++) {
+                    results[i] = batch.get(i).apply(db, tableName);
+                }
+            });
+            for (int i = 0; i < batch.size(); i++) {
+                WriteOp op = batch.get(i);
+                if (!committed) {
+                    op.future.completeExceptionally(new SQLException("transaction of table \"" + tableName +
+                            "\" rolled back"));
+                    continue;
+                }
+                //rows read by other threads before the commit may have been cached
+                if (op.kind == WriteOp.DELETE) {
+                    db.invalidateRow(tableName, op.ID);
+                } else if (op.kind == WriteOp.INSERT && (Long) results[i] >= 0) {
+                    db.invalidateRow(tableName, (Long) results[i]);
+                }
+                op.future.complete(results[i]);
+            }
+        }
+    }
+    
+    /**
+     * A queued insert, delete or flush barrier.
+     */
+    private static final class WriteOp {
+        
+        private static final int INSERT = 0;
+        private static final int DELETE = 1;
+        private static final int FLUSH = 2;
+        
+        private final int kind;
+        private final Map<String, ?> input;
+        private final long ID;
+        private final CompletableFuture<Object> future = new CompletableFuture<>();
+        
+        private WriteOp(int kind, Map<String, ?> input, long ID) {
+            
+            this.kind = kind;
+            this.input = input;
+            this.ID = ID;
+        }
+        
+        private Object apply(DBServices db, String tableName) {
+            
+            switch (kind) {
+                case INSERT:
+                    return db.insertRow(tableName, input);
+                case DELETE:
+                    db.deleteRow(tableName, ID);
+                    return null;
+                default:
+                    return null;
+            }
+        }
+    }
+}
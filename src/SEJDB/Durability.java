@@ -0,0 +1,29 @@
+package SEJDB;
+
+/**
+ * How writes of a {@link DBServices} instance are made durable.
+ *
+ * @author Dennis Sellemann <a>dsellemann@gmail.com</a>
+ * @version 0.5
+ */
+public enum Durability {
+    
+    /**
+     * Every insert and delete is committed on its own and flushed to disk before the call returns (default).
+     */
+    STRICT,
+    
+    /**
+     * Inserts and deletes of concurrent threads are collected for a short window and committed together,
+     * so a single log flush serves all of them. Every call still returns only after its write is on disk;
+     * a single writer gets no benefit, many concurrent writers get far more writes per second.
+     */
+    GROUP_COMMIT,
+    
+    /**
+     * Commits don't wait for the disk (Derby's "derby.system.durability=test").
+     * A crash can lose the last commits or even damage the database; only use it for caches and data
+     * that can be rebuilt. Has to be chosen by the first instance booting the database inside the JVM.
+     */
+    RELAXED
+}
@@ -0,0 +1,229 @@
+package SEJDB;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+
+/**
+ * Collects the writes of concurrent threads and commits them in one transaction.
+ * <p>
+ * The first thread of a group becomes its leader: it waits until the previous group is committed and then,
+ * for at most the window, until the group is as big as the last one or all arriving writes joined.
+ * It executes the writes of all members on its own connection and commits once; the members wait for the
+ * result of their write. Writes arriving while a group commits form the next group.
+ * A single writer doesn't wait at all.
+ *
+ * @author Dennis Sellemann <a>dsellemann@gmail.com</a>
+ * @version 0.5
+ */
+class GroupCommit {
+    
+    private final Transaction transaction;
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition joined = lock.newCondition();
+    private final Condition committed = lock.newCondition();
+    private final AtomicInteger arriving = new AtomicInteger();
+    private List<Member<?>> pending = new ArrayList<>();
+    private boolean leading;
+    private boolean committing;
+    private int lastGroupSize;
+    private volatile long windowNanos;
+    private volatile int maxWrites;
+    
+    /**
+     * Constructor for a group commit.
+     *
+     * @param transaction  Runs the writes of a group in one transaction.
+     * @param windowMicros Maximum time the leader waits for further writes.
+     * @param maxWrites    Number of writes after which the leader stops waiting.
+     */
+    GroupCommit(Transaction transaction, long windowMicros, int maxWrites) {
+        
+        this.transaction = transaction;
+        setWindow(windowMicros, maxWrites);
+    }
+    
+    void setWindow(long windowMicros, int maxWrites) {
+        
+        this.windowNanos = TimeUnit.MICROSECONDS.toNanos(Math.max(0, windowMicros));
+        this.maxWrites = Math.max(1, maxWrites);
+    }
+    
+    /**
+     * Execute a write as part of the next group and wait until it is committed.
+     *
+     * @param write Write to execute; runs on the thread of the group leader.
+     * @param <T>   Result type.
+     * @return result of the write.
+     * @throws SQLException if the group was rolled back.
+     */
+    <T> T execute(Supplier<T> write) throws SQLException {
+        
+        Member<T> member = new Member<>(write);
+        boolean leader;
+        arriving.incrementAndGet();
+        lock.lock();
+        try {
+            pending.add(member);
+            leader = !leading;
+            if (leader) {
+                leading = true;
+            } else {
+                joined.signal();
+            }
+        } finally {
+            lock.unlock();
+        }
+        if (leader) {
+            lead();
+        }
+        return member.await();
+    }
+    
+    /**
+     * Wait for the group to fill up, then execute and commit it.
+     */
+    private void lead() {
+        
+        List<Member<?>> group;
+        lock.lock();
+        try {
+            while (committing) {
+                committed.await();
+            }
+            long remaining = windowNanos;
+            while (pending.size() < expectedWrites() && remaining > 0) {
+                remaining = joined.awaitNanos(remaining);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            group = pending;
+            pending = new ArrayList<>();
+            leading = false;
+            committing = true;
+            lastGroupSize = group.size();
+            arriving.addAndGet(-group.size());
+            lock.unlock();
+        }
+        boolean done = false;
+        try {
+            done = transaction.run(group.size(), () -> {
+                for (Member<?> member : group) {
+                    member.run();
+                    //the database rolled back the writes of the members before; abort, so none of them commits
+                    if (member.rolledBack()) {
+                        throw member.error;
+                    }
+                }
+            });
+        } finally {
+            lock.lock();
+            try {
+                committing = false;
+                committed.signalAll();
+            } finally {
+                lock.unlock();
+            }
+            for (Member<?> member : group) {
+                member.finish(done);
+            }
+        }
+    }
+    
+    /**
+     * @return number of writes the current group should wait for; needs the lock.
+     */
+    private int expectedWrites() {
+        
+        return Math.min(maxWrites, Math.max(lastGroupSize, arriving.get()));
+    }
+    
+    /**
+     * @param e Error of a statement.
+     * @return true if the database rolled back the whole transaction (SQLState class 40: deadlock, lock timeout),
+     * not only the failed statement.
+     */
+    static boolean rollsBackTransaction(SQLException e) {
+        
+        return e.getSQLState() != null && e.getSQLState().startsWith("40");
+    }
+    
+    /**
+     * Runs the writes of a group in one transaction.
+     */
+    interface Transaction {
+        
+        /**
+         * @param writes Number of writes in the group.
+         * @param work   Executes the writes.
+         * @return true if the writes were committed.
+         */
+        boolean run(int writes, Runnable work);
+    }
+    
+    /**
+     * A single write waiting for its group to be committed.
+     */
+    private static final class Member<T> {
+        
+        private final Supplier<T> write;
+        private final CompletableFuture<T> future = new CompletableFuture<>();
+        private T result;
+        private RuntimeException error;
+        
+        private Member(Supplier<T> write) {
+            
+            this.write = write;
+        }
+        
+        private void run() {
+            
+            try {
+                result = write.get();
+            } catch (RuntimeException e) {
+                error = e;
+            }
+        }
+        
+        /**
+         * @return true if the write failed because the database rolled back the whole transaction.
+         */
+        private boolean rolledBack() {
+            
+            return error != null && error.getCause() instanceof SQLException
+                    && rollsBackTransaction((SQLException) error.getCause());
+        }
+        
+        private void finish(boolean committed) {
+            
+            if (!committed) {
+                //every member fails, including those whose own write succeeded before the rollback
+                future.completeExceptionally(new SQLException("group commit rolled back", "40000", error));
+            } else if (error != null) {
+                future.completeExceptionally(error);
+            } else {
+                future.complete(result);
+            }
+        }
+        
+        private T await() throws SQLException {
+            
+            try {
+                return future.join();
+            } catch (CompletionException e) {
+                if (e.getCause() instanceof SQLException) {
+                    throw (SQLException) e.getCause();
+                }
+                throw (RuntimeException) e.getCause();
+            }
+        }
+    }
+}
@@ -0,0 +1,115 @@
+package SEJDB;
+
+import java.util.BitSet;
+
+/**
+ * ID handling for a single table.
+ * <p>
+ * The allocator is seeded once from the table and afterwards answers every request from memory,
+ * so an insert no longer has to scan the table for a free ID.
+ * <p>
+ * Two strategies are supported:<p>
+ * - lowest free ID: gaps left by deleted rows are reused (the classic SEJDB behaviour).<p>
+ * - append: always hands out MAX(ID) + 1.<p>
+ * IDs are longs, so BIGINT ID columns can grow beyond the INT range; gaps are only tracked within the INT range.
+ * All methods are synchronized; one allocator may be shared by several threads.
+ *
+ * @author Dennis Sellemann <a>dsellemann@gmail.com</a>
+ * @version 0.5
+ */
+class IdAllocator {
+    
+    private final boolean lowestFree;
+    private final BitSet used = new BitSet();
+    private long maxID;
+    
+    /**
+     * Constructor for an empty allocator.
+     *
+     * @param lowestFree true to reuse gaps (lowest free ID), false to always append after the highest ID.
+     */
+    IdAllocator(boolean lowestFree) {
+        
+        this.lowestFree = lowestFree;
+        this.maxID = -1;
+    }
+    
+    /**
+     * Return the ID the next call of {@link #allocate()} would hand out, without reserving it.
+     *
+     * @return next free ID.
+     */
+    synchronized long peek() {
+        
+        if (lowestFree) {
+            int free = used.nextClearBit(0);
+            if (free >= 0 && free < Integer.MAX_VALUE) {
+                return free;
+            }
+        }
+        return maxID + 1;
+    }
+    
+    /**
+     * Reserve and return a free ID.
+     *
+     * @return reserved ID.
+     */
+    synchronized long allocate() {
+        
+        long ID = peek();
+        markUsed(ID);
+        return ID;
+    }
+    
+    /**
+     * Mark an ID as used; e.g. while seeding from the existing rows of the table.
+     *
+     * @param ID ID to mark.
+     */
+    synchronized void markUsed(long ID) {
+        
+        if (ID < 0) {
+            return;
+        }
+        if (lowestFree && ID < Integer.MAX_VALUE) {
+            used.set((int) ID);
+        }
+        if (ID > maxID) {
+            maxID = ID;
+        }
+    }
+    
+    /**
+     * Give an ID back; e.g. after its row was deleted or the insert failed.
+     *
+     * @param ID ID to release.
+     */
+    synchronized void release(long ID) {
+        
+        if (ID < 0 || ID >= Integer.MAX_VALUE || !lowestFree) {
+            return;
+        }
+        used.clear((int) ID);
+        if (ID == maxID) {
+            maxID = used.length() - 1;
+        }
+    }
+    
+    /**
+     * Forget every ID; used when the table gets cleared.
+     */
+    synchronized void clear() {
+        
+        used.clear();
+        maxID = -1;
+    }
+    
+    /**
+     * @return true if gaps are reused.
+     */
+    boolean isLowestFree() {
+        
+        return lowestFree;
+    }
+}
@@ -0,0 +1,140 @@
+package SEJDB;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Collects how often each column is used for lookups, how many rows they return and how long they take.
+ * <p>
+ * {@link DBServices} uses the numbers to suggest (or automatically create) indexes for columns that are
+ * searched often and return only a small part of their table.
+ *
+ * @author Dennis Sellemann <a>dsellemann@gmail.com</a>
+ * @version 0.5
+ */
+class IndexAdvisor {
+    
+    private final Map<String, ColumnStats> stats = new ConcurrentHashMap<>();
+    private final Set<String> autoIndexed = ConcurrentHashMap.newKeySet();
+    
+    /**
+     * Record a lookup.
+     *
+     * @param tableName  Targeting table.
+     * @param columnName Searched column.
+     * @param rows       Number of rows returned.
+     * @param nanos      Duration of the lookup.
+     * @return statistics of the column, including this lookup.
+     */
+    ColumnStats record(String tableName, String columnName, int rows, long nanos) {
+        
+        String table = tableName.toUpperCase();
+        String column = columnName.toUpperCase();
+        ColumnStats columnStats = stats.computeIfAbsent(table + "." + column, k -> new ColumnStats(table, column));
+        columnStats.lookups.increment();
+        columnStats.rows.add(rows);
+        columnStats.nanos.add(nanos);
+        return columnStats;
+    }
+    
+    /**
+     * Check if a column is due for an automatic index check: once every interval lookups, so a column that didn't
+     * qualify (e.g. because its table was small) is checked again later. True for one caller per interval.
+     *
+     * @param columnStats Targeting column.
+     * @param interval    Number of lookups between two checks.
+     * @return true if the column should be checked now.
+     */
+    boolean dueForAutoIndex(ColumnStats columnStats, int interval) {
+        
+        if (isAutoIndexed(columnStats)) {
+            return false;
+        }
+        long next = columnStats.nextCheck.get();
+        long lookups = columnStats.lookups.sum();
+        return lookups >= Math.max(next, interval) && columnStats.nextCheck.compareAndSet(next, lookups + interval);
+    }
+    
+    /**
+     * Remember that an index was created automatically for the column; it isn't created again, e.g. after it
+     * was dropped.
+     *
+     * @param columnStats Targeting column.
+     */
+    void markAutoIndexed(ColumnStats columnStats) {
+        
+        autoIndexed.add(columnStats.table + "." + columnStats.column);
+    }
+    
+    /**
+     * @param columnStats Targeting column.
+     * @return true if an index was created automatically for the column.
+     */
+    boolean isAutoIndexed(ColumnStats columnStats) {
+        
+        return autoIndexed.contains(columnStats.table + "." + columnStats.column);
+    }
+    
+    /**
+     * @return statistics of all columns searched so far.
+     */
+    List<ColumnStats> getStats() {
+        
+        return new ArrayList<>(stats.values());
+    }
+    
+    /**
+     * Forget all statistics of a table; e.g. after it was deleted.
+     *
+     * @param tableName Targeting table.
+     */
+    void forget(String tableName) {
+        
+        String prefix = tableName.toUpperCase() + ".";
+        stats.keySet().removeIf(key -> key.startsWith(prefix));
+        autoIndexed.removeIf(key -> key.startsWith(prefix));
+    }
+    
+    /**
+     * Lookup statistics of one column.
+     */
+    static final class ColumnStats {
+        
+        final String table;
+        final String column;
+        final LongAdder lookups = new LongAdder();
+        final LongAdder rows = new LongAdder();
+        final LongAdder nanos = new LongAdder();
+        //lookups at which the next automatic index check is due
+        private final AtomicLong nextCheck = new AtomicLong();
+        
+        private ColumnStats(String table, String column) {
+            
+            this.table = table;
+            this.column = column;
+        }
+        
+        /**
+         * @return average number of rows returned per lookup.
+         */
+        double averageRows() {
+            
+            long count = lookups.sum();
+            return count == 0 ? 0 : (double) rows.sum() / count;
+        }
+        
+        /**
+         * @return average duration of a lookup in milliseconds.
+         */
+        double averageMillis() {
+            
+            long count = lookups.sum();
+            return count == 0 ? 0 : nanos.sum() / 1e6 / count;
+        }
+    }
+}
@@ -0,0 +1,133 @@
+package SEJDB;
+
+/**
+ * Receives the messages and the measurements of the operations of a {@link DBServices} instance.
+ * <p>
+ * All methods have empty defaults; implement only what is needed. The default instrumentation {@link #NONE}
+ * does nothing at all, so nothing gets printed or collected on the hot path.
+ * Implementations are called from every thread using the database and have to be thread safe.
+ *
+ * @author Dennis Sellemann <a>dsellemann@gmail.com</a>
+ * @version 0.5
+ * @see OperationMetrics
+ * @see #jfr(long)
+ */
+public interface Instrumentation {
+    
+    /**
+     * Instrumentation that ignores everything (default).
+     */
+    Instrumentation NONE = new Instrumentation() {
+    };
+    
+    /**
+     * @return true if {@link #log(String)} should be called; messages are only built if it returns true.
+     */
+    default boolean isLogging() {
+        
+        return false;
+    }
+    
+    /**
+     * Report a progress message of an operation; e.g. "edited table".
+     * Errors are still printed to the console.
+     *
+     * @param message Message text.
+     */
+    default void log(String message) {
+        
+    }
+    
+    /**
+     * Report a completed operation.
+     *
+     * @param operation   Name of the public method; e.g. "insertData" or "getRow".
+     * @param tableName   Targeting table; null if the operation isn't bound to a table.
+     * @param nanos       Duration of the operation.
+     * @param rowsRead    Number of rows returned.
+     * @param rowsWritten Number of rows inserted or deleted.
+     */
+    default void operation(String operation, String tableName, long nanos, long rowsRead, long rowsWritten) {
+        
+    }
+    
+    /**
+     * @return instrumentation printing all messages to the console, like earlier versions did.
+     */
+    static Instrumentation console() {
+        
+        return new Instrumentation() {
+            @Override
+            public boolean isLogging() {
+                
+                return true;
+            }
+            
+            @Override
+            public void log(String message) {
+                
+                System.out.println(message);
+            }
+        };
+    }
+    
+    /**
+     * Instrumentation emitting a Java Flight Recorder event ("SEJDB.SlowOperation") for every operation slower
+     * than the threshold. The implementation lives in the Java 11 part of the multi-release jar; it is loaded
+     * by name, so this interface still works on Java 8.
+     *
+     * @param thresholdMillis Minimum duration of a reported operation; 0 reports every operation.
+     * @return the JFR instrumentation; {@link #NONE} if the JVM doesn't support it.
+     */
+    static Instrumentation jfr(long thresholdMillis) {
+        
+        try {
+            Class<?> type = Class.forName("SEJDB.JfrInstrumentation");
+            return (Instrumentation) type.getConstructor(long.class).newInstance(thresholdMillis);
+        } catch (ReflectiveOperationException | LinkageError e) {
+            System.out.println("JFR events need Java 11 or newer and the SEJDB jar; instrumentation disabled.");
+            return NONE;
+        }
+    }
+    
+    /**
+     * Combine several instrumentations; e.g. {@link OperationMetrics} together with {@link #jfr(long)}.
+     *
+     * @param instrumentations Instrumentations to call, in order.
+     * @return instrumentation forwarding to all of them.
+     */
+    static Instrumentation combine(Instrumentation... instrumentations) {
+        
+        Instrumentation[] all = instrumentations.clone();
+        return new Instrumentation() {
+            @Override
+            public boolean isLogging() {
+                
+                for (Instrumentation instrumentation : all) {
+                    if (instrumentation.isLogging()) {
+                        return true;
+                    }
+                }
+                return false;
+            }
+            
+            @Override
+            public void log(String message) {
+                
+                for (Instrumentation instrumentation : all) {
+                    if (instrumentation.isLogging()) {
+                        instrumentation.log(message);
+                    }
+                }
+            }
+            
+            @Override
+            public void operation(String operation, String tableName, long nanos, long rowsRead, long rowsWritten) {
+                
+                for (Instrumentation instrumentation : all) {
+                    instrumentation.operation(operation, tableName, nanos, rowsRead, rowsWritten);
+                }
+            }
+        };
+    }
+}
@@ -0,0 +1,100 @@
+package SEJDB;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Lock-free histogram of durations in nanoseconds.
+ * <p>
+ * Every power of two is split into 8 buckets, so a percentile is off by at most 12.5%;
+ * the whole long range fits into 512 counters, independent of the number of recorded values.
+ *
+ * @author Dennis Sellemann <a>dsellemann@gmail.com</a>
+ * @version 0.5
+ */
+class LatencyHistogram {
+    
+    private static final int SUB_BITS = 3;
+    private static final int SUB_BUCKETS = 1 << SUB_BITS;
+    
+    private final AtomicLongArray counts = new AtomicLongArray(64 << SUB_BITS);
+    private final LongAdder count = new LongAdder();
+    private final AtomicLong max = new AtomicLong();
+    
+    /**
+     * @param nanos Duration to record.
+     */
+    void record(long nanos) {
+        
+        long value = Math.max(0, nanos);
+        counts.incrementAndGet(index(value));
+        count.increment();
+        max.accumulateAndGet(value, Math::max);
+    }
+    
+    long getCount() {
+        
+        return count.sum();
+    }
+    
+    long getMax() {
+        
+        return max.get();
+    }
+    
+    /**
+     * @param percentile Percentile between 0 and 100; e.g. 99.
+     * @return upper bound of the bucket containing the percentile; 0 if nothing was recorded.
+     */
+    long getPercentile(double percentile) {
+        
+        long total = 0;
+        for (int i = 0; i < counts.length(); i++) {
+            total += counts.get(i);
+        }
+        if (total == 0) {
+            return 0;
+        }
+        long rank = Math.max(1, (long) Math.ceil(total * Math.min(100, Math.max(0, percentile)) / 100));
+        long seen = 0;
+        for (int i = 0; i < counts.length(); i++) {
+            seen += counts.get(i);
+            if (seen >= rank) {
+                return Math.min(lowerBound(i + 1) - 1, getMax());
+            }
+        }
+        return getMax();
+    }
+    
+    void reset() {
+        
+        for (int i = 0; i < counts.length(); i++) {
+            counts.set(i, 0);
+        }
+        count.reset();
+        max.set(0);
+    }
+    
+    private static int index(long value) {
+        
+        if (value < SUB_BUCKETS) {
+            return (int) value;
+        }
+        int exponent = 63 - Long.numberOfLeadingZeros(value);
+        int sub = (int) (value >>> (exponent - SUB_BITS)) & (SUB_BUCKETS - 1);
+        return ((exponent - SUB_BITS + 1) << SUB_BITS) + sub;
+    }
+    
+    private static long lowerBound(int index) {
+        
+        if (index < SUB_BUCKETS) {
+            return index;
+        }
+        int exponent = (index >> SUB_BITS) + SUB_BITS - 1;
+        if (exponent >= 63) {
+            return Long.MAX_VALUE;
+        }
+        return (1L << exponent) + ((long) (index & (SUB_BUCKETS - 1)) << (exponent - SUB_BITS));
+    }
+}
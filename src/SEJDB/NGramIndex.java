@@ -0,0 +1,369 @@
+package SEJDB;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * In-memory inverted index of the trigrams of one text column, used to answer LIKE searches with a leading
+ * wildcard (e.g. "%foo%") without scanning the table.
+ * <p>
+ * Every three consecutive characters of a value are a trigram; the index keeps the sorted IDs of the rows
+ * containing each trigram, and the value of every row. A search intersects the ID lists of the trigrams of the
+ * pattern and checks the remaining values against the pattern, so only matching rows are read.
+ * Changes are applied lazily: writes mark their row as dirty (see {@link #invalidate(long)}) and the dirty rows
+ * are re-read before the next search.
+ *
+ * @author Dennis Sellemann <a>dsellemann@gmail.com</a>
+ * @version 0.5
+ */
+class NGramIndex {
+    
+    /**
+     * Length of the indexed character sequences.
+     */
+    static final int N = 3;
+    
+    private final String tableName;
+    private final String columnName;
+    private final Object refreshLock = new Object();
+    private Map<Long, IdList> postings = new HashMap<>();
+    private Map<Long, String> values = new HashMap<>();
+    private Set<Long> dirty = new HashSet<>();
+    private boolean stale = true;
+    
+    /**
+     * Constructor for an empty index; it is stale until the first {@link #rebuild(Map)}.
+     *
+     * @param tableName  Indexed table.
+     * @param columnName Indexed column.
+     */
+    NGramIndex(String tableName, String columnName) {
+        
+        this.tableName = tableName.toUpperCase();
+        this.columnName = columnName.toUpperCase();
+    }
+    
+    String getTableName() {
+        
+        return tableName;
+    }
+    
+    String getColumnName() {
+        
+        return columnName;
+    }
+    
+    /**
+     * Lock to hold while reading the table for {@link #rebuild(Map)} or {@link #apply(Set, Map)}, so only one
+     * thread refreshes the index at a time; searches and writes don't wait for it.
+     *
+     * @return the refresh lock.
+     */
+    Object getRefreshLock() {
+        
+        return refreshLock;
+    }
+    
+    /**
+     * Mark a single row as changed; e.g. after it was inserted, updated or deleted.
+     * Once too many rows are dirty, the whole index is rebuilt instead.
+     *
+     * @param ID row ID.
+     */
+    synchronized void invalidate(long ID) {
+        
+        if (stale) {
+            return;
+        }
+        dirty.add(ID);
+        if (dirty.size() > Math.max(10_000, values.size() / 8)) {
+            invalidate();
+        }
+    }
+    
+    /**
+     * Mark every row as changed; e.g. after the table was cleared.
+     */
+    synchronized void invalidate() {
+        
+        stale = true;
+        dirty = new HashSet<>();
+    }
+    
+    /**
+     * @return true if the index has to be rebuilt before the next search.
+     */
+    synchronized boolean isStale() {
+        
+        return stale;
+    }
+    
+    /**
+     * Take the dirty rows; pass them to {@link #apply(Set, Map)} together with their current values.
+     *
+     * @return the rows changed since the last call.
+     */
+    synchronized Set<Long> takeDirty() {
+        
+        Set<Long> taken = dirty;
+        dirty = new HashSet<>();
+        return taken;
+    }
+    
+    /**
+     * Replace the content of the index. Rows changed while the values were read stay dirty.
+     * Clear the stale flag with {@link #beginRebuild()} before reading the values.
+     *
+     * @param rows All rows of the table with their value; null values aren't indexed.
+     */
+    void rebuild(Map<Long, String> rows) {
+        
+        Map<Long, IdList> built = new HashMap<>();
+        Map<Long, String> indexed = new HashMap<>(rows.size() * 2);
+        //add the rows in ID order, so every ID list is built by appending
+        Long[] IDs = rows.keySet().toArray(new Long[0]);
+        Arrays.sort(IDs);
+        for (Long ID : IDs) {
+            String value = rows.get(ID);
+            if (value != null) {
+                indexed.put(ID, value);
+                for (long gram : grams(value)) {
+                    built.computeIfAbsent(gram, k -> new IdList()).add(ID);
+                }
+            }
+        }
+        synchronized (this) {
+            postings = built;
+            values = indexed;
+        }
+    }
+    
+    /**
+     * Clear the stale flag and the dirty rows before the table is read for {@link #rebuild(Map)}.
+     */
+    synchronized void beginRebuild() {
+        
+        stale = false;
+        dirty = new HashSet<>();
+    }
+    
+    /**
+     * Update the given rows.
+     *
+     * @param IDs  Rows to update; rows missing in the values were deleted.
+     * @param rows Current values of the rows.
+     */
+    synchronized void apply(Set<Long> IDs, Map<Long, String> rows) {
+        
+        for (Long ID : IDs) {
+            String old = values.remove(ID);
+            if (old != null) {
+                for (long gram : grams(old)) {
+                    IdList list = postings.get(gram);
+                    if (list != null && list.remove(ID) && list.size() == 0) {
+                        postings.remove(gram);
+                    }
+                }
+            }
+            String value = rows.get(ID);
+            if (value != null) {
+                values.put(ID, value);
+                for (long gram : grams(value)) {
+                    postings.computeIfAbsent(gram, k -> new IdList()).add(ID);
+                }
+            }
+        }
+    }
+    
+    /**
+     * @param pattern LIKE pattern.
+     * @return true if the pattern contains a literal part the index can search for.
+     */
+    static boolean canSearch(String pattern) {
+        
+        for (String literal : literals(pattern)) {
+            if (literal.length() >= N) {
+                return true;
+            }
+        }
+        return false;
+    }
+    
+    /**
+     * Find the rows whose value matches a LIKE pattern.
+     *
+     * @param pattern LIKE pattern with the wildcards "%" and "_"; see {@link #canSearch(String)}.
+     * @return IDs of the matching rows in ascending order.
+     */
+    synchronized List<Long> search(String pattern) {
+        
+        Set<Long> grams = new HashSet<>();
+        for (String literal : literals(pattern)) {
+            grams.addAll(grams(literal));
+        }
+        List<IdList> lists = new ArrayList<>();
+        for (long gram : grams) {
+            IdList list = postings.get(gram);
+            if (list == null) {
+                return new ArrayList<>();
+            }
+            lists.add(list);
+        }
+        //walk the shortest list and probe the others
+        lists.sort(Comparator.comparingInt(IdList::size));
+        IdList shortest = lists.get(0);
+        List<Long> found = new ArrayList<>();
+        for (int i = 0; i < shortest.size(); i++) {
+            long ID = shortest.get(i);
+            boolean all = true;
+            for (int j = 1; j < lists.size() && all; j++) {
+                all = lists.get(j).contains(ID);
+            }
+            if (all && like(values.get(ID), pattern)) {
+                found.add(ID);
+            }
+        }
+        return found;
+    }
+    
+    /**
+     * @return number of indexed rows.
+     */
+    synchronized int size() {
+        
+        return values.size();
+    }
+    
+    /**
+     * @param value Text to split.
+     * @return the distinct trigrams of the text, each packed into a long.
+     */
+    private static Set<Long> grams(String value) {
+        
+        Set<Long> grams = new HashSet<>();
+        for (int i = 0; i + N <= value.length(); i++) {
+            grams.add(((long) value.charAt(i) << 32) | ((long) value.charAt(i + 1) << 16) | value.charAt(i + 2));
+        }
+        return grams;
+    }
+    
+    /**
+     * @param pattern LIKE pattern.
+     * @return the parts of the pattern between its wildcards.
+     */
+    private static List<String> literals(String pattern) {
+        
+        List<String> literals = new ArrayList<>();
+        int start = 0;
+        for (int i = 0; i <= pattern.length(); i++) {
+            if (i == pattern.length() || pattern.charAt(i) == '%' || pattern.charAt(i) == '_') {
+                if (i > start) {
+                    literals.add(pattern.substring(start, i));
+                }
+                start = i + 1;
+            }
+        }
+        return literals;
+    }
+    
+    /**
+     * Match a value like the LIKE operator of the database: "%" matches any text, "_" a single character.
+     *
+     * @param value   Value to check.
+     * @param pattern LIKE pattern.
+     * @return true if the value matches.
+     */
+    static boolean like(String value, String pattern) {
+        
+        if (value == null) {
+            return false;
+        }
+        int v = 0;
+        int p = 0;
+        int star = -1;
+        int mark = 0;
+        while (v < value.length()) {
+            if (p < pattern.length() && pattern.charAt(p) == '%') {
+                star = p++;
+                mark = v;
+            } else if (p < pattern.length() && (pattern.charAt(p) == '_' || pattern.charAt(p) == value.charAt(v))) {
+                p++;
+                v++;
+            } else if (star >= 0) {
+                //let the last "%" swallow one more character
+                p = star + 1;
+                v = ++mark;
+            } else {
+                return false;
+            }
+        }
+        while (p < pattern.length() && pattern.charAt(p) == '%') {
+            p++;
+        }
+        return p == pattern.length();
+    }
+    
+    /**
+     * Sorted list of row IDs; IDs are mostly allocated in ascending order, so adding is usually an append.
+     */
+    private static final class IdList {
+        
+        private long[] IDs = new long[4];
+        private int size;
+        
+        void add(long ID) {
+            
+            if (size > 0 && IDs[size - 1] >= ID) {
+                int index = Arrays.binarySearch(IDs, 0, size, ID);
+                if (index >= 0) {
+                    return;
+                }
+                insert(-index - 1, ID);
+                return;
+            }
+            insert(size, ID);
+        }
+        
+        boolean remove(long ID) {
+            
+            int index = Arrays.binarySearch(IDs, 0, size, ID);
+            if (index < 0) {
+                return false;
+            }
+            System.arraycopy(IDs, index + 1, IDs, index, size - index - 1);
+            size--;
+            return true;
+        }
+        
+        boolean contains(long ID) {
+            
+            return Arrays.binarySearch(IDs, 0, size, ID) >= 0;
+        }
+        
+        long get(int index) {
+            
+            return IDs[index];
+        }
+        
+        int size() {
+            
+            return size;
+        }
+        
+        private void insert(int index, long ID) {
+            
+            if (size == IDs.length) {
+                IDs = Arrays.copyOf(IDs, size + (size >> 1) + 1);
+            }
+            System.arraycopy(IDs, index, IDs, index + 1, size - index);
+            IDs[index] = ID;
+            size++;
+        }
+    }
+}
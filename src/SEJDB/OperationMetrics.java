@@ -0,0 +1,132 @@
+package SEJDB;
+
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Instrumentation counting every operation with its rows and latency distribution (p50, p99, max).
+ * <p>
+ * Usage: <p>
+ * OperationMetrics metrics = new OperationMetrics();<p>
+ * db.setInstrumentation(metrics);<p>
+ * ...<p>
+ * metrics.print();
+ *
+ * @author Dennis Sellemann <a>dsellemann@gmail.com</a>
+ * @version 0.5
+ */
+public class OperationMetrics implements Instrumentation {
+    
+    private final Map<String, Stats> stats = new ConcurrentHashMap<>();
+    
+    @Override
+    public void operation(String operation, String tableName, long nanos, long rowsRead, long rowsWritten) {
+        
+        Stats operationStats = stats.get(operation);
+        if (operationStats == null) {
+            operationStats = stats.computeIfAbsent(operation, k -> new Stats());
+        }
+        operationStats.latency.record(nanos);
+        operationStats.rowsRead.add(rowsRead);
+        operationStats.rowsWritten.add(rowsWritten);
+    }
+    
+    /**
+     * @return names of all operations recorded so far.
+     */
+    public Set<String> getOperations() {
+        
+        return new TreeSet<>(stats.keySet());
+    }
+    
+    /**
+     * @param operation Name of the operation; e.g. "getRow".
+     * @return number of calls.
+     */
+    public long getCount(String operation) {
+        
+        Stats operationStats = stats.get(operation);
+        return operationStats == null ? 0 : operationStats.latency.getCount();
+    }
+    
+    /**
+     * @param operation Name of the operation.
+     * @return number of rows returned by all calls.
+     */
+    public long getRowsRead(String operation) {
+        
+        Stats operationStats = stats.get(operation);
+        return operationStats == null ? 0 : operationStats.rowsRead.sum();
+    }
+    
+    /**
+     * @param operation Name of the operation.
+     * @return number of rows inserted or deleted by all calls.
+     */
+    public long getRowsWritten(String operation) {
+        
+        Stats operationStats = stats.get(operation);
+        return operationStats == null ? 0 : operationStats.rowsWritten.sum();
+    }
+    
+    /**
+     * @param operation  Name of the operation.
+     * @param percentile Percentile between 0 and 100; e.g. 50 or 99.
+     * @return latency in milliseconds below which the given share of calls completed.
+     */
+    public double getPercentileMillis(String operation, double percentile) {
+        
+        Stats operationStats = stats.get(operation);
+        return operationStats == null ? 0 : operationStats.latency.getPercentile(percentile) / 1e6;
+    }
+    
+    /**
+     * @param operation Name of the operation.
+     * @return latency of the slowest call in milliseconds.
+     */
+    public double getMaxMillis(String operation) {
+        
+        Stats operationStats = stats.get(operation);
+        return operationStats == null ? 0 : operationStats.latency.getMax() / 1e6;
+    }
+    
+    /**
+     * Forget everything recorded so far.
+     */
+    public void reset() {
+        
+        stats.clear();
+    }
+    
+    /**
+     * Print a table of all operations to the console.
+     */
+    public void print() {
+        
+        System.out.println("\nOperations:");
+        System.out.println("operation\tcalls\trows read\trows written\tp50 ms\tp99 ms\tmax ms");
+        for (Map.Entry<String, Stats> entry : new TreeMap<>(stats).entrySet()) {
+            String operation = entry.getKey();
+            System.out.println(operation + "\t" + getCount(operation) + "\t" + getRowsRead(operation) + "\t"
+                    + getRowsWritten(operation)
+                    + "\t" + String.format("%.3f", getPercentileMillis(operation, 50))
+                    + "\t" + String.format("%.3f", getPercentileMillis(operation, 99))
+                    + "\t" + String.format("%.3f", getMaxMillis(operation)));
+        }
+        System.out.println("");
+    }
+    
+    /**
+     * Counters of one operation.
+     */
+    private static final class Stats {
+        
+        private final LatencyHistogram latency = new LatencyHistogram();
+        private final LongAdder rowsRead = new LongAdder();
+        private final LongAdder rowsWritten = new LongAdder();
+    }
+}
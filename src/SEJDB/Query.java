@@ -0,0 +1,368 @@
+package SEJDB;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Fluent query on a single table, created by {@link DBServices#query(String)}.
+ * <p>
+ * Only the selected columns and the matching rows are read; all values are bound as parameters and the
+ * compiled statement is cached, so running the same query shape again doesn't prepare it again.
+ * Conditions are joined with AND; {@link #or()} starts a new group, so
+ * {@code where(a).and(b).or().where(c)} means "(a AND b) OR c".
+ * <p>
+ * Example: {@code db.query("USERS").select("ID", "NAME").where("AGE", ">=", 18).orderBy("NAME").limit(10).fetch()}
+ *
+ * @author Dennis Sellemann <a>dsellemann@gmail.com</a>
+ * @version 0.5
+ */
+public final class Query {
+    
+    private static final List<String> OPERATORS = Arrays.asList("=", "<>", "!=", "<", "<=", ">", ">=", "LIKE",
+            "NOT LIKE");
+    
+    private final DBServices db;
+    private final String tableName;
+    private final SchemaCatalog.TableSchema schema;
+    private final List<String> columns = new ArrayList<>();
+    private final List<List<Condition>> groups = new ArrayList<>();
+    private final List<String> order = new ArrayList<>();
+    private long offset;
+    private int limit;
+    
+    /**
+     * Constructor for a query selecting every row of the table.
+     *
+     * @param db        Database to query.
+     * @param tableName Targeting table.
+     * @param schema    Schema of the table; null if the table doesn't exist.
+     */
+    Query(DBServices db, String tableName, SchemaCatalog.TableSchema schema) {
+        
+        this.db = db;
+        this.tableName = tableName;
+        this.schema = schema;
+        this.groups.add(new ArrayList<>());
+    }
+    
+    /**
+     * Read only the given columns instead of all.
+     *
+     * @param columnNames Columns to read.
+     * @return this query.
+     */
+    public Query select(String... columnNames) {
+        
+        for (String column : columnNames) {
+            columns.add(column(column));
+        }
+        return this;
+    }
+    
+    /**
+     * Add a condition comparing a column with a value; a null value matches null with "=" and "&lt;&gt;".
+     *
+     * @param columnName Column to compare.
+     * @param operator   One of "=", "&lt;&gt;", "!=", "&lt;", "&lt;=", "&gt;", "&gt;=", "like", "not like".
+     * @param value      Value to compare with.
+     * @return this query.
+     */
+    public Query where(String columnName, String operator, Object value) {
+        
+        String column = column(columnName);
+        String op = operator.trim().toUpperCase(Locale.ROOT);
+        if (!OPERATORS.contains(op)) {
+            throw new IllegalArgumentException("unknown operator: " + operator);
+        }
+        if (value == null && (op.equals("=") || op.equals("<>") || op.equals("!="))) {
+            return add(column + (op.equals("=") ? " IS NULL" : " IS NOT NULL"));
+        }
+        return add(column + " " + op + " ?", value);
+    }
+    
+    /**
+     * Add a condition matching a column exactly.
+     *
+     * @param columnName Column to compare.
+     * @param value      Value to match.
+     * @return this query.
+     */
+    public Query where(String columnName, Object value) {
+        
+        return where(columnName, "=", value);
+    }
+    
+    /**
+     * Same as {@link #where(String, String, Object)}; reads better after a first condition.
+     *
+     * @param columnName Column to compare.
+     * @param operator   Comparison operator.
+     * @param value      Value to compare with.
+     * @return this query.
+     */
+    public Query and(String columnName, String operator, Object value) {
+        
+        return where(columnName, operator, value);
+    }
+    
+    /**
+     * Start a new group of conditions; a row matches if it matches all conditions of any group.
+     *
+     * @return this query.
+     */
+    public Query or() {
+        
+        if (!groups.get(groups.size() - 1).isEmpty()) {
+            groups.add(new ArrayList<>());
+        }
+        return this;
+    }
+    
+    /**
+     * Start a new group of conditions with the given one; see {@link #or()}.
+     *
+     * @param columnName Column to compare.
+     * @param operator   Comparison operator.
+     * @param value      Value to compare with.
+     * @return this query.
+     */
+    public Query or(String columnName, String operator, Object value) {
+        
+        return or().where(columnName, operator, value);
+    }
+    
+    /**
+     * Maximum number of values of {@link #in(String, Collection)}.
+     */
+    static final int MAX_IN_VALUES = 16 * DBServices.IN_LIST_SIZE;
+    
+    /**
+     * Add a condition matching a column against a list of values.
+     * Lists longer than {@value DBServices#IN_LIST_SIZE} values are split into several IN lists joined with OR.
+     *
+     * @param columnName Column to compare.
+     * @param values     Values to match; no value matches no row.
+     * @return this query.
+     * @throws IllegalArgumentException if there are more than {@value #MAX_IN_VALUES} values; read such lists in
+     *                                  parts or with {@link DBServices#fetchRows(String, Collection)}.
+     */
+    public Query in(String columnName, Collection<?> values) {
+        
+        String column = column(columnName);
+        if (values.isEmpty()) {
+            return add("1 = 0");
+        }
+        if (values.size() > MAX_IN_VALUES) {
+            throw new IllegalArgumentException("at most " + MAX_IN_VALUES + " values for \"" + columnName +
+                    "\"; got " + values.size());
+        }
+        List<Object> list = new ArrayList<>(values);
+        List<String> lists = new ArrayList<>();
+        List<Object> parameters = new ArrayList<>();
+        for (int from = 0; from < list.size(); from += DBServices.IN_LIST_SIZE) {
+            List<Object> chunk = list.subList(from, Math.min(list.size(), from + DBServices.IN_LIST_SIZE));
+            int size = DBServices.inListSize(chunk.size());
+            lists.add(DBServices.inList(column, size));
+            for (int i = 0; i < size; i++) {
+                parameters.add(chunk.get(Math.min(i, chunk.size() - 1)));
+            }
+        }
+        String sql = lists.size() == 1 ? lists.get(0) : "(" + String.join(" OR ", lists) + ")";
+        return add(sql, parameters.toArray());
+    }
+    
+    /**
+     * Add a condition matching a column inside a range, both bounds included.
+     *
+     * @param columnName Column to compare.
+     * @param from       Lower bound.
+     * @param to         Upper bound.
+     * @return this query.
+     */
+    public Query between(String columnName, Object from, Object to) {
+        
+        return add(column(columnName) + " BETWEEN ? AND ?", from, to);
+    }
+    
+    /**
+     * Sort the result ascending by the column; call again for further sort columns.
+     *
+     * @param columnName Column to sort by.
+     * @return this query.
+     */
+    public Query orderBy(String columnName) {
+        
+        order.add(column(columnName));
+        return this;
+    }
+    
+    /**
+     * Sort the result descending by the column; call again for further sort columns.
+     *
+     * @param columnName Column to sort by.
+     * @return this query.
+     */
+    public Query orderByDesc(String columnName) {
+        
+        order.add(column(columnName) + " DESC");
+        return this;
+    }
+    
+    /**
+     * @param limit Maximum number of rows to read; 0 for all.
+     * @return this query.
+     */
+    public Query limit(int limit) {
+        
+        this.limit = Math.max(0, limit);
+        return this;
+    }
+    
+    /**
+     * @param offset Number of rows to skip; combine with {@link #orderBy(String)} for stable pages.
+     * @return this query.
+     */
+    public Query offset(long offset) {
+        
+        this.offset = Math.max(0, offset);
+        return this;
+    }
+    
+    /**
+     * Run the query and read all found rows.
+     *
+     * @return the found rows; empty if the table doesn't exist or the query fails.
+     */
+    public RowSet fetch() {
+        
+        return db.fetch(this);
+    }
+    
+    /**
+     * Count the rows the query would return, inside the database; no row is read.
+     *
+     * @return number of found rows; 0 if the table doesn't exist or the query fails.
+     */
+    public long count() {
+        
+        return db.count(this);
+    }
+    
+    /**
+     * Run the query and return a lazy cursor over the found rows; close it if it isn't read completely.
+     *
+     * @return cursor over the found rows; empty if the table doesn't exist or the query fails.
+     */
+    public Cursor cursor() {
+        
+        return db.open(this);
+    }
+    
+    /**
+     * Run the query and return the found rows as HashMaps.
+     *
+     * @return ArrayList containing HashMaps &lt;ColumnNames, ColumnValue&gt; as Strings for each found row.
+     */
+    public ArrayList<HashMap<String, String>> toHashMaps() {
+        
+        return fetch().toHashMaps();
+    }
+    
+    String getTableName() {
+        
+        return tableName;
+    }
+    
+    /**
+     * @return the SQL of the query; the values are "?" parameters, see {@link #getParameters()}.
+     */
+    String toSql() {
+        
+        StringBuilder sql = new StringBuilder("SELECT ");
+        sql.append(columns.isEmpty() ? "*" : String.join(", ", columns)).append(" FROM ").append(tableName);
+        List<String> alternatives = new ArrayList<>();
+        for (List<Condition> group : groups) {
+            if (group.isEmpty()) {
+                continue;
+            }
+            List<String> conditions = new ArrayList<>();
+            for (Condition condition : group) {
+                conditions.add(condition.sql);
+            }
+            alternatives.add(String.join(" AND ", conditions));
+        }
+        if (!alternatives.isEmpty()) {
+            sql.append(" WHERE ");
+            sql.append(alternatives.size() == 1 ? alternatives.get(0) : "(" + String.join(") OR (", alternatives) + ")");
+        }
+        if (!order.isEmpty()) {
+            sql.append(" ORDER BY ").append(String.join(", ", order));
+        }
+        if (offset > 0) {
+            sql.append(" OFFSET ? ROWS");
+        }
+        if (limit > 0) {
+            sql.append(" FETCH FIRST ? ROWS ONLY");
+        }
+        return sql.toString();
+    }
+    
+    /**
+     * @return the values of the "?" parameters of {@link #toSql()} in order.
+     */
+    List<Object> getParameters() {
+        
+        List<Object> parameters = new ArrayList<>();
+        for (List<Condition> group : groups) {
+            for (Condition condition : group) {
+                Collections.addAll(parameters, condition.values);
+            }
+        }
+        if (offset > 0) {
+            parameters.add(offset);
+        }
+        if (limit > 0) {
+            parameters.add(limit);
+        }
+        return parameters;
+    }
+    
+    /**
+     * @param columnName Column name; case insensitive.
+     * @return the column name in upper case.
+     * @throws IllegalArgumentException if the table has no such column.
+     */
+    private String column(String columnName) {
+        
+        if (schema != null && !schema.hasColumn(columnName)) {
+            throw new IllegalArgumentException("Table \"" + tableName + "\" has no column \"" + columnName + "\"");
+        }
+        return columnName.toUpperCase(Locale.ROOT);
+    }
+    
+    private Query add(String sql, Object... values) {
+        
+        groups.get(groups.size() - 1).add(new Condition(sql, values));
+        return this;
+    }
+    
+    /**
+     * A single condition with the values of its parameters.
+     */
+    private static final class Condition {
+        
+        private final String sql;
+        private final Object[] values;
+        
+        private Condition(String sql, Object[] values) {
+            
+            this.sql = sql;
+            this.values = values;
+        }
+    }
+}
@@ -0,0 +1,211 @@
+package SEJDB;
+
+import java.math.BigDecimal;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.HashMap;
+import java.util.List;
+
+/**
+ * A single row read from a table.
+ * <p>
+ * All rows of one query share the same {@link RowLayout}; a row itself is only a view on its values
+ * inside a flat array, which may be shared with the other rows of a {@link RowSet}.
+ * Values keep their SQL type (e.g. Integer for INT columns) and can be read with the typed getters;
+ * CLOB values are Strings, BLOB and binary values byte arrays.
+ * The String getters return the same text as {@link ResultSet#getString(int)}.
+ *
+ * @author Dennis Sellemann <a>dsellemann@gmail.com</a>
+ * @version 0.5
+ */
+public final class Row {
+    
+    private final RowLayout layout;
+    private final Object[] cells;
+    private final int offset;
+    
+    /**
+     * Constructor for a row.
+     *
+     * @param layout Column layout shared by all rows of the query.
+     * @param cells  Array containing the values.
+     * @param offset Index of the first value of this row inside the array.
+     */
+    Row(RowLayout layout, Object[] cells, int offset) {
+        
+        this.layout = layout;
+        this.cells = cells;
+        this.offset = offset;
+    }
+    
+    /**
+     * Read the current row of the result set into a row of its own.
+     *
+     * @param rs Result set positioned on a row.
+     * @return the row.
+     * @throws SQLException if a value can't be read.
+     */
+    static Row read(ResultSet rs) throws SQLException {
+        
+        RowLayout layout = RowLayout.of(rs);
+        Object[] values = new Object[layout.size()];
+        layout.read(rs, values, 0);
+        return new Row(layout, values, 0);
+    }
+    
+    /**
+     * @param columnName Column name; case insensitive.
+     * @return value of the column as String; null if the value is null or the column doesn't exist.
+     */
+    public String get(String columnName) {
+        
+        return getString(columnName);
+    }
+    
+    /**
+     * @param index Column index, starting at 0.
+     * @return value of the column as String; null if the value is null.
+     */
+    public String get(int index) {
+        
+        return text(cells[offset + index]);
+    }
+    
+    /**
+     * @param columnName Column name; case insensitive.
+     * @return value of the column as String; null if the value is null or the column doesn't exist.
+     */
+    public String getString(String columnName) {
+        
+        return text(getObject(columnName));
+    }
+    
+    /**
+     * @param value Value in its SQL type.
+     * @return the value as String like Derby returns it: binary values in hex, decimals without exponent.
+     */
+    private static String text(Object value) {
+        
+        if (value instanceof byte[]) {
+            byte[] bytes = (byte[]) value;
+            char[] hex = new char[bytes.length * 2];
+            for (int i = 0; i < bytes.length; i++) {
+                hex[2 * i] = Character.forDigit((bytes[i] >> 4) & 0xF, 16);
+                hex[2 * i + 1] = Character.forDigit(bytes[i] & 0xF, 16);
+            }
+            return new String(hex);
+        }
+        if (value instanceof BigDecimal) {
+            return ((BigDecimal) value).toPlainString();
+        }
+        return value == null ? null : value.toString();
+    }
+    
+    /**
+     * @param index Column index, starting at 0.
+     * @return value of the column in its SQL type; null if the value is null.
+     */
+    public Object getObject(int index) {
+        
+        return cells[offset + index];
+    }
+    
+    /**
+     * @param columnName Column name; case insensitive.
+     * @return value of the column in its SQL type; null if the value is null or the column doesn't exist.
+     */
+    public Object getObject(String columnName) {
+        
+        int index = layout.indexOf(columnName);
+        return index < 0 ? null : cells[offset + index];
+    }
+    
+    /**
+     * @param columnName Column name; case insensitive.
+     * @return value of the column as int; 0 if the value is null.
+     * @throws NumberFormatException if the value isn't a number.
+     */
+    public int getInt(String columnName) {
+        
+        Object value = getObject(columnName);
+        if (value instanceof Number) {
+            return ((Number) value).intValue();
+        }
+        return value == null ? 0 : Integer.parseInt(value.toString().trim());
+    }
+    
+    /**
+     * @param columnName Column name; case insensitive.
+     * @return value of the column as long; 0 if the value is null.
+     * @throws NumberFormatException if the value isn't a number.
+     */
+    public long getLong(String columnName) {
+        
+        Object value = getObject(columnName);
+        if (value instanceof Number) {
+            return ((Number) value).longValue();
+        }
+        return value == null ? 0 : Long.parseLong(value.toString().trim());
+    }
+    
+    /**
+     * @param columnName Column name; case insensitive.
+     * @return value of the column as double; 0 if the value is null.
+     * @throws NumberFormatException if the value isn't a number.
+     */
+    public double getDouble(String columnName) {
+        
+        Object value = getObject(columnName);
+        if (value instanceof Number) {
+            return ((Number) value).doubleValue();
+        }
+        return value == null ? 0 : Double.parseDouble(value.toString().trim());
+    }
+    
+    /**
+     * @param columnName Column name; case insensitive.
+     * @return true if the value is null or the column doesn't exist.
+     */
+    public boolean isNull(String columnName) {
+        
+        return getObject(columnName) == null;
+    }
+    
+    /**
+     * @return column names in query order.
+     */
+    public List<String> getColumnNames() {
+        
+        return layout.getNames();
+    }
+    
+    /**
+     * @return number of columns.
+     */
+    public int size() {
+        
+        return layout.size();
+    }
+    
+    /**
+     * @return the row as HashMap containing &lt;ColumnNames, ColumnValue&gt; as Strings.
+     */
+    public HashMap<String, String> toHashMap() {
+        
+        HashMap<String, String> map = new HashMap<>();
+        for (int i = 0; i < layout.size(); i++) {
+            map.put(layout.getName(i), get(i));
+        }
+        return map;
+    }
+    
+    @Override
+    public String toString() {
+        
+        StringBuilder builder = new StringBuilder();
+        for (int i = 0; i < layout.size(); i++) {
+            builder.append(layout.getName(i)).append(": ").append(get(i)).append("\t");
+        }
+        return builder.toString();
+    }
+}
@@ -0,0 +1,134 @@
+package SEJDB;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Size bounded read-through cache for the rows of one table, keyed by ID.
+ * <p>
+ * The least recently used row gets evicted once the cache is full.
+ * Every invalidation increases a version; a row read from the database is only cached if no invalidation
+ * happened since the read started, so a concurrent delete can't be overwritten by a stale row.
+ *
+ * @author Dennis Sellemann <a>dsellemann@gmail.com</a>
+ * @version 0.5
+ */
+class RowCache {
+    
+    private final int maxEntries;
+    private final LinkedHashMap<Long, Row> rows;
+    private long version;
+    private long hits;
+    private long misses;
+    private long evictions;
+    
+    /**
+     * Constructor for an empty cache.
+     *
+     * @param maxEntries Maximum number of cached rows.
+     */
+    RowCache(int maxEntries) {
+        
+        this.maxEntries = Math.max(1, maxEntries);
+        this.rows = new LinkedHashMap<Long, Row>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, Row> eldest) {
+                
+                if (size() > RowCache.this.maxEntries) {
+                    evictions++;
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+    
+    /**
+     * @param ID row ID.
+     * @return the cached row; null on a miss.
+     */
+    synchronized Row get(long ID) {
+        
+        Row row = rows.get(ID);
+        if (row != null) {
+            hits++;
+        } else {
+            misses++;
+        }
+        return row;
+    }
+    
+    /**
+     * Look up a row without counting a hit or miss and without refreshing its position; e.g. for an existence check
+     * that doesn't read the row.
+     *
+     * @param ID row ID.
+     * @return true if the row is cached.
+     */
+    synchronized boolean contains(long ID) {
+        
+        return rows.containsKey(ID);
+    }
+    
+    /**
+     * @return current version; pass it to {@link #put(long, Row, long)} after reading the row.
+     */
+    synchronized long version() {
+        
+        return version;
+    }
+    
+    /**
+     * Cache a row read from the database, unless the table changed since the read started.
+     *
+     * @param ID      row ID.
+     * @param row     row to cache.
+     * @param version version returned by {@link #version()} before the read.
+     */
+    synchronized void put(long ID, Row row, long version) {
+        
+        if (this.version == version) {
+            rows.put(ID, row);
+        }
+    }
+    
+    /**
+     * Drop a single row; e.g. after it was deleted.
+     *
+     * @param ID row ID.
+     */
+    synchronized void invalidate(long ID) {
+        
+        version++;
+        rows.remove(ID);
+    }
+    
+    /**
+     * Drop every row; e.g. after the table was cleared.
+     */
+    synchronized void clear() {
+        
+        version++;
+        rows.clear();
+    }
+    
+    synchronized long getHits() {
+        
+        return hits;
+    }
+    
+    synchronized long getMisses() {
+        
+        return misses;
+    }
+    
+    synchronized long getEvictions() {
+        
+        return evictions;
+    }
+    
+    synchronized int size() {
+        
+        return rows.size();
+    }
+}
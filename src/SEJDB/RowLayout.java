@@ -0,0 +1,129 @@
+package SEJDB;
+
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Column layout shared by all rows of one query: column names, their index and their SQL types.
+ * <p>
+ * Rows only store their values; every name lookup goes through the layout, so the column names
+ * exist once per query instead of once per row.
+ *
+ * @author Dennis Sellemann <a>dsellemann@gmail.com</a>
+ * @version 0.5
+ */
+final class RowLayout {
+    
+    private final String[] names;
+    private final int[] types;
+    private final Map<String, Integer> index;
+    private final List<String> nameList;
+    
+    private RowLayout(String[] names, int[] types) {
+        
+        this.names = names;
+        this.types = types;
+        this.index = new HashMap<>(names.length * 2);
+        for (int i = 0; i < names.length; i++) {
+            index.put(names[i], i);
+        }
+        this.nameList = Collections.unmodifiableList(Arrays.asList(names));
+    }
+    
+    /**
+     * Build the layout of a result set.
+     *
+     * @param rs Result set to describe.
+     * @return layout of the result set.
+     * @throws SQLException if the metadata can't be read.
+     */
+    static RowLayout of(ResultSet rs) throws SQLException {
+        
+        ResultSetMetaData rsmd = rs.getMetaData();
+        String[] names = new String[rsmd.getColumnCount()];
+        int[] types = new int[names.length];
+        for (int i = 0; i < names.length; i++) {
+            names[i] = rsmd.getColumnName(i + 1);
+            types[i] = rsmd.getColumnType(i + 1);
+        }
+        return new RowLayout(names, types);
+    }
+    
+    /**
+     * @return a layout without columns.
+     */
+    static RowLayout empty() {
+        
+        return new RowLayout(new String[0], new int[0]);
+    }
+    
+    /**
+     * Read the current row of the result set into the array.
+     * CLOB values are read as String and BLOB values as byte[]: a LOB locator is only valid inside its transaction,
+     * but rows are kept in row sets and caches.
+     *
+     * @param rs     Result set positioned on a row.
+     * @param cells  Target array.
+     * @param offset Index in the array where the first column is stored.
+     * @throws SQLException if a value can't be read.
+     */
+    void read(ResultSet rs, Object[] cells, int offset) throws SQLException {
+        
+        for (int i = 0; i < names.length; i++) {
+            switch (types[i]) {
+                case Types.CLOB:
+                    cells[offset + i] = rs.getString(i + 1);
+                    break;
+                case Types.BLOB:
+                    cells[offset + i] = rs.getBytes(i + 1);
+                    break;
+                default:
+                    cells[offset + i] = rs.getObject(i + 1);
+            }
+        }
+    }
+    
+    /**
+     * @param columnName Column name; case insensitive.
+     * @return index of the column starting at 0; -1 if the column doesn't exist.
+     */
+    int indexOf(String columnName) {
+        
+        Integer i = index.get(columnName);
+        if (i == null) {
+            i = index.get(columnName.toUpperCase());
+        }
+        return i == null ? -1 : i;
+    }
+    
+    int size() {
+        
+        return names.length;
+    }
+    
+    String getName(int index) {
+        
+        return names[index];
+    }
+    
+    /**
+     * @param index Column index starting at 0.
+     * @return the column type as defined in {@link java.sql.Types}.
+     */
+    int getType(int index) {
+        
+        return types[index];
+    }
+    
+    List<String> getNames() {
+        
+        return nameList;
+    }
+}
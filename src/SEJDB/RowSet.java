@@ -0,0 +1,148 @@
+package SEJDB;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+/**
+ * Materialized result of a query.
+ * <p>
+ * All values are stored row after row in one flat array and share one {@link RowLayout};
+ * there is no per row map or per cell key.
+ *
+ * @author Dennis Sellemann <a>dsellemann@gmail.com</a>
+ * @version 0.5
+ */
+public final class RowSet implements Iterable<Row> {
+    
+    private final RowLayout layout;
+    private Object[] cells;
+    private int rows;
+    
+    /**
+     * Constructor for an empty row set.
+     *
+     * @param layout Column layout of the rows.
+     */
+    RowSet(RowLayout layout) {
+        
+        this.layout = layout;
+        this.cells = new Object[Math.max(1, layout.size()) * 8];
+    }
+    
+    /**
+     * Read all remaining rows of the result set.
+     *
+     * @param rs Result set to read.
+     * @return row set containing the rows.
+     * @throws SQLException if a row can't be read.
+     */
+    static RowSet read(ResultSet rs) throws SQLException {
+        
+        RowSet set = new RowSet(RowLayout.of(rs));
+        while (rs.next()) {
+            set.add(rs);
+        }
+        return set;
+    }
+    
+    /**
+     * @return a row set without rows and columns.
+     */
+    static RowSet empty() {
+        
+        return new RowSet(RowLayout.empty());
+    }
+    
+    /**
+     * Append the current row of the result set.
+     *
+     * @param rs Result set positioned on a row.
+     * @throws SQLException if a value can't be read.
+     */
+    void add(ResultSet rs) throws SQLException {
+        
+        int width = layout.size();
+        if ((rows + 1) * width > cells.length) {
+            cells = Arrays.copyOf(cells, Math.max(cells.length + (cells.length >> 1), (rows + 1) * width));
+        }
+        layout.read(rs, cells, rows * width);
+        rows++;
+    }
+    
+    /**
+     * @param index Row index starting at 0.
+     * @return the row.
+     */
+    public Row get(int index) {
+        
+        if (index < 0 || index >= rows) {
+            throw new IndexOutOfBoundsException("Row: " + index + ", Size: " + rows);
+        }
+        return new Row(layout, cells, index * layout.size());
+    }
+    
+    /**
+     * @return number of rows.
+     */
+    public int size() {
+        
+        return rows;
+    }
+    
+    /**
+     * @return true if there are no rows.
+     */
+    public boolean isEmpty() {
+        
+        return rows == 0;
+    }
+    
+    /**
+     * @return column names shared by all rows.
+     */
+    public List<String> getColumnNames() {
+        
+        return layout.getNames();
+    }
+    
+    /**
+     * @return the rows as list of HashMaps containing &lt;ColumnNames, ColumnValue&gt; as Strings.
+     */
+    public ArrayList<HashMap<String, String>> toHashMaps() {
+        
+        ArrayList<HashMap<String, String>> list = new ArrayList<>(rows);
+        for (Row row : this) {
+            list.add(row.toHashMap());
+        }
+        return list;
+    }
+    
+    @Override
+    public Iterator<Row> iterator() {
+        
+        return new Iterator<Row>() {
+            private int next;
+            
+            @Override
+            public boolean hasNext() {
+                
+                return next < rows;
+            }
+            
+            @Override
+            public Row next() {
+                
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                return get(next++);
+            }
+        };
+    }
+}
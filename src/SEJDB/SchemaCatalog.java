@@ -0,0 +1,176 @@
+package SEJDB;
+
+import java.sql.Connection;
+import java.sql.DatabaseMetaData;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * In-memory copy of the database schema: every table with its column names and SQL types.
+ * <p>
+ * Loaded once at connect time and kept up to date by the DDL methods of {@link DBServices},
+ * so checking a table doesn't need a DatabaseMetaData round trip.
+ * DDL performed in other ways needs a {@link #load(Connection)} to become visible.
+ *
+ * @author Dennis Sellemann <a>dsellemann@gmail.com</a>
+ * @version 0.5
+ */
+class SchemaCatalog {
+    
+    private final Map<String, TableSchema> tables = new ConcurrentHashMap<>();
+    
+    /**
+     * (Re-)load all tables and their columns from the database metadata.
+     *
+     * @param conn Connection to read the metadata from.
+     * @throws SQLException if the metadata can't be read.
+     */
+    void load(Connection conn) throws SQLException {
+        
+        DatabaseMetaData meta = conn.getMetaData();
+        //only the tables of the current schema; e.g. the change log lives in a schema of its own
+        String schema = conn.getSchema();
+        Map<String, Map<String, Integer>> columns = new HashMap<>();
+        try (ResultSet rs = meta.getTables(null, schema, null, new String[]{"TABLE"})) {
+            while (rs.next()) {
+                columns.put(rs.getString("TABLE_NAME"), new LinkedHashMap<>());
+            }
+        }
+        //one metadata query for the columns of all tables; ordered by table and position
+        try (ResultSet rs = meta.getColumns(null, schema, null, null)) {
+            while (rs.next()) {
+                Map<String, Integer> table = columns.get(rs.getString("TABLE_NAME"));
+                if (table != null) {
+                    table.put(rs.getString("COLUMN_NAME"), rs.getInt("DATA_TYPE"));
+                }
+            }
+        }
+        Map<String, TableSchema> loaded = new HashMap<>();
+        for (Map.Entry<String, Map<String, Integer>> entry : columns.entrySet()) {
+            loaded.put(entry.getKey(), new TableSchema(entry.getKey(), entry.getValue()));
+        }
+        tables.keySet().retainAll(loaded.keySet());
+        tables.putAll(loaded);
+    }
+    
+    /**
+     * (Re-)load a single table; e.g. after it was created. Removes the table if it doesn't exist.
+     *
+     * @param conn      Connection to read the metadata from.
+     * @param tableName Targeting table.
+     * @throws SQLException if the metadata can't be read.
+     */
+    void load(Connection conn, String tableName) throws SQLException {
+        
+        String name = tableName.toUpperCase();
+        Map<String, Integer> columns = new LinkedHashMap<>();
+        boolean exists = false;
+        DatabaseMetaData meta = conn.getMetaData();
+        String schema = conn.getSchema();
+        try (ResultSet rs = meta.getTables(null, schema, name, new String[]{"TABLE"})) {
+            exists = rs.next();
+        }
+        if (!exists) {
+            tables.remove(name);
+            return;
+        }
+        try (ResultSet rs = meta.getColumns(null, schema, name, null)) {
+            while (rs.next()) {
+                columns.put(rs.getString("COLUMN_NAME"), rs.getInt("DATA_TYPE"));
+            }
+        }
+        tables.put(name, new TableSchema(name, columns));
+    }
+    
+    /**
+     * Forget a table; e.g. after it was dropped.
+     *
+     * @param tableName Targeting table.
+     */
+    void remove(String tableName) {
+        
+        tables.remove(tableName.toUpperCase());
+    }
+    
+    /**
+     * @param tableName Targeting table.
+     * @return true if the table is known.
+     */
+    boolean contains(String tableName) {
+        
+        return tables.containsKey(tableName.toUpperCase());
+    }
+    
+    /**
+     * @param tableName Targeting table.
+     * @return schema of the table; null if unknown.
+     */
+    TableSchema get(String tableName) {
+        
+        return tables.get(tableName.toUpperCase());
+    }
+    
+    /**
+     * @return names of all known tables.
+     */
+    Set<String> getTableNames() {
+        
+        return Collections.unmodifiableSet(tables.keySet());
+    }
+    
+    /**
+     * Immutable column layout of one table.
+     */
+    static final class TableSchema {
+        
+        private final String name;
+        private final List<String> columnNames;
+        private final Map<String, Integer> columnTypes;
+        
+        TableSchema(String name, Map<String, Integer> columnTypes) {
+            
+            this.name = name;
+            this.columnNames = Collections.unmodifiableList(new ArrayList<>(columnTypes.keySet()));
+            this.columnTypes = Collections.unmodifiableMap(new LinkedHashMap<>(columnTypes));
+        }
+        
+        String getName() {
+            
+            return name;
+        }
+        
+        /**
+         * @return column names in table order.
+         */
+        List<String> getColumnNames() {
+            
+            return columnNames;
+        }
+        
+        /**
+         * @param columnName Column to check; case insensitive.
+         * @return true if the table has the column.
+         */
+        boolean hasColumn(String columnName) {
+            
+            return columnTypes.containsKey(columnName.toUpperCase());
+        }
+        
+        /**
+         * @param columnName Column name; case insensitive.
+         * @return the column type as defined in {@link java.sql.Types}; null if the column doesn't exist.
+         */
+        Integer getColumnType(String columnName) {
+            
+            return columnTypes.get(columnName.toUpperCase());
+        }
+    }
+}
@@ -0,0 +1,102 @@
+package SEJDB;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+/**
+ * Version of the default tables a database was bootstrapped with, stored in "SEJDB.SCHEMA_VERSION".
+ * <p>
+ * The version is a hash of the CREATE TABLE statements of the default tables; as long as it matches the stored one,
+ * a fast startup doesn't need to check the tables at all.
+ *
+ * @author Dennis Sellemann <a>dsellemann@gmail.com</a>
+ * @version 0.5
+ */
+final class SchemaVersion {
+    
+    private static final String TABLE = "SEJDB.SCHEMA_VERSION";
+    
+    private SchemaVersion() {
+        
+    }
+    
+    /**
+     * @param tables Default tables; may be null.
+     * @return the version of the table definitions.
+     */
+    static String of(TableDefinition[] tables) {
+        
+        StringBuilder ddl = new StringBuilder();
+        if (tables != null) {
+            for (TableDefinition table : tables) {
+                ddl.append(table.toSQL()).append('\n');
+            }
+        }
+        try {
+            byte[] hash = MessageDigest.getInstance("SHA-256").digest(ddl.toString().getBytes(StandardCharsets.UTF_8));
+            StringBuilder version = new StringBuilder();
+            for (int i = 0; i < 16; i++) {
+                version.append(String.format("%02x", hash[i]));
+            }
+            return version.toString();
+        } catch (NoSuchAlgorithmException e) {
+            //every Java platform has to support SHA-256
+            throw new IllegalStateException(e);
+        }
+    }
+    
+    /**
+     * @param conn Connection to use.
+     * @return the stored version; null if the database was never bootstrapped.
+     * @throws SQLException if the version can't be read.
+     */
+    static String read(Connection conn) throws SQLException {
+        
+        try (Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery("SELECT VERSION FROM " + TABLE + " WHERE ID = 1")) {
+            return rs.next() ? rs.getString(1) : null;
+        } catch (SQLException e) {
+            //42Y07: schema doesn't exist, 42X05: table doesn't exist
+            if ("42Y07".equals(e.getSQLState()) || "42X05".equals(e.getSQLState())) {
+                return null;
+            }
+            throw e;
+        }
+    }
+    
+    /**
+     * Store the version; creates the table if necessary. Runs inside the transaction of the caller.
+     *
+     * @param conn    Connection to use.
+     * @param version Version to store.
+     * @throws SQLException if the version can't be stored.
+     */
+    static void write(Connection conn, String version) throws SQLException {
+        
+        try (Statement stmt = conn.createStatement()) {
+            try (ResultSet rs = stmt.executeQuery("SELECT 1 FROM SYS.SYSSCHEMAS WHERE SCHEMANAME = 'SEJDB'")) {
+                if (!rs.next()) {
+                    stmt.executeUpdate("CREATE SCHEMA SEJDB");
+                }
+            }
+            try (ResultSet rs = stmt.executeQuery("SELECT 1 FROM SYS.SYSTABLES T JOIN SYS.SYSSCHEMAS S " +
+                    "ON T.SCHEMAID = S.SCHEMAID WHERE S.SCHEMANAME = 'SEJDB' AND T.TABLENAME = 'SCHEMA_VERSION'")) {
+                if (!rs.next()) {
+                    stmt.executeUpdate("CREATE TABLE " + TABLE + " (ID INT PRIMARY KEY, VERSION VARCHAR(64) NOT NULL)");
+                }
+            }
+        }
+        try (PreparedStatement stmt = conn.prepareStatement("MERGE INTO " + TABLE + " T USING SYSIBM.SYSDUMMY1 " +
+                "ON T.ID = 1 WHEN MATCHED THEN UPDATE SET VERSION = ? WHEN NOT MATCHED THEN INSERT VALUES (1, ?)")) {
+            stmt.setString(1, version);
+            stmt.setString(2, version);
+            stmt.executeUpdate();
+        }
+    }
+}
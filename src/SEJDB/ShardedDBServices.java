@@ -0,0 +1,499 @@
+package SEJDB;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+
+/**
+ * Spreads the rows of every table across several embedded databases ("shards") by their ID.
+ * <p>
+ * Each shard is a {@link DBServices} of its own, "DataBases/&lt;dbName&gt;_shard&lt;i&gt;", with its own
+ * transaction log, lock manager and connection pool, so writes to different shards don't wait for each other.
+ * Every table exists in every shard. Reads by ID go to a single shard; searches by column and scans run on
+ * all shards in parallel and are merged.
+ * <p>
+ * IDs are allocated globally: one counter per table, seeded from the highest ID of all shards, so an ID
+ * is never used twice. Unlike {@link DBServices}, IDs of deleted rows are not reused.
+ * The shard count and routing must stay the same for the life of the data.
+ *
+ * @author Dennis Sellemann <a>dsellemann@gmail.com</a>
+ * @version 0.5
+ */
+public class ShardedDBServices {
+    
+    private final DBServices[] shards;
+    private final Sharding sharding;
+    private final long rangeSize;
+    private final ExecutorService executor;
+    private final ThreadLocal<Boolean> onShardThread = ThreadLocal.withInitial(() -> false);
+    private final Map<String, AtomicLong> nextIDs = new ConcurrentHashMap<>();
+    
+    /**
+     * Constructor for a hash sharded database.
+     *
+     * @param dbName        Name of the Database; the shards are named "&lt;dbName&gt;_shard&lt;i&gt;"
+     * @param login         Account- Name for the Connection
+     * @param password      Login- Password for the connection
+     * @param defaultTables Definitions of the default tables to create in every shard
+     * @param shards        Number of shards
+     */
+    public ShardedDBServices(String dbName, String login, String password, TableDefinition[] defaultTables,
+                             int shards) {
+        
+        this(dbName, login, password, defaultTables, shards, Sharding.HASH, 0);
+    }
+    
+    /**
+     * Constructor for a sharded database.
+     *
+     * @param dbName        Name of the Database; the shards are named "&lt;dbName&gt;_shard&lt;i&gt;"
+     * @param login         Account- Name for the Connection
+     * @param password      Login- Password for the connection
+     * @param defaultTables Definitions of the default tables to create in every shard
+     * @param shards        Number of shards
+     * @param sharding      How rows are routed by ID
+     * @param rangeSize     IDs per shard for {@link Sharding#RANGE}; ignored for {@link Sharding#HASH}
+     */
+    public ShardedDBServices(String dbName, String login, String password, TableDefinition[] defaultTables,
+                             int shards, Sharding sharding, long rangeSize) {
+        
+        if (shards < 1 || (sharding == Sharding.RANGE && rangeSize < 1)) {
+            throw new IllegalArgumentException("at least one shard and a positive range size needed");
+        }
+        this.shards = new DBServices[shards];
+        this.sharding = sharding == null ? Sharding.HASH : sharding;
+        this.rangeSize = rangeSize;
+        AtomicInteger counter = new AtomicInteger();
+        this.executor = Executors.newFixedThreadPool(shards, runnable -> {
+            Thread thread = new Thread(() -> {
+                onShardThread.set(true);
+                runnable.run();
+            }, "SEJDB-shard-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        //booting the shards is independent; do it in parallel
+        List<CompletableFuture<Void>> boots = new ArrayList<>();
+        for (int i = 0; i < shards; i++) {
+            int shard = i;
+            boots.add(CompletableFuture.runAsync(() -> this.shards[shard] = new DBServices(dbName + "_shard" + shard,
+                    login, password, defaultTables), executor));
+        }
+        CompletableFuture.allOf(boots.toArray(new CompletableFuture<?>[0])).join();
+    }
+    
+    /**
+     * @param ID row ID.
+     * @return index of the shard holding the row.
+     */
+    public int shardOf(long ID) {
+        
+        if (sharding == Sharding.RANGE) {
+            return (int) Math.min(shards.length - 1, Math.max(0, ID) / rangeSize);
+        }
+        //spread consecutive IDs; a plain modulo would map patterns like "every n-th row" onto one shard
+        long hash = ID * 0x9E3779B97F4A7C15L;
+        return (int) Math.floorMod(hash ^ (hash >>> 32), (long) shards.length);
+    }
+    
+    /**
+     * @return number of shards.
+     */
+    public int getShardCount() {
+        
+        return shards.length;
+    }
+    
+    /**
+     * Create a new table in every shard if not already exists; see {@link DBServices#createTable(TableDefinition)}.
+     *
+     * @param table Definition of the new table
+     */
+    public void createTable(TableDefinition table) {
+        
+        fanOut(shard -> {
+            shard.createTable(table);
+            return null;
+        });
+    }
+    
+    /**
+     * Delete a table in every shard.
+     *
+     * @param tableName Name of the table to delete
+     */
+    public void deleteTable(String tableName) {
+        
+        fanOut(shard -> {
+            shard.deleteTable(tableName);
+            return null;
+        });
+        nextIDs.remove(tableName.toUpperCase());
+    }
+    
+    /**
+     * @param tableName Name of the table to check.
+     * @return true if the table exists in every shard.
+     */
+    public boolean existsTable(String tableName) {
+        
+        for (DBServices shard : shards) {
+            if (!shard.existsTable(tableName)) {
+                return false;
+            }
+        }
+        return true;
+    }
+    
+    /**
+     * Insert one or more data for a single row in the table; see {@link DBServices#insertData(String, HashMap)}.
+     *
+     * @param tableName Targeting table.
+     * @param input     HashMap containing the input data: &lt;columnName, values&gt;.
+     */
+    public void insertData(String tableName, HashMap<String, String> input) {
+        
+        insertRow(tableName, input);
+    }
+    
+    /**
+     * Insert a single row with typed values into the shard of its new global ID.
+     *
+     * @param tableName Targeting table.
+     * @param input     Map containing the input data: &lt;columnName, value&gt;.
+     * @return the ID of the new row; -1 if the row couldn't be inserted.
+     */
+    public long insertRow(String tableName, Map<String, ?> input) {
+        
+        if (!existsTable(tableName)) {
+            System.out.println("Table: \"" + tableName + "\" not found!");
+            return -1;
+        }
+        long ID = nextID(tableName);
+        return shards[shardOf(ID)].insertRow(tableName, ID, input) ? ID : -1;
+    }
+    
+    /**
+     * Search in the table for a single row by ID and return its data.
+     *
+     * @param tableName Targeting table.
+     * @param ID        row ID.
+     * @return single HashMap containing &lt;ColumnNames, ColumnValue&gt; as Strings; empty if there is no such row.
+     */
+    public HashMap<String, String> getRow(String tableName, long ID) {
+        
+        return shards[shardOf(ID)].getRow(tableName, ID);
+    }
+    
+    /**
+     * Search in the table for a single row by ID and return it with typed values.
+     *
+     * @param tableName Targeting table.
+     * @param ID        row ID.
+     * @return the found row; null if there is no row with the ID.
+     */
+    public Row fetchRow(String tableName, long ID) {
+        
+        return shards[shardOf(ID)].fetchRow(tableName, ID);
+    }
+    
+    /**
+     * Search in the table for several rows by their IDs; each shard reads its part in parallel.
+     *
+     * @param tableName Targeting table.
+     * @param IDs       row IDs.
+     * @return HashMaps containing &lt;ColumnNames, ColumnValue&gt; as Strings by ID; IDs without a row are missing.
+     */
+    public Map<Long, HashMap<String, String>> getRows(String tableName, Collection<Long> IDs) {
+        
+        List<List<Long>> parts = split(IDs);
+        List<CompletableFuture<Map<Long, HashMap<String, String>>>> futures = new ArrayList<>();
+        for (int i = 0; i < shards.length; i++) {
+            DBServices shard = shards[i];
+            List<Long> part = parts.get(i);
+            futures.add(part.isEmpty() ? CompletableFuture.completedFuture(new HashMap<>())
+                    : onShard(() -> shard.getRows(tableName, part)));
+        }
+        Map<Long, HashMap<String, String>> found = new HashMap<>();
+        for (CompletableFuture<Map<Long, HashMap<String, String>>> future : futures) {
+            found.putAll(future.join());
+        }
+        //keep the order of the requested IDs
+        Map<Long, HashMap<String, String>> result = new LinkedHashMap<>();
+        for (Long ID : IDs) {
+            HashMap<String, String> row = found.get(ID);
+            if (row != null) {
+                result.put(ID, row);
+            }
+        }
+        return result;
+    }
+    
+    /**
+     * Search inside the table for rows with the "value" inside their "column"; all shards search in parallel.
+     *
+     * @param tableName  Targeting table.
+     * @param columnName Column name to search for.
+     * @param value      Column data to search for.
+     * @return ArrayList containing HashMaps &lt;ColumnNames, ColumnValue&gt; as Strings for each found row.
+     */
+    public ArrayList<HashMap<String, String>> getRows(String tableName, String columnName, String value) {
+        
+        ArrayList<HashMap<String, String>> result = new ArrayList<>();
+        for (ArrayList<HashMap<String, String>> rows : fanOut(shard -> shard.getRows(tableName, columnName, value))) {
+            result.addAll(rows);
+        }
+        return result;
+    }
+    
+    /**
+     * Run a query on every shard in parallel and merge the found rows; see {@link DBServices#query(String)}.
+     * Sorting and limits apply per shard: the merged rows are not sorted across shards and there may be up to
+     * one limit per shard.
+     *
+     * @param tableName Targeting table.
+     * @param query     Completes the query of a shard, e.g. {@code q -> q.select("NAME").where("AGE", ">", 30)}.
+     * @return the found rows of all shards.
+     */
+    public List<Row> query(String tableName, Function<Query, Query> query) {
+        
+        List<Row> result = new ArrayList<>();
+        for (RowSet rows : fanOut(shard -> query.apply(shard.query(tableName)).fetch())) {
+            for (Row row : rows) {
+                result.add(row);
+            }
+        }
+        return result;
+    }
+    
+    /**
+     * Count the rows of the table in all shards in parallel.
+     *
+     * @param tableName Targeting table.
+     * @return number of rows.
+     */
+    public long count(String tableName) {
+        
+        long rows = 0;
+        for (Long count : fanOut(shard -> shard.count(tableName))) {
+            rows += count;
+        }
+        return rows;
+    }
+    
+    /**
+     * Scan all rows of the table; every shard is scanned on its own thread at the same time.
+     * The action is called concurrently from several threads and has to be thread-safe. It may call this instance
+     * again, e.g. to insert rows; its calls to other shards run on the calling thread then.
+     *
+     * @param tableName Targeting table.
+     * @param action    Called for every row.
+     * @return number of scanned rows.
+     * @throws IllegalStateException if the rows of a shard can't be read.
+     */
+    public long forEachRow(String tableName, Consumer<Row> action) {
+        
+        long rows = 0;
+        for (Long count : fanOut(shard -> {
+            long scanned = 0;
+            try (Cursor cursor = shard.scan(tableName)) {
+                while (cursor.hasNext()) {
+                    action.accept(cursor.next());
+                    scanned++;
+                }
+            }
+            return scanned;
+        })) {
+            rows += count;
+        }
+        return rows;
+    }
+    
+    /**
+     * Stream all rows of the table lazily, one shard after the other; see {@link DBServices#streamRows(String)}.
+     * Close the stream (try-with-resources) to release the cursors if it isn't consumed completely.
+     *
+     * @param tableName Targeting table.
+     * @return stream of all rows.
+     */
+    public Stream<Row> streamRows(String tableName) {
+        
+        Stream<Row> stream = Stream.empty();
+        for (DBServices shard : shards) {
+            //flatMap opens the cursor of a shard only when the stream gets there, and closes it afterwards
+            stream = Stream.concat(stream, Stream.of(shard).flatMap(s -> s.streamRows(tableName)));
+        }
+        return stream;
+    }
+    
+    /**
+     * Delete a hole Row in the table identified by its ID.
+     *
+     * @param tableName Targeting table.
+     * @param ID        ID of the Row to delete.
+     */
+    public void deleteRow(String tableName, long ID) {
+        
+        shards[shardOf(ID)].deleteRow(tableName, ID);
+    }
+    
+    /**
+     * Delete several rows identified by their IDs; each shard deletes its part in its own transaction.
+     *
+     * @param tableName Targeting table.
+     * @param IDs       IDs of the rows to delete.
+     * @return for every ID, true if its row was deleted.
+     */
+    public Map<Long, Boolean> deleteRows(String tableName, Collection<Long> IDs) {
+        
+        List<List<Long>> parts = split(IDs);
+        List<CompletableFuture<Map<Long, Boolean>>> futures = new ArrayList<>();
+        for (int i = 0; i < shards.length; i++) {
+            DBServices shard = shards[i];
+            List<Long> part = parts.get(i);
+            if (!part.isEmpty()) {
+                futures.add(onShard(() -> shard.deleteRows(tableName, part)));
+            }
+        }
+        Map<Long, Boolean> result = new HashMap<>();
+        for (CompletableFuture<Map<Long, Boolean>> future : futures) {
+            result.putAll(future.join());
+        }
+        return result;
+    }
+    
+    /**
+     * Delete every row of the table in all shards.
+     *
+     * @param tableName Targeting table.
+     */
+    public void clearTable(String tableName) {
+        
+        fanOut(shard -> {
+            shard.clearTable(tableName);
+            return null;
+        });
+    }
+    
+    /**
+     * Close the connections to all shards.
+     */
+    public void closeConnection() {
+        
+        for (DBServices shard : shards) {
+            shard.closeConnection();
+        }
+        executor.shutdown();
+    }
+    
+    /**
+     * Delete all shards; be careful!
+     */
+    public void deleteDatabase() {
+        
+        for (DBServices shard : shards) {
+            shard.deleteDatabase();
+        }
+        executor.shutdown();
+    }
+    
+    /**
+     * Return the next global ID of the table; the counter is seeded from the highest ID of all shards.
+     * The shards are read outside of the map, so no lock is held while waiting for them; a thread losing the race
+     * to seed the counter takes the one of the winner.
+     *
+     * @param tableName Targeting table.
+     * @return unused ID.
+     */
+    private long nextID(String tableName) {
+        
+        String key = tableName.toUpperCase();
+        AtomicLong counter = nextIDs.get(key);
+        if (counter == null) {
+            long max = -1;
+            for (RowSet rows : fanOut(shard -> shard.query(key).select("ID").orderByDesc("ID").limit(1).fetch())) {
+                if (rows.size() > 0) {
+                    max = Math.max(max, rows.get(0).getLong("ID"));
+                }
+            }
+            AtomicLong seeded = new AtomicLong(max + 1);
+            AtomicLong previous = nextIDs.putIfAbsent(key, seeded);
+            counter = previous == null ? seeded : previous;
+        }
+        return counter.getAndIncrement();
+    }
+    
+    /**
+     * @param IDs row IDs.
+     * @return the IDs split by shard; one list per shard. Null IDs are dropped.
+     */
+    private List<List<Long>> split(Collection<Long> IDs) {
+        
+        List<List<Long>> parts = new ArrayList<>();
+        for (int i = 0; i < shards.length; i++) {
+            parts.add(new ArrayList<>());
+        }
+        for (Long ID : IDs) {
+            if (ID != null) {
+                parts.get(shardOf(ID)).add(ID);
+            }
+        }
+        return parts;
+    }
+    
+    /**
+     * Run a task for a shard on the shard executor. On a thread of the executor itself, e.g. inside a
+     * {@link #forEachRow(String, Consumer)} action, the task runs right away: the other threads of the executor
+     * may all be busy with work that waits for this thread, so waiting for them could deadlock.
+     *
+     * @param task Task to run.
+     * @param <T>  Result type.
+     * @return the result.
+     */
+    private <T> CompletableFuture<T> onShard(Supplier<T> task) {
+        
+        if (onShardThread.get()) {
+            return CompletableFuture.completedFuture(task.get());
+        }
+        return CompletableFuture.supplyAsync(task, executor);
+    }
+    
+    /**
+     * Run a task on every shard in parallel and wait for all results.
+     *
+     * @param task Task to run per shard.
+     * @param <T>  Result type.
+     * @return the results in shard order.
+     */
+    private <T> List<T> fanOut(Function<DBServices, T> task) {
+        
+        List<CompletableFuture<T>> futures = new ArrayList<>();
+        for (DBServices shard : shards) {
+            futures.add(onShard(() -> task.apply(shard)));
+        }
+        List<T> results = new ArrayList<>();
+        for (CompletableFuture<T> future : futures) {
+            try {
+                results.add(future.join());
+            } catch (CompletionException e) {
+                //the error of the shard, e.g. of a failed scan, instead of the wrapper of the executor
+                throw e.getCause() instanceof RuntimeException ? (RuntimeException) e.getCause() : e;
+            }
+        }
+        return results;
+    }
+}
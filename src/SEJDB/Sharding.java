@@ -0,0 +1,21 @@
+package SEJDB;
+
+/**
+ * How {@link ShardedDBServices} spreads the rows of a table across its shards by ID.
+ *
+ * @author Dennis Sellemann <a>dsellemann@gmail.com</a>
+ * @version 0.5
+ */
+public enum Sharding {
+    
+    /**
+     * A hash of the ID picks the shard; new rows are spread evenly, so all shards write in parallel.
+     */
+    HASH,
+    
+    /**
+     * Shard i holds the IDs from i * rangeSize up to (i + 1) * rangeSize - 1; the last shard holds the rest.
+     * Neighbouring IDs stay together, but new rows all go into the shard of the current range.
+     */
+    RANGE
+}
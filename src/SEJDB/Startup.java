@@ -0,0 +1,30 @@
+package SEJDB;
+
+/**
+ * How a {@link DBServices} instance connects to its database and creates the default tables.
+ *
+ * @author Dennis Sellemann <a>dsellemann@gmail.com</a>
+ * @version 0.5
+ */
+public enum Startup {
+    
+    /**
+     * Connect to an existing database; create it with the default tables if the connection fails (default).
+     * Every step is reported on the console.
+     */
+    STANDARD,
+    
+    /**
+     * Connect with a single attempt that creates the database if it doesn't exist. The default tables are only
+     * created if their definitions differ from the schema version stored in the database or one of them is missing;
+     * the missing tables are then created in one transaction. If the connection fails, every call reports it and
+     * tries again. Nothing is printed besides errors; see {@link DBServices#getStartupTimes()}.
+     */
+    FAST,
+    
+    /**
+     * Like {@link #FAST}, but the connection is only established on the first use of the instance,
+     * so creating instances that are never used costs nothing; closing or deleting them doesn't connect either.
+     */
+    LAZY
+}
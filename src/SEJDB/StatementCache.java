@@ -0,0 +1,161 @@
+package SEJDB;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Bounded cache of prepared statements belonging to one connection.
+ * <p>
+ * Statements are keyed by table and operation (e.g. "USERS:getRow") and evicted least recently used first.
+ * Evicted statements get closed; {@link #clear()} closes every cached statement.
+ * The statements are reused, so callers must never close them, only their result sets.
+ *
+ * @author Dennis Sellemann <a>dsellemann@gmail.com</a>
+ * @version 0.5
+ */
+class StatementCache {
+    
+    private final Connection conn;
+    private final LinkedHashMap<String, PreparedStatement> statements;
+    private int capacity;
+    private long hits;
+    private long misses;
+    private long evictions;
+    
+    /**
+     * Constructor for an empty cache.
+     *
+     * @param conn     Connection the statements are prepared on.
+     * @param capacity Maximum number of cached statements.
+     */
+    StatementCache(Connection conn, int capacity) {
+        
+        this.conn = conn;
+        this.capacity = Math.max(1, capacity);
+        this.statements = new LinkedHashMap<String, PreparedStatement>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, PreparedStatement> eldest) {
+                
+                if (size() > StatementCache.this.capacity) {
+                    evictions++;
+                    close(eldest.getValue());
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+    
+    /**
+     * Build the cache key for an operation on a table.
+     *
+     * @param tableName Targeting table.
+     * @param operation Name of the operation, including anything that changes the SQL (e.g. column names).
+     * @return cache key.
+     */
+    static String key(String tableName, String operation) {
+        
+        return tableName.toUpperCase() + ":" + operation;
+    }
+    
+    /**
+     * Return the cached statement for the key; preparing the SQL if it isn't cached yet.
+     *
+     * @param key Cache key, see {@link #key(String, String)}.
+     * @param sql SQL to prepare on a miss.
+     * @return prepared statement; don't close it.
+     * @throws SQLException if the statement can't be prepared.
+     */
+    synchronized PreparedStatement prepare(String key, String sql) throws SQLException {
+        
+        PreparedStatement statement = statements.get(key);
+        if (statement != null && !statement.isClosed()) {
+            hits++;
+            statement.clearParameters();
+            return statement;
+        }
+        misses++;
+        statement = conn.prepareStatement(sql);
+        statements.put(key, statement);
+        return statement;
+    }
+    
+    /**
+     * Close and remove every statement belonging to the table; e.g. before the table gets dropped.
+     *
+     * @param tableName Targeting table.
+     */
+    synchronized void invalidate(String tableName) {
+        
+        String prefix = tableName.toUpperCase() + ":";
+        Iterator<Map.Entry<String, PreparedStatement>> it = statements.entrySet().iterator();
+        while (it.hasNext()) {
+            Map.Entry<String, PreparedStatement> entry = it.next();
+            if (entry.getKey().startsWith(prefix)) {
+                close(entry.getValue());
+                it.remove();
+            }
+        }
+    }
+    
+    /**
+     * Close and remove every cached statement.
+     */
+    synchronized void clear() {
+        
+        for (PreparedStatement statement : new ArrayList<>(statements.values())) {
+            close(statement);
+        }
+        statements.clear();
+    }
+    
+    /**
+     * Change the maximum number of cached statements; evicting the least recently used ones if necessary.
+     *
+     * @param capacity Maximum number of cached statements.
+     */
+    synchronized void setCapacity(int capacity) {
+        
+        this.capacity = Math.max(1, capacity);
+        Iterator<PreparedStatement> it = statements.values().iterator();
+        while (statements.size() > this.capacity && it.hasNext()) {
+            close(it.next());
+            it.remove();
+            evictions++;
+        }
+    }
+    
+    synchronized long getHits() {
+        
+        return hits;
+    }
+    
+    synchronized long getMisses() {
+        
+        return misses;
+    }
+    
+    synchronized long getEvictions() {
+        
+        return evictions;
+    }
+    
+    synchronized int size() {
+        
+        return statements.size();
+    }
+    
+    private static void close(PreparedStatement statement) {
+        
+        try {
+            statement.close();
+        } catch (SQLException e) {
+            e.printStackTrace();
+        }
+    }
+}
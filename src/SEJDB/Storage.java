@@ -0,0 +1,29 @@
+package SEJDB;
+
+/**
+ * Where a {@link DBServices} instance keeps its database.
+ *
+ * @author Dennis Sellemann <a>dsellemann@gmail.com</a>
+ * @version 0.5
+ */
+public enum Storage {
+    
+    /**
+     * The database lives in "DataBases/&lt;dbName&gt;" below the working directory (default).
+     */
+    DISK,
+    
+    /**
+     * The database only lives in the memory of the JVM (Derby's "memory:" subprotocol); no disk I/O at all.
+     * It is kept until {@link DBServices#deleteDatabase()} or the end of the JVM, so other instances of the
+     * same JVM can still connect to it.
+     */
+    MEMORY,
+    
+    /**
+     * The database works in memory like {@link #MEMORY} and is checkpointed to "DataBases/&lt;dbName&gt;"
+     * at intervals and on {@link DBServices#closeConnection()}; startup loads the last checkpoint.
+     * Changes after the last checkpoint are lost if the JVM ends without closing the connection.
+     */
+    HYBRID
+}
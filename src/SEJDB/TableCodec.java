@@ -0,0 +1,433 @@
+package SEJDB;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Streaming writers and readers for the {@link TableFormat}s; one row at a time, so tables of any size
+ * can be exported and imported.
+ * <p>
+ * CSV holds every value as the text of {@link Row#get(int)}; binary values as hex. The binary format keeps numbers,
+ * booleans and bytes in their own type and everything else as text. XML columns are exported serialized.
+ *
+ * @author Dennis Sellemann <a>dsellemann@gmail.com</a>
+ * @version 0.5
+ */
+final class TableCodec {
+    
+    private static final int MAGIC = 0x53454A31; //"SEJ1"
+    
+    private TableCodec() {
+        
+    }
+    
+    static RowWriter writer(TableFormat format, OutputStream out) {
+        
+        return format == TableFormat.BINARY ? new BinaryWriter(out) : new CsvWriter(out);
+    }
+    
+    static RowReader reader(TableFormat format, InputStream in) throws IOException {
+        
+        return format == TableFormat.BINARY ? new BinaryReader(in) : new CsvReader(in);
+    }
+    
+    /**
+     * @param type Column type as defined in {@link Types}.
+     * @return true if the column holds bytes: BINARY, VARBINARY, LONGVARBINARY or BLOB.
+     */
+    static boolean isBinary(int type) {
+        
+        return type == Types.BINARY || type == Types.VARBINARY || type == Types.LONGVARBINARY || type == Types.BLOB;
+    }
+    
+    /**
+     * Convert a value read by a {@link RowReader} into the type bound to its column: binary columns get the bytes
+     * of the hex text written to CSV; everything else is bound as it is and converted by the database.
+     *
+     * @param value Value read; a String for every CSV field.
+     * @param type  Column type as defined in {@link Types}; null if unknown.
+     * @return value to bind.
+     * @throws IllegalArgumentException if the text of a binary column isn't hex.
+     */
+    static Object toColumnType(Object value, Integer type) {
+        
+        if (!(value instanceof String) || type == null || !isBinary(type)) {
+            return value;
+        }
+        String hex = (String) value;
+        if (hex.length() % 2 != 0) {
+            throw new IllegalArgumentException("binary value with an odd number of hex digits: \"" + hex + "\"");
+        }
+        byte[] bytes = new byte[hex.length() / 2];
+        for (int i = 0; i < bytes.length; i++) {
+            int high = Character.digit(hex.charAt(2 * i), 16);
+            int low = Character.digit(hex.charAt(2 * i + 1), 16);
+            if (high < 0 || low < 0) {
+                throw new IllegalArgumentException("binary value isn't hex: \"" + hex + "\"");
+            }
+            bytes[i] = (byte) (high << 4 | low);
+        }
+        return bytes;
+    }
+    
+    /**
+     * Writes the header and then the rows of a table.
+     */
+    interface RowWriter {
+        
+        /**
+         * @param columnNames Column names in table order.
+         * @param columnTypes Column types as defined in {@link Types}.
+         */
+        void writeHeader(List<String> columnNames, List<Integer> columnTypes) throws IOException;
+        
+        void writeRow(Row row) throws IOException;
+        
+        /**
+         * Write the end of the data and flush; doesn't close the stream.
+         */
+        void finish() throws IOException;
+    }
+    
+    /**
+     * Reads the header and then the rows of a table.
+     */
+    interface RowReader {
+        
+        /**
+         * @return column names of the header.
+         */
+        List<String> getColumnNames();
+        
+        /**
+         * @return values of the next row in header order; null at the end of the data.
+         */
+        Object[] next() throws IOException;
+    }
+    
+    private static final class CsvWriter implements RowWriter {
+        
+        private final Writer out;
+        private int columns;
+        
+        private CsvWriter(OutputStream out) {
+            
+            this.out = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), 1 << 16);
+        }
+        
+        @Override
+        public void writeHeader(List<String> columnNames, List<Integer> columnTypes) throws IOException {
+            
+            columns = columnNames.size();
+            for (int i = 0; i < columns; i++) {
+                if (i > 0) {
+                    out.write(',');
+                }
+                writeField(columnNames.get(i));
+            }
+            out.write("\r\n");
+        }
+        
+        @Override
+        public void writeRow(Row row) throws IOException {
+            
+            for (int i = 0; i < columns; i++) {
+                if (i > 0) {
+                    out.write(',');
+                }
+                String value = row.get(i);
+                if (value != null) {
+                    writeField(value);
+                }
+            }
+            out.write("\r\n");
+        }
+        
+        private void writeField(String value) throws IOException {
+            
+            boolean quote = value.isEmpty();
+            for (int i = 0; i < value.length() && !quote; i++) {
+                char c = value.charAt(i);
+                quote = c == ',' || c == '"' || c == '\n' || c == '\r';
+            }
+            if (!quote) {
+                out.write(value);
+                return;
+            }
+            out.write('"');
+            out.write(value.replace("\"", "\"\""));
+            out.write('"');
+        }
+        
+        @Override
+        public void finish() throws IOException {
+            
+            out.flush();
+        }
+    }
+    
+    private static final class CsvReader implements RowReader {
+        
+        private final BufferedReader in;
+        private final List<String> columnNames = new ArrayList<>();
+        
+        private CsvReader(InputStream in) throws IOException {
+            
+            this.in = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8), 1 << 16);
+            List<String> header = readRecord();
+            if (header == null) {
+                throw new EOFException("missing CSV header");
+            }
+            columnNames.addAll(header);
+        }
+        
+        @Override
+        public List<String> getColumnNames() {
+            
+            return columnNames;
+        }
+        
+        @Override
+        public Object[] next() throws IOException {
+            
+            List<String> record = readRecord();
+            if (record == null) {
+                return null;
+            }
+            if (record.size() != columnNames.size()) {
+                throw new IOException("CSV record with " + record.size() + " fields; expected " + columnNames.size());
+            }
+            return record.toArray();
+        }
+        
+        /**
+         * @return fields of the next record; unquoted empty fields are null, so an empty line is a record
+         * with a single null field. Null at the end of the input.
+         */
+        private List<String> readRecord() throws IOException {
+            
+            int c = in.read();
+            if (c < 0) {
+                return null;
+            }
+            List<String> fields = new ArrayList<>(Math.max(1, columnNames.size()));
+            StringBuilder field = new StringBuilder();
+            boolean quoted = false;
+            boolean inQuotes = false;
+            while (true) {
+                if (inQuotes) {
+                    if (c < 0) {
+                        throw new EOFException("unterminated quoted CSV field");
+                    }
+                    if (c == '"') {
+                        in.mark(1);
+                        if (in.read() == '"') {
+                            field.append('"');
+                        } else {
+                            in.reset();
+                            inQuotes = false;
+                        }
+                    } else {
+                        field.append((char) c);
+                    }
+                } else if (c == '"' && field.length() == 0) {
+                    quoted = true;
+                    inQuotes = true;
+                } else if (c == ',' || c == '\n' || c == '\r' || c < 0) {
+                    fields.add(quoted || field.length() > 0 ? field.toString() : null);
+                    if (c == '\r') {
+                        in.mark(1);
+                        if (in.read() != '\n') {
+                            in.reset();
+                        }
+                    }
+                    if (c != ',') {
+                        return fields;
+                    }
+                    field.setLength(0);
+                    quoted = false;
+                } else {
+                    field.append((char) c);
+                }
+                c = in.read();
+            }
+        }
+    }
+    
+    private static final class BinaryWriter implements RowWriter {
+        
+        private final DataOutputStream out;
+        private int[] types;
+        
+        private BinaryWriter(OutputStream out) {
+            
+            this.out = new DataOutputStream(new BufferedOutputStream(out, 1 << 16));
+        }
+        
+        @Override
+        public void writeHeader(List<String> columnNames, List<Integer> columnTypes) throws IOException {
+            
+            out.writeInt(MAGIC);
+            out.writeInt(columnNames.size());
+            types = new int[columnNames.size()];
+            for (int i = 0; i < types.length; i++) {
+                types[i] = columnTypes.get(i) == null ? Types.VARCHAR : columnTypes.get(i);
+                out.writeUTF(columnNames.get(i));
+                out.writeInt(types[i]);
+            }
+        }
+        
+        @Override
+        public void writeRow(Row row) throws IOException {
+            
+            out.writeBoolean(true);
+            for (int i = 0; i < types.length; i++) {
+                Object value = row.getObject(i);
+                out.writeBoolean(value != null);
+                if (value != null) {
+                    writeValue(types[i], value, row, i);
+                }
+            }
+        }
+        
+        /**
+         * @param type  Column type.
+         * @param value Value of the column; not null.
+         * @param row   Row of the value; its text form is written for all types without a binary encoding.
+         * @param index Column index.
+         */
+        private void writeValue(int type, Object value, Row row, int index) throws IOException {
+            
+            switch (type) {
+                case Types.TINYINT:
+                case Types.SMALLINT:
+                case Types.INTEGER:
+                    out.writeInt(((Number) value).intValue());
+                    break;
+                case Types.BIGINT:
+                    out.writeLong(((Number) value).longValue());
+                    break;
+                case Types.REAL:
+                    out.writeFloat(((Number) value).floatValue());
+                    break;
+                case Types.FLOAT:
+                case Types.DOUBLE:
+                    out.writeDouble(((Number) value).doubleValue());
+                    break;
+                case Types.BOOLEAN:
+                    out.writeBoolean((Boolean) value);
+                    break;
+                case Types.BINARY:
+                case Types.VARBINARY:
+                case Types.LONGVARBINARY:
+                case Types.BLOB:
+                    writeBytes((byte[]) value);
+                    break;
+                default:
+                    writeBytes(row.get(index).getBytes(StandardCharsets.UTF_8));
+            }
+        }
+        
+        private void writeBytes(byte[] bytes) throws IOException {
+            
+            out.writeInt(bytes.length);
+            out.write(bytes);
+        }
+        
+        @Override
+        public void finish() throws IOException {
+            
+            out.writeBoolean(false);
+            out.flush();
+        }
+    }
+    
+    private static final class BinaryReader implements RowReader {
+        
+        private final DataInputStream in;
+        private final List<String> columnNames = new ArrayList<>();
+        private final int[] types;
+        
+        private BinaryReader(InputStream in) throws IOException {
+            
+            this.in = new DataInputStream(new BufferedInputStream(in, 1 << 16));
+            if (this.in.readInt() != MAGIC) {
+                throw new IOException("not a SEJDB table export");
+            }
+            types = new int[this.in.readInt()];
+            for (int i = 0; i < types.length; i++) {
+                columnNames.add(this.in.readUTF());
+                types[i] = this.in.readInt();
+            }
+        }
+        
+        @Override
+        public List<String> getColumnNames() {
+            
+            return columnNames;
+        }
+        
+        @Override
+        public Object[] next() throws IOException {
+            
+            if (!in.readBoolean()) {
+                return null;
+            }
+            Object[] values = new Object[types.length];
+            for (int i = 0; i < types.length; i++) {
+                if (in.readBoolean()) {
+                    values[i] = readValue(types[i]);
+                }
+            }
+            return values;
+        }
+        
+        private Object readValue(int type) throws IOException {
+            
+            switch (type) {
+                case Types.TINYINT:
+                case Types.SMALLINT:
+                case Types.INTEGER:
+                    return in.readInt();
+                case Types.BIGINT:
+                    return in.readLong();
+                case Types.REAL:
+                    return in.readFloat();
+                case Types.FLOAT:
+                case Types.DOUBLE:
+                    return in.readDouble();
+                case Types.BOOLEAN:
+                    return in.readBoolean();
+                case Types.BINARY:
+                case Types.VARBINARY:
+                case Types.LONGVARBINARY:
+                case Types.BLOB:
+                    return readBytes();
+                default:
+                    return new String(readBytes(), StandardCharsets.UTF_8);
+            }
+        }
+        
+        private byte[] readBytes() throws IOException {
+            
+            byte[] bytes = new byte[in.readInt()];
+            in.readFully(bytes);
+            return bytes;
+        }
+    }
+}
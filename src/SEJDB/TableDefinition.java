@@ -0,0 +1,98 @@
+package SEJDB;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Definition of a table for {@link DBServices#createTable(TableDefinition)}.
+ * <p>
+ * Every table keeps the SEJDB convention of an ID primary key in the first column;
+ * it is an INT by default or a BIGINT for tables that will exceed the INT range.
+ * <p>
+ * Example: {@code new TableDefinition("USERS", new Column("NAME", "VARCHAR(100)").notNull(), new Column("AGE", "INT"))}
+ *
+ * @author Dennis Sellemann <a>dsellemann@gmail.com</a>
+ * @version 0.5
+ */
+public final class TableDefinition {
+    
+    private final String name;
+    private final List<Column> columns;
+    private boolean bigintID;
+    
+    /**
+     * Constructor for a table definition.
+     *
+     * @param name    Table name.
+     * @param columns Columns besides the ID.
+     */
+    public TableDefinition(String name, Column... columns) {
+        
+        this.name = name;
+        this.columns = new ArrayList<>(Arrays.asList(columns));
+    }
+    
+    /**
+     * The classic SEJDB table: (ID INT PRIMARY KEY, NAME VARCHAR(50)).
+     *
+     * @param name Table name.
+     * @return table definition.
+     */
+    public static TableDefinition standard(String name) {
+        
+        return new TableDefinition(name, new Column("NAME", "VARCHAR (50)"));
+    }
+    
+    /**
+     * Use a BIGINT instead of an INT for the ID column.
+     *
+     * @return this definition.
+     */
+    public TableDefinition bigintID() {
+        
+        this.bigintID = true;
+        return this;
+    }
+    
+    /**
+     * Add another column.
+     *
+     * @param column Column to add.
+     * @return this definition.
+     */
+    public TableDefinition column(Column column) {
+        
+        this.columns.add(column);
+        return this;
+    }
+    
+    public String getName() {
+        
+        return name;
+    }
+    
+    public List<Column> getColumns() {
+        
+        return Collections.unmodifiableList(columns);
+    }
+    
+    public boolean isBigintID() {
+        
+        return bigintID;
+    }
+    
+    /**
+     * @return the CREATE TABLE statement for this definition.
+     */
+    String toSQL() {
+        
+        StringBuilder sql = new StringBuilder("CREATE TABLE ").append(name)
+                .append(" (ID ").append(bigintID ? "BIGINT" : "INT").append(" PRIMARY KEY");
+        for (Column column : columns) {
+            sql.append(", ").append(column.toSQL());
+        }
+        return sql.append(")").toString();
+    }
+}
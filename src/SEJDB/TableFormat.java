@@ -0,0 +1,22 @@
+package SEJDB;
+
+/**
+ * File formats for {@link DBServices#exportTable(String, java.io.OutputStream, TableFormat)} and
+ * {@link DBServices#importTable(String, java.io.InputStream, TableFormat)}.
+ *
+ * @author Dennis Sellemann <a>dsellemann@gmail.com</a>
+ * @version 0.5
+ */
+public enum TableFormat {
+    
+    /**
+     * Comma separated values with the column names in the first line (RFC 4180).
+     * Empty fields are null; an empty String is written as "". Binary values are written as hex.
+     */
+    CSV,
+    
+    /**
+     * Compact typed binary format; numbers are stored binary, not as text. Only readable by SEJDB.
+     */
+    BINARY
+}
@@ -0,0 +1,183 @@
+package SEJDB;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Change feed of a table: sequence order, truncation, compaction and retention.
+ *
+ * @author Dennis Sellemann <a>dsellemann@gmail.com</a>
+ * @version 0.5
+ */
+class ChangeLogTest {
+    
+    private DBServices db;
+    
+    @BeforeEach
+    void setUp() {
+        
+        db = new DBServices("changeLogTest", "", "", Storage.MEMORY);
+        db.createTable("ORDERS");
+        assertTrue(db.enableChangeLog("ORDERS"));
+    }
+    
+    @AfterEach
+    void tearDown() {
+        
+        db.deleteDatabase();
+    }
+    
+    private long insert(String name) {
+        
+        return db.insertRow("ORDERS", Collections.singletonMap("NAME", name));
+    }
+    
+    private void update(long ID, String name) {
+        
+        assertEquals(1, db.updateRow("ORDERS", ID, Collections.singletonMap("NAME", name)));
+    }
+    
+    private static List<String> describe(List<Change> changes) {
+        
+        List<String> described = new ArrayList<>();
+        for (Change change : changes) {
+            described.add(change.getKind() + (change.getRowID() < 0 ? "" : " " + change.getRowID()));
+        }
+        return described;
+    }
+    
+    private static List<Long> sequences(List<Change> changes) {
+        
+        List<Long> sequences = new ArrayList<>();
+        for (Change change : changes) {
+            sequences.add(change.getSequence());
+        }
+        return sequences;
+    }
+    
+    @Test
+    void changesAreLoggedInSequenceOrder() {
+        
+        long first = insert("a");
+        long second = insert("b");
+        update(first, "c");
+        db.sql("UPDATE ORDERS SET NAME = 'd' WHERE ID = " + second);
+        db.deleteRow("ORDERS", first);
+        
+        List<Change> changes = db.changesSince("ORDERS", -1, 100);
+        assertEquals(Arrays.asList("INSERT " + first, "INSERT " + second, "UPDATE " + first, "UPDATE " + second,
+                "DELETE " + first), describe(changes));
+        for (int i = 1; i < changes.size(); i++) {
+            assertTrue(changes.get(i).getSequence() > changes.get(i - 1).getSequence());
+        }
+        assertEquals(changes.get(4).getSequence(), db.getLatestChange("ORDERS"));
+        assertEquals(sequences(changes.subList(2, 4)), sequences(db.changesSince("ORDERS", changes.get(1).getSequence(), 2)));
+        assertTrue(db.changesSince("ORDERS", db.getLatestChange("ORDERS"), 100).isEmpty());
+    }
+    
+    @Test
+    void rolledBackWritesAreNotLogged() {
+        
+        assertFalse(db.runInTransaction("ORDERS", 1, () -> {
+            insert("lost");
+            throw new IllegalStateException("abort");
+        }));
+        
+        assertTrue(db.changesSince("ORDERS", -1, 100).isEmpty());
+        assertEquals(-1, db.getLatestChange("ORDERS"));
+    }
+    
+    @Test
+    void clearIsLoggedAsOneTruncation() {
+        
+        insert("a");
+        insert("b");
+        db.clearTable("ORDERS");
+        long after = insert("c");
+        
+        assertEquals(Arrays.asList("INSERT 0", "INSERT 1", "TRUNCATE", "INSERT " + after),
+                describe(db.changesSince("ORDERS", -1, 100)));
+        assertEquals(1, db.count("ORDERS"));
+    }
+    
+    @Test
+    void compactionKeepsTheLatestChangeOfEveryRow() {
+        
+        long first = insert("a");
+        long second = insert("b");
+        update(first, "c");
+        update(first, "d");
+        
+        assertEquals(2, db.compactChanges("ORDERS"));
+        assertEquals(Arrays.asList("INSERT " + second, "UPDATE " + first), describe(db.changesSince("ORDERS", -1, 100)));
+        
+        db.clearTable("ORDERS");
+        long third = insert("e");
+        assertEquals(2, db.compactChanges("ORDERS"));
+        assertEquals(Arrays.asList("TRUNCATE", "INSERT " + third), describe(db.changesSince("ORDERS", -1, 100)));
+    }
+    
+    @Test
+    void trimmedChangesAreReplacedByAResync() {
+        
+        for (int i = 0; i < 5; i++) {
+            insert("row" + i);
+        }
+        List<Change> all = db.changesSince("ORDERS", -1, 100);
+        
+        assertEquals(3, db.trimChanges("ORDERS", 2));
+        List<Change> behind = db.changesSince("ORDERS", -1, 100);
+        assertEquals(Arrays.asList("RESYNC", "INSERT 3", "INSERT 4"), describe(behind));
+        assertEquals(all.get(2).getSequence(), behind.get(0).getSequence());
+        //a consumer that already read the dropped changes continues without a resync
+        assertEquals(sequences(all.subList(3, 5)), sequences(db.changesSince("ORDERS", all.get(2).getSequence(), 100)));
+        assertEquals(all.get(4).getSequence(), db.getLatestChange("ORDERS"));
+    }
+    
+    @Test
+    void listenerGetsTheChangesInOrder() throws Exception {
+        
+        db.setChangePollInterval(10);
+        List<Change> received = new CopyOnWriteArrayList<>();
+        CountDownLatch done = new CountDownLatch(3);
+        db.addChangeListener("ORDERS", change -> {
+            received.add(change);
+            done.countDown();
+        });
+        long ID = insert("a");
+        update(ID, "b");
+        db.deleteRow("ORDERS", ID);
+        
+        assertTrue(done.await(10, TimeUnit.SECONDS));
+        assertEquals(Arrays.asList("INSERT " + ID, "UPDATE " + ID, "DELETE " + ID), describe(received));
+    }
+    
+    @Test
+    void deletedTableStartsWithAnEmptyLog() {
+        
+        insert("a");
+        db.deleteTable("ORDERS");
+        db.createTable("ORDERS");
+        
+        assertFalse(db.isChangeLogEnabled("ORDERS"));
+        assertTrue(db.enableChangeLog("ORDERS"));
+        assertTrue(db.changesSince("ORDERS", -1, 100).isEmpty());
+        
+        db.disableChangeLog("ORDERS");
+        insert("b");
+        assertTrue(db.changesSince("ORDERS", -1, 100).isEmpty());
+    }
+}
@@ -0,0 +1,123 @@
+package SEJDB;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+
+/**
+ * Open cursors together with writes of the same thread: a write must never end a scan.
+ *
+ * @author Dennis Sellemann <a>dsellemann@gmail.com</a>
+ * @version 0.5
+ */
+class ConnectionPoolTest {
+    
+    private static final int ROWS = 500;
+    
+    private DBServices db;
+    
+    @BeforeEach
+    void setUp() {
+        
+        db = new DBServices("connectionPoolTest", "", "", Storage.MEMORY);
+        db.createTable("SCANNED");
+        List<Map<String, ?>> rows = new ArrayList<>();
+        for (int i = 0; i < ROWS; i++) {
+            rows.add(Collections.singletonMap("NAME", "r" + i));
+        }
+        db.insertBatch("SCANNED", rows);
+        db.createTable("WRITTEN");
+        db.setFetchSize(10);
+    }
+    
+    @AfterEach
+    void tearDown() {
+        
+        db.deleteDatabase();
+    }
+    
+    @Test
+    void writesWhileScanningDontEndTheScan() {
+        
+        int read = 0;
+        try (Cursor cursor = db.scan("SCANNED")) {
+            for (Row row : cursor) {
+                read++;
+                if (read % 5 == 0) {
+                    Map<Long, Map<String, ?>> changes = new HashMap<>();
+                    changes.put(row.getLong("ID"), Collections.singletonMap("NAME", "seen"));
+                    //the next row is still ahead of the cursor
+                    changes.put(row.getLong("ID") + 1, Collections.singletonMap("NAME", "ahead"));
+                    db.updateRows("SCANNED", changes);
+                    db.insertBatch("WRITTEN", Collections.singletonList(Collections.singletonMap("NAME", "w" + read)));
+                    db.runInTransaction("WRITTEN", 1, () -> db.insertRow("WRITTEN", Collections.singletonMap("NAME", "t")));
+                }
+            }
+        }
+        
+        assertEquals(ROWS, read);
+        assertEquals(ROWS / 5, db.count("SCANNED", "NAME", "seen"));
+        assertEquals(2 * ROWS / 5, db.count("WRITTEN"));
+    }
+    
+    @Test
+    void rolledBackTransactionDoesntEndAScan() {
+        
+        int read = 0;
+        try (Cursor cursor = db.scan("SCANNED")) {
+            for (Row ignored : cursor) {
+                read++;
+                if (read == 5) {
+                    assertFalse(db.runInTransaction("WRITTEN", 1, () -> {
+                        db.insertRow("WRITTEN", Collections.singletonMap("NAME", "lost"));
+                        throw new IllegalStateException("abort");
+                    }));
+                }
+            }
+        }
+        
+        assertEquals(ROWS, read);
+        assertEquals(0, db.count("WRITTEN"));
+    }
+    
+    @Test
+    void threadsHoldingCursorsDontStarveEachOther() throws Exception {
+        
+        db.setPoolSize(1, 2);
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<Integer>> scans = new ArrayList<>();
+            for (int t = 0; t < 4; t++) {
+                scans.add(executor.submit(() -> {
+                    int read = 0;
+                    try (Cursor cursor = db.scan("SCANNED")) {
+                        for (Row ignored : cursor) {
+                            if (++read % 100 == 0) {
+                                db.insertRow("WRITTEN", Collections.singletonMap("NAME", "w"));
+                            }
+                        }
+                    }
+                    return read;
+                }));
+            }
+            for (Future<Integer> scan : scans) {
+                assertEquals(ROWS, scan.get(60, TimeUnit.SECONDS));
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+}
@@ -0,0 +1,85 @@
+package SEJDB;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Lazy iteration of {@link Cursor}: every row once, and a failed read never looks like the end of the rows.
+ *
+ * @author Dennis Sellemann <a>dsellemann@gmail.com</a>
+ * @version 0.5
+ */
+class CursorTest {
+    
+    private DBServices db;
+    
+    @BeforeEach
+    void setUp() {
+        
+        db = new DBServices("cursorTest", "", "", Storage.MEMORY);
+        db.createTable("NUMBERS");
+        List<Map<String, ?>> rows = new ArrayList<>();
+        for (int i = 0; i < 50; i++) {
+            rows.add(Collections.singletonMap("NAME", i % 2 == 0 ? "even" : "odd"));
+        }
+        db.insertBatch("NUMBERS", rows);
+        db.setFetchSize(10);
+    }
+    
+    @AfterEach
+    void tearDown() {
+        
+        db.deleteDatabase();
+    }
+    
+    @Test
+    void scanReadsEveryRowAndClosesItself() {
+        
+        Cursor cursor = db.scan("NUMBERS");
+        int read = 0;
+        for (Row ignored : cursor) {
+            read++;
+        }
+        
+        assertEquals(50, read);
+        assertFalse(cursor.hasNext());
+        try (Stream<Row> odd = db.streamRows("NUMBERS", "NAME", "odd")) {
+            assertEquals(25, odd.count());
+        }
+    }
+    
+    @Test
+    void unknownTableGivesAnEmptyCursor() {
+        
+        try (Cursor cursor = db.scan("MISSING")) {
+            assertFalse(cursor.hasNext());
+        }
+    }
+    
+    @Test
+    void failedReadThrowsInsteadOfEndingTheRows() {
+        
+        AtomicReference<Cursor> cursor = new AtomicReference<>();
+        //a cursor opened inside a transaction belongs to it; the rollback closes its result set
+        assertFalse(db.runInTransaction("NUMBERS", 0, () -> {
+            cursor.set(db.scan("NUMBERS"));
+            cursor.get().next();
+            throw new IllegalStateException("abort");
+        }));
+        
+        assertThrows(IllegalStateException.class, () -> cursor.get().hasNext());
+        assertFalse(cursor.get().hasNext());
+    }
+}
@@ -0,0 +1,153 @@
+package SEJDB;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.math.BigDecimal;
+import java.sql.Connection;
+import java.sql.Date;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.sql.Time;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Export and import of a table with every Derby column type, in both {@link TableFormat}s.
+ *
+ * @author Dennis Sellemann <a>dsellemann@gmail.com</a>
+ * @version 0.5
+ */
+class ExportImportTest {
+    
+    private static final Column[] COLUMNS = {
+            new Column("SI", "SMALLINT"),
+            new Column("I", "INT"),
+            new Column("BI", "BIGINT"),
+            new Column("DE", "DECIMAL(20,10)"),
+            new Column("NU", "NUMERIC(10,2)"),
+            new Column("R", "REAL"),
+            new Column("D", "DOUBLE"),
+            new Column("F", "FLOAT"),
+            new Column("C", "CHAR(5)"),
+            new Column("VC", "VARCHAR(50)"),
+            new Column("LVC", "LONG VARCHAR"),
+            new Column("CL", "CLOB"),
+            new Column("BL", "BLOB"),
+            new Column("CB", "CHAR(4) FOR BIT DATA"),
+            new Column("VB", "VARCHAR(10) FOR BIT DATA"),
+            new Column("LVB", "LONG VARCHAR FOR BIT DATA"),
+            new Column("DA", "DATE"),
+            new Column("T", "TIME"),
+            new Column("TS", "TIMESTAMP"),
+            new Column("BO", "BOOLEAN")};
+    
+    private DBServices db;
+    
+    @BeforeEach
+    void setUp() {
+        
+        db = new DBServices("exportImportTest", "", "", Storage.MEMORY);
+        db.createTable(new TableDefinition("ORIGINAL", COLUMNS));
+        db.createTable(new TableDefinition("COPY", COLUMNS));
+        
+        Map<String, Object> values = new HashMap<>();
+        values.put("SI", (short) -3);
+        values.put("I", Integer.MIN_VALUE);
+        values.put("BI", Long.MAX_VALUE);
+        values.put("DE", BigDecimal.ZERO);
+        values.put("NU", new BigDecimal("-12345678.90"));
+        values.put("R", 1.5f);
+        values.put("D", 1e20);
+        values.put("F", -0.1);
+        values.put("C", "ab");
+        values.put("VC", "comma, \"quote\"\r\nline");
+        values.put("LVC", "");
+        values.put("CL", "clob ä€\nwith lines, \"quotes\"");
+        values.put("BL", new byte[]{0, 1, (byte) 0xFE, (byte) 0xFF});
+        values.put("CB", new byte[]{1, 2});
+        values.put("VB", new byte[]{(byte) 0x80});
+        values.put("LVB", new byte[0]);
+        values.put("DA", Date.valueOf("2024-02-29"));
+        values.put("T", Time.valueOf("23:59:58"));
+        values.put("TS", Timestamp.valueOf("2024-01-02 03:04:05.123456"));
+        values.put("BO", true);
+        db.insertRow("ORIGINAL", 1, values);
+        db.insertRow("ORIGINAL", 2, new HashMap<>());
+        
+        db.sql("CREATE TABLE XML_ORIGINAL (ID INT PRIMARY KEY, X XML)");
+        db.sql("CREATE TABLE XML_COPY (ID INT PRIMARY KEY, X XML)");
+        db.sql("INSERT INTO XML_ORIGINAL VALUES (1, XMLPARSE(DOCUMENT '<a b=\"1\">x, \"y\"\n</a>' PRESERVE WHITESPACE))");
+        db.sql("INSERT INTO XML_ORIGINAL VALUES (2, NULL)");
+    }
+    
+    @AfterEach
+    void tearDown() {
+        
+        db.deleteDatabase();
+    }
+    
+    private void copy(String from, String to, TableFormat format) {
+        
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        assertEquals(2, db.exportTable(from, out, format));
+        assertEquals(2, db.importTable(to, new ByteArrayInputStream(out.toByteArray()), format));
+    }
+    
+    @ParameterizedTest
+    @EnumSource(TableFormat.class)
+    void everyColumnTypeRoundTrips(TableFormat format) {
+        
+        copy("ORIGINAL", "COPY", format);
+        
+        List<Long> IDs = Arrays.asList(1L, 2L);
+        Map<Long, Row> original = db.fetchRows("ORIGINAL", IDs);
+        Map<Long, Row> copy = db.fetchRows("COPY", IDs);
+        for (long ID : IDs) {
+            for (String column : original.get(ID).getColumnNames()) {
+                Object expected = original.get(ID).getObject(column);
+                Object actual = copy.get(ID).getObject(column);
+                if (expected instanceof byte[]) {
+                    assertArrayEquals((byte[]) expected, (byte[]) actual, column);
+                } else {
+                    assertEquals(expected, actual, column);
+                }
+            }
+        }
+        assertEquals(original.get(1L).toString(), copy.get(1L).toString());
+    }
+    
+    @ParameterizedTest
+    @EnumSource(TableFormat.class)
+    void xmlRoundTrips(TableFormat format) throws Exception {
+        
+        copy("XML_ORIGINAL", "XML_COPY", format);
+        
+        assertEquals(xml("XML_ORIGINAL"), xml("XML_COPY"));
+    }
+    
+    private static List<String> xml(String tableName) throws Exception {
+        
+        List<String> documents = new ArrayList<>();
+        try (Connection conn = DriverManager.getConnection("jdbc:derby:memory:exportImportTest");
+             Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery("SELECT XMLSERIALIZE(X AS CLOB) FROM " + tableName + " ORDER BY ID")) {
+            while (rs.next()) {
+                documents.add(rs.getString(1));
+            }
+        }
+        return documents;
+    }
+}
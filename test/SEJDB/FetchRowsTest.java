@@ -0,0 +1,111 @@
+package SEJDB;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Multi-get and multi-delete by ID lists, including BIGINT IDs beyond the range of an int.
+ *
+ * @author Dennis Sellemann <a>dsellemann@gmail.com</a>
+ * @version 0.5
+ */
+class FetchRowsTest {
+    
+    private static final long BIG = 5_000_000_000L;
+    
+    private DBServices db;
+    
+    @BeforeEach
+    void setUp() {
+        
+        db = new DBServices("fetchRowsTest", "", "", Storage.MEMORY);
+        db.createTable(new TableDefinition("BIG", new Column("NAME", "VARCHAR(20)")).bigintID());
+        db.createTable("SMALL");
+    }
+    
+    @AfterEach
+    void tearDown() {
+        
+        db.deleteDatabase();
+    }
+    
+    private void insert(String tableName, long ID) {
+        
+        Map<String, Object> values = new HashMap<>();
+        values.put("NAME", "n" + ID);
+        assertTrue(db.insertRow(tableName, ID, values));
+    }
+    
+    @Test
+    void largeIDsKeepTheirValueInResultAndCache() {
+        
+        insert("BIG", BIG);
+        insert("BIG", Long.MAX_VALUE);
+        db.enableRowCache("BIG", 10);
+        
+        Map<Long, Row> rows = db.fetchRows("BIG", Arrays.asList(BIG, Long.MAX_VALUE, (long) (int) BIG));
+        assertEquals(Arrays.asList(BIG, Long.MAX_VALUE), new ArrayList<>(rows.keySet()));
+        assertEquals("n" + BIG, rows.get(BIG).getString("NAME"));
+        
+        //the second read is answered by the cache under the full ID
+        long hits = db.getRowCacheHits();
+        assertEquals(Long.MAX_VALUE, db.fetchRows("BIG", Arrays.asList(Long.MAX_VALUE)).get(Long.MAX_VALUE).getLong("ID"));
+        assertEquals(hits + 1, db.getRowCacheHits());
+    }
+    
+    @Test
+    void nullIDsAreSkipped() {
+        
+        insert("BIG", 1);
+        
+        assertEquals(1, db.fetchRows("BIG", Arrays.asList(null, 1L, null)).size());
+        Map<Long, Boolean> deleted = db.deleteRows("BIG", Arrays.asList(null, 1L));
+        assertEquals(1, deleted.size());
+        assertTrue(deleted.get(1L));
+    }
+    
+    @Test
+    void idsOutsideAnIntColumnDontFailTheOthers() {
+        
+        insert("SMALL", 1);
+        insert("SMALL", 2);
+        
+        assertEquals(2, db.fetchRows("SMALL", Arrays.asList(1L, BIG, 2L)).size());
+        Map<Long, Boolean> deleted = db.deleteRows("SMALL", Arrays.asList(1L, BIG));
+        assertTrue(deleted.get(1L));
+        assertFalse(deleted.get(BIG));
+    }
+    
+    @Test
+    void listsLongerThanOneInListAreReadInChunks() {
+        
+        List<Map<String, ?>> rows = new ArrayList<>();
+        for (int i = 0; i < 700; i++) {
+            Map<String, Object> values = new HashMap<>();
+            values.put("NAME", "r" + i);
+            rows.add(values);
+        }
+        db.insertBatch("SMALL", rows);
+        List<Long> IDs = new ArrayList<>();
+        for (long ID = 0; ID < 700; ID += 2) {
+            IDs.add(ID);
+        }
+        IDs.add(100_000L);
+        
+        Map<Long, Row> found = db.fetchRows("SMALL", IDs);
+        assertEquals(350, found.size());
+        assertFalse(found.containsKey(100_000L));
+        assertEquals(IDs.subList(0, 350), new ArrayList<>(found.keySet()));
+    }
+}
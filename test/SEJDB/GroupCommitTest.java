@@ -0,0 +1,187 @@
+package SEJDB;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assertions.fail;
+
+/**
+ * Rollback of a group commit and of {@link DBServices#runInTransaction} when a write hits a deadlock or lock timeout.
+ *
+ * @author Dennis Sellemann <a>dsellemann@gmail.com</a>
+ * @version 0.5
+ */
+class GroupCommitTest {
+    
+    private ExecutorService executor;
+    
+    @BeforeEach
+    void setUp() {
+        
+        executor = Executors.newFixedThreadPool(3);
+    }
+    
+    @AfterEach
+    void tearDown() {
+        
+        executor.shutdownNow();
+    }
+    
+    @Test
+    void lockTimeoutFailsEveryMemberOfTheGroup() throws Exception {
+        
+        List<String> committed = new CopyOnWriteArrayList<>();
+        GroupCommit groupCommit = new GroupCommit(transaction(committed), 1_000_000, 2);
+        Future<String> first = blockFirstGroup(groupCommit);
+        Future<String> succeeding = submit(groupCommit, () -> "insert");
+        Future<String> timingOut = submit(groupCommit, () -> {
+            throw new IllegalStateException(new SQLException("lock timeout", "40XL1"));
+        });
+        awaitGroups(first, succeeding, timingOut);
+        
+        assertEquals("40000", sqlState(succeeding));
+        assertEquals("40000", sqlState(timingOut));
+        assertEquals(1, committed.size());
+    }
+    
+    @Test
+    void statementErrorFailsOnlyItsOwnWrite() throws Exception {
+        
+        List<String> committed = new CopyOnWriteArrayList<>();
+        GroupCommit groupCommit = new GroupCommit(transaction(committed), 1_000_000, 2);
+        Future<String> first = blockFirstGroup(groupCommit);
+        Future<String> succeeding = submit(groupCommit, () -> "insert");
+        Future<String> duplicate = submit(groupCommit, () -> {
+            throw new IllegalArgumentException("duplicate key");
+        });
+        awaitGroups(first, succeeding, duplicate);
+        
+        assertEquals("insert", succeeding.get(5, TimeUnit.SECONDS));
+        try {
+            duplicate.get(5, TimeUnit.SECONDS);
+            fail("the failed write must not report success");
+        } catch (ExecutionException e) {
+            assertTrue(e.getCause() instanceof IllegalArgumentException);
+        }
+        assertEquals(2, committed.size());
+    }
+    
+    @Test
+    void lockTimeoutRollsBackTheWholeTransaction() throws Exception {
+        
+        DBServices db = new DBServices("groupCommitTest", "", "", Storage.MEMORY);
+        try {
+            db.createTable("G");
+            db.sql("CALL SYSCS_UTIL.SYSCS_SET_DATABASE_PROPERTY('derby.locks.waitTimeout', '1')");
+            Map<String, Object> values = new HashMap<>();
+            values.put("NAME", "locked");
+            long locked = db.insertRow("G", values);
+            try (Connection other = DriverManager.getConnection("jdbc:derby:memory:groupCommitTest");
+                 Statement stmt = other.createStatement()) {
+                other.setAutoCommit(false);
+                stmt.executeUpdate("UPDATE G SET NAME = 'held' WHERE ID = " + locked);
+                
+                boolean committed = db.runInTransaction("G", 2, () -> {
+                    Map<String, Object> row = new HashMap<>();
+                    row.put("NAME", "fresh");
+                    db.insertRow("G", row);
+                    db.updateRow("G", locked, row);
+                });
+                other.rollback();
+                
+                assertFalse(committed);
+            }
+            assertEquals(0, db.count("G", "NAME", "fresh"));
+            assertEquals(1, db.count("G"));
+        } finally {
+            db.deleteDatabase();
+        }
+    }
+    
+    /**
+     * @param committed Receives one entry per committed group.
+     * @return a transaction that commits unless the work throws.
+     */
+    private static GroupCommit.Transaction transaction(List<String> committed) {
+        
+        return (writes, work) -> {
+            try {
+                work.run();
+                committed.add("group of " + writes);
+                return true;
+            } catch (RuntimeException e) {
+                return false;
+            }
+        };
+    }
+    
+    private Future<String> submit(GroupCommit groupCommit, Supplier<String> write) {
+        
+        return executor.submit(() -> groupCommit.execute(write));
+    }
+    
+    /**
+     * Start a group whose only write blocks, so the next writes queue up as one group behind it.
+     */
+    private Future<String> blockFirstGroup(GroupCommit groupCommit) throws InterruptedException {
+        
+        CountDownLatch running = new CountDownLatch(1);
+        Future<String> first = submit(groupCommit, () -> {
+            running.countDown();
+            try {
+                Thread.sleep(300);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return "first";
+        });
+        assertTrue(running.await(5, TimeUnit.SECONDS));
+        return first;
+    }
+    
+    private static void awaitGroups(Future<String> first, Future<?>... queued) throws Exception {
+        
+        assertEquals("first", first.get(5, TimeUnit.SECONDS));
+        for (Future<?> future : queued) {
+            try {
+                future.get(5, TimeUnit.SECONDS);
+            } catch (ExecutionException ignored) {
+                //checked by the test
+            }
+        }
+    }
+    
+    private static String sqlState(Future<?> future) throws Exception {
+        
+        try {
+            future.get(5, TimeUnit.SECONDS);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof SQLException) {
+                return ((SQLException) e.getCause()).getSQLState();
+            }
+            throw e;
+        }
+        fail("the write must not report success");
+        return null;
+    }
+}
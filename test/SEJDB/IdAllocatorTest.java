@@ -0,0 +1,153 @@
+package SEJDB;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * ID allocation of {@link IdAllocator} and of the inserts of {@link DBServices}.
+ *
+ * @author Dennis Sellemann <a>dsellemann@gmail.com</a>
+ * @version 0.5
+ */
+class IdAllocatorTest {
+    
+    private DBServices db;
+    
+    @BeforeEach
+    void setUp() {
+        
+        db = new DBServices("idAllocatorTest", "", "", Storage.MEMORY);
+        db.createTable("PEOPLE");
+    }
+    
+    @AfterEach
+    void tearDown() {
+        
+        db.deleteDatabase();
+    }
+    
+    private long insert() {
+        
+        return db.insertRow("PEOPLE", Collections.singletonMap("NAME", "someone"));
+    }
+    
+    @Test
+    void lowestFreeIDFillsGaps() {
+        
+        IdAllocator allocator = new IdAllocator(true);
+        allocator.markUsed(0);
+        allocator.markUsed(2);
+        
+        assertEquals(1, allocator.allocate());
+        assertEquals(3, allocator.allocate());
+        allocator.release(0);
+        assertEquals(0, allocator.peek());
+        allocator.release(3);
+        allocator.markUsed(0);
+        assertEquals(3, allocator.allocate());
+    }
+    
+    @Test
+    void appendNeverReusesIDs() {
+        
+        IdAllocator allocator = new IdAllocator(false);
+        allocator.markUsed(5);
+        allocator.release(5);
+        
+        assertEquals(6, allocator.allocate());
+        allocator.clear();
+        assertEquals(0, allocator.allocate());
+    }
+    
+    @Test
+    void idsBeyondTheIntRangeAreAppended() {
+        
+        IdAllocator lowestFree = new IdAllocator(true);
+        lowestFree.markUsed(5_000_000_000L);
+        assertEquals(0, lowestFree.allocate());
+        
+        IdAllocator append = new IdAllocator(false);
+        append.markUsed(5_000_000_000L);
+        assertEquals(5_000_000_001L, append.allocate());
+    }
+    
+    @Test
+    void insertsReuseTheIDsOfDeletedRows() {
+        
+        for (int i = 0; i < 5; i++) {
+            assertEquals(i, insert());
+        }
+        db.deleteRow("PEOPLE", 1);
+        db.deleteRow("PEOPLE", 3);
+        
+        assertEquals(1, db.getFreeID("PEOPLE"));
+        assertEquals(1, insert());
+        assertEquals(3, insert());
+        assertEquals(5, insert());
+        assertTrue(db.containsID("PEOPLE", 3));
+        assertFalse(db.containsID("PEOPLE", 6));
+    }
+    
+    @Test
+    void appendModeIsSeededFromTheHighestID() {
+        
+        db.insertRow("PEOPLE", 41, Collections.singletonMap("NAME", "old"));
+        db.setLowestFreeID(false);
+        
+        assertEquals(42, insert());
+        db.deleteRow("PEOPLE", 42);
+        assertEquals(43, insert());
+    }
+    
+    @Test
+    void clearedTableStartsAtZero() {
+        
+        insert();
+        insert();
+        db.clearTable("PEOPLE");
+        
+        assertEquals(0, insert());
+    }
+    
+    @Test
+    void concurrentInsertsGetUniqueIDs() throws Exception {
+        
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<List<Long>>> futures = new ArrayList<>();
+            for (int t = 0; t < 4; t++) {
+                futures.add(executor.submit(() -> {
+                    List<Long> IDs = new ArrayList<>();
+                    for (int i = 0; i < 50; i++) {
+                        IDs.add(insert());
+                    }
+                    return IDs;
+                }));
+            }
+            Set<Long> IDs = new HashSet<>();
+            for (Future<List<Long>> future : futures) {
+                IDs.addAll(future.get());
+            }
+            
+            assertEquals(200, IDs.size());
+            assertFalse(IDs.contains(-1L));
+            assertEquals(200, db.count("PEOPLE"));
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+}
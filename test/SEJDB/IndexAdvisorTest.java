@@ -0,0 +1,112 @@
+package SEJDB;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Index advice and automatic indexes created from the lookups of {@link DBServices#getRows(String, String, String)}.
+ *
+ * @author Dennis Sellemann <a>dsellemann@gmail.com</a>
+ * @version 0.5
+ */
+class IndexAdvisorTest {
+    
+    private static final String INDEX = "IDX_ITEMS_NAME";
+    
+    private DBServices db;
+    
+    @BeforeEach
+    void setUp() {
+        
+        db = new DBServices("indexAdvisorTest", "", "", Storage.MEMORY);
+        db.createTable("ITEMS");
+        insert(3);
+    }
+    
+    @AfterEach
+    void tearDown() {
+        
+        db.deleteDatabase();
+    }
+    
+    private void insert(int count) {
+        
+        long existing = db.count("ITEMS");
+        List<Map<String, ?>> rows = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            rows.add(Collections.singletonMap("NAME", "item" + existing + "-" + i));
+        }
+        db.insertBatch("ITEMS", rows);
+    }
+    
+    private void lookup(int times) {
+        
+        for (int i = 0; i < times; i++) {
+            db.getRows("ITEMS", "NAME", "item0-0");
+        }
+    }
+    
+    /**
+     * @return true if the automatic index exists within the timeout.
+     */
+    private boolean awaitIndex(long millis) throws InterruptedException {
+        
+        long end = System.currentTimeMillis() + millis;
+        while (!db.listIndexes("ITEMS").containsKey(INDEX)) {
+            if (System.currentTimeMillis() > end) {
+                return false;
+            }
+            Thread.sleep(20);
+        }
+        return true;
+    }
+    
+    @Test
+    void selectiveColumnIsAdvised() {
+        
+        insert(100);
+        lookup(3);
+        
+        assertEquals(Collections.singletonList("ITEMS.NAME"), db.getIndexAdvice(3));
+        assertTrue(db.getIndexAdvice(4).isEmpty());
+        assertEquals(1, db.applyIndexAdvice(3));
+        assertTrue(db.getIndexAdvice(3).isEmpty());
+    }
+    
+    @Test
+    void columnOfASmallTableIsCheckedAgainOnceItGrew() throws Exception {
+        
+        db.setAutoIndexThreshold(5);
+        lookup(5);
+        assertFalse(awaitIndex(500), "three rows don't need an index");
+        
+        insert(200);
+        lookup(4);
+        assertFalse(awaitIndex(200), "checked every 5 lookups");
+        lookup(1);
+        assertTrue(awaitIndex(10_000));
+    }
+    
+    @Test
+    void droppedAutomaticIndexIsNotCreatedAgain() throws Exception {
+        
+        insert(200);
+        db.setAutoIndexThreshold(2);
+        lookup(2);
+        assertTrue(awaitIndex(10_000));
+        
+        db.dropIndex("ITEMS", "NAME");
+        lookup(4);
+        assertFalse(awaitIndex(500));
+    }
+}
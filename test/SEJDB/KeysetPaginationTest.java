@@ -0,0 +1,121 @@
+package SEJDB;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Page boundaries of {@link DBServices#rowsAfter(String, long, int)}.
+ *
+ * @author Dennis Sellemann <a>dsellemann@gmail.com</a>
+ * @version 0.5
+ */
+class KeysetPaginationTest {
+    
+    private DBServices db;
+    
+    @BeforeEach
+    void setUp() {
+        
+        db = new DBServices("keysetPaginationTest", "", "", Storage.MEMORY);
+        db.createTable("PAGES");
+    }
+    
+    @AfterEach
+    void tearDown() {
+        
+        db.deleteDatabase();
+    }
+    
+    private void insert(String tableName, long... IDs) {
+        
+        for (long ID : IDs) {
+            Map<String, Object> values = new HashMap<>();
+            values.put("NAME", "n" + ID);
+            assertTrue(db.insertRow(tableName, ID, values));
+        }
+    }
+    
+    private static List<Long> IDs(RowSet page) {
+        
+        List<Long> IDs = new ArrayList<>();
+        for (int i = 0; i < page.size(); i++) {
+            IDs.add(page.get(i).getLong("ID"));
+        }
+        return IDs;
+    }
+    
+    @Test
+    void emptyTableHasAnEmptyFirstPage() {
+        
+        assertEquals(0, db.rowsAfter("PAGES", -1, 10).size());
+    }
+    
+    @Test
+    void firstPageStartsWithIDZero() {
+        
+        insert("PAGES", 0, 1, 2);
+        
+        assertEquals(Arrays.asList(0L, 1L), IDs(db.rowsAfter("PAGES", -1, 2)));
+    }
+    
+    @Test
+    void pageEndingAtTheLastRowIsFollowedByAnEmptyPage() {
+        
+        insert("PAGES", 1, 2, 3);
+        
+        RowSet page = db.rowsAfter("PAGES", -1, 3);
+        assertEquals(Arrays.asList(1L, 2L, 3L), IDs(page));
+        assertEquals(0, db.rowsAfter("PAGES", 3, 3).size());
+        assertEquals(0, db.rowsAfter("PAGES", Long.MAX_VALUE, 3).size());
+    }
+    
+    @Test
+    void changesBehindTheCursorDontShiftTheNextPage() {
+        
+        insert("PAGES", 1, 2, 3, 4, 5, 6);
+        
+        List<Long> first = IDs(db.rowsAfter("PAGES", -1, 3));
+        assertEquals(Arrays.asList(1L, 2L, 3L), first);
+        db.deleteRow("PAGES", 2);
+        insert("PAGES", 0);
+        db.deleteRow("PAGES", 5);
+        
+        assertEquals(Arrays.asList(4L, 6L), IDs(db.rowsAfter("PAGES", first.get(first.size() - 1), 3)));
+    }
+    
+    @Test
+    void walkVisitsEveryRowOnce() {
+        
+        insert("PAGES", 1, 3, 4, 8, 9, 10, 15);
+        
+        List<Long> visited = new ArrayList<>();
+        long last = -1;
+        for (RowSet page = db.rowsAfter("PAGES", last, 2); page.size() > 0; page = db.rowsAfter("PAGES", last, 2)) {
+            List<Long> IDs = IDs(page);
+            visited.addAll(IDs);
+            last = IDs.get(IDs.size() - 1);
+        }
+        assertEquals(Arrays.asList(1L, 3L, 4L, 8L, 9L, 10L, 15L), visited);
+    }
+    
+    @Test
+    void bigintIDsBeyondTheIntRange() {
+        
+        db.createTable(new TableDefinition("BIGPAGES", new Column("NAME", "VARCHAR(20)")).bigintID());
+        long big = 5_000_000_000L;
+        insert("BIGPAGES", 7, big, big + 1);
+        
+        assertEquals(Arrays.asList(big, big + 1), IDs(db.rowsAfter("BIGPAGES", 7, 10)));
+        assertEquals(Arrays.asList(big + 1), IDs(db.rowsAfter("BIGPAGES", big, 10)));
+    }
+}
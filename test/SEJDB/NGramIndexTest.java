@@ -0,0 +1,167 @@
+package SEJDB;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Searches with a leading wildcard through a text index, on the index itself and through the database.
+ *
+ * @author Dennis Sellemann <a>dsellemann@gmail.com</a>
+ * @version 0.5
+ */
+class NGramIndexTest {
+    
+    private DBServices db;
+    
+    @BeforeEach
+    void setUp() {
+        
+        db = new DBServices("nGramIndexTest", "", "", Storage.MEMORY);
+        db.createTable(new TableDefinition("NOTES", new Column("NAME", "VARCHAR(100)")));
+    }
+    
+    @AfterEach
+    void tearDown() {
+        
+        db.deleteDatabase();
+    }
+    
+    private long insert(String name) {
+        
+        Map<String, Object> values = new HashMap<>();
+        values.put("NAME", name);
+        return db.insertRow("NOTES", values);
+    }
+    
+    private List<Long> search(String pattern) {
+        
+        List<Long> IDs = new ArrayList<>();
+        for (Row row : db.fetchRows("NOTES", "NAME", pattern)) {
+            IDs.add(row.getLong("ID"));
+        }
+        return IDs;
+    }
+    
+    @Test
+    void likeMatchesWildcards() {
+        
+        assertTrue(NGramIndex.like("foobar", "%oba%"));
+        assertTrue(NGramIndex.like("foobar", "f_o%"));
+        assertTrue(NGramIndex.like("foobar", "%bar"));
+        assertTrue(NGramIndex.like("foobar", "%%"));
+        assertFalse(NGramIndex.like("foobar", "%foo"));
+        assertFalse(NGramIndex.like("foobar", "_oobarx"));
+        assertFalse(NGramIndex.like(null, "%"));
+    }
+    
+    @Test
+    void searchChecksThePatternAfterTheTrigrams() {
+        
+        NGramIndex index = new NGramIndex("NOTES", "NAME");
+        Map<Long, String> rows = new HashMap<>();
+        rows.put(1L, "abcdef");
+        rows.put(2L, "defabc");
+        rows.put(3L, "abc");
+        rows.put(4L, null);
+        index.beginRebuild();
+        index.rebuild(rows);
+        
+        assertEquals(3, index.size());
+        assertEquals(Arrays.asList(1L, 2L, 3L), index.search("%abc%"));
+        //all trigrams match row 2, but not in the order of the pattern
+        assertEquals(Collections.singletonList(1L), index.search("%abc%def%"));
+        assertEquals(Arrays.asList(2L, 3L), index.search("%abc"));
+        assertEquals(Collections.emptyList(), index.search("%xyz%"));
+    }
+    
+    @Test
+    void applyReplacesChangedAndRemovesDeletedRows() {
+        
+        NGramIndex index = new NGramIndex("NOTES", "NAME");
+        Map<Long, String> rows = new HashMap<>();
+        rows.put(1L, "apple");
+        rows.put(2L, "pineapple");
+        index.beginRebuild();
+        index.rebuild(rows);
+        
+        index.invalidate(1L);
+        index.invalidate(2L);
+        Map<Long, String> changed = new HashMap<>();
+        changed.put(1L, "cherry");
+        index.apply(index.takeDirty(), changed);
+        
+        assertEquals(1, index.size());
+        assertEquals(Collections.emptyList(), index.search("%ppl%"));
+        assertEquals(Collections.singletonList(1L), index.search("%err%"));
+    }
+    
+    @Test
+    void canSearchNeedsThreeLiteralCharacters() {
+        
+        assertTrue(NGramIndex.canSearch("%abc%"));
+        assertTrue(NGramIndex.canSearch("%ab%cde"));
+        assertFalse(NGramIndex.canSearch("%ab%"));
+        assertFalse(NGramIndex.canSearch("%a_b%"));
+    }
+    
+    @Test
+    void indexedSearchFollowsWrites() {
+        
+        long fox = insert("the quick brown fox");
+        long dog = insert("the lazy dog");
+        assertTrue(db.createTextIndex("NOTES", "NAME"));
+        assertEquals(Collections.singletonList(fox), search("%brown%"));
+        
+        long cat = insert("a brown cat");
+        assertEquals(Arrays.asList(fox, cat), search("%brown%"));
+        
+        Map<String, Object> changes = new HashMap<>();
+        changes.put("NAME", "a brown dog");
+        assertEquals(1, db.updateRow("NOTES", dog, changes));
+        db.deleteRow("NOTES", fox);
+        assertEquals(Arrays.asList(dog, cat), search("%brown%"));
+        assertEquals(Collections.singletonList(dog), search("%n dog"));
+        
+        db.clearTable("NOTES");
+        assertEquals(Collections.emptyList(), search("%brown%"));
+        long owl = insert("brown owl");
+        assertEquals(Collections.singletonList(owl), search("%own%"));
+    }
+    
+    @Test
+    void indexedSearchMatchesTheDatabase() {
+        
+        String[] names = {"alpha", "alphabet", "beta", "gamma", "alpaca", null, "the alphabet soup", "ALPHA"};
+        for (String name : names) {
+            insert(name);
+        }
+        String[] patterns = {"%lph%", "%alpha", "%bet%", "_lpha%", "%al%", "%a_c%", "%ALP%", "%p%a%"};
+        Map<String, List<Long>> scanned = new HashMap<>();
+        for (String pattern : patterns) {
+            scanned.put(pattern, search(pattern));
+        }
+        
+        assertTrue(db.createTextIndex("NOTES", "NAME"));
+        assertTrue(db.hasTextIndex("NOTES", "NAME"));
+        assertEquals(names.length - 1, db.rebuildTextIndex("NOTES", "NAME"));
+        for (String pattern : patterns) {
+            assertEquals(scanned.get(pattern), search(pattern), pattern);
+        }
+        
+        db.dropTextIndex("NOTES", "NAME");
+        assertFalse(db.hasTextIndex("NOTES", "NAME"));
+        assertEquals(-1, db.rebuildTextIndex("NOTES", "NAME"));
+    }
+}
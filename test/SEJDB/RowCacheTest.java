@@ -0,0 +1,127 @@
+package SEJDB;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Version checks of the {@link RowCache}: a row read before a change must never be cached after it.
+ *
+ * @author Dennis Sellemann <a>dsellemann@gmail.com</a>
+ * @version 0.5
+ */
+class RowCacheTest {
+    
+    private static Row row() {
+        
+        return new Row(RowLayout.empty(), new Object[0], 0);
+    }
+    
+    @Test
+    void rowReadBeforeAnInvalidationIsNotCached() {
+        
+        RowCache cache = new RowCache(10);
+        long version = cache.version();
+        //another thread deletes the row while it is read
+        cache.invalidate(1);
+        cache.put(1, row(), version);
+        
+        assertNull(cache.get(1));
+        Row fresh = row();
+        cache.put(1, fresh, cache.version());
+        assertSame(fresh, cache.get(1));
+    }
+    
+    @Test
+    void rowReadBeforeAClearIsNotCached() {
+        
+        RowCache cache = new RowCache(10);
+        long version = cache.version();
+        cache.clear();
+        cache.put(7, row(), version);
+        
+        assertEquals(0, cache.size());
+    }
+    
+    @Test
+    void containsDoesNotCountAsHitOrMiss() {
+        
+        RowCache cache = new RowCache(10);
+        cache.put(1, row(), cache.version());
+        
+        assertTrue(cache.contains(1));
+        assertFalse(cache.contains(2));
+        assertEquals(0, cache.getHits());
+        assertEquals(0, cache.getMisses());
+    }
+    
+    @Test
+    void leastRecentlyUsedRowIsEvicted() {
+        
+        RowCache cache = new RowCache(2);
+        cache.put(1, row(), cache.version());
+        cache.put(2, row(), cache.version());
+        cache.get(1);
+        cache.put(3, row(), cache.version());
+        
+        assertNotNull(cache.get(1));
+        assertNull(cache.get(2));
+        assertEquals(1, cache.getEvictions());
+    }
+    
+    @Test
+    void concurrentUpdatesNeverLeaveStaleRowsInTheCache() throws Exception {
+        
+        DBServices db = new DBServices("rowCacheTest", "", "", Storage.MEMORY);
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            db.createTable("RC");
+            db.enableRowCache("RC", 100);
+            List<Long> IDs = new ArrayList<>();
+            for (int i = 0; i < 10; i++) {
+                Map<String, Object> values = new HashMap<>();
+                values.put("NAME", "v0");
+                IDs.add(db.insertRow("RC", values));
+            }
+            List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < 4; t++) {
+                futures.add(executor.submit(() -> {
+                    for (int i = 1; i <= 200; i++) {
+                        Map<String, Object> values = new HashMap<>();
+                        values.put("NAME", "v" + i);
+                        db.updateRow("RC", IDs.get(i % IDs.size()), values);
+                    }
+                }));
+                futures.add(executor.submit(() -> {
+                    for (int i = 0; i < 2000; i++) {
+                        db.fetchRow("RC", IDs.get(i % IDs.size()));
+                    }
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+            
+            for (long ID : IDs) {
+                String stored = db.query("RC").where("ID", ID).fetch().get(0).getString("NAME");
+                assertEquals(stored, db.fetchRow("RC", ID).getString("NAME"), "cached row " + ID);
+            }
+        } finally {
+            executor.shutdownNow();
+            db.deleteDatabase();
+        }
+    }
+}
@@ -0,0 +1,98 @@
+package SEJDB;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.Statement;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Values of a {@link Row}: LOBs outlive their transaction and the String view matches {@link ResultSet#getString(int)}.
+ *
+ * @author Dennis Sellemann <a>dsellemann@gmail.com</a>
+ * @version 0.5
+ */
+class RowTest {
+    
+    private static final byte[] BYTES = {0x01, (byte) 0xFF, 0x7F};
+    
+    private DBServices db;
+    
+    @BeforeEach
+    void setUp() {
+        
+        db = new DBServices("rowTest", "", "", Storage.MEMORY);
+        db.createTable(new TableDefinition("DOCS",
+                new Column("DOC", "CLOB"),
+                new Column("B", "BLOB"),
+                new Column("VB", "VARCHAR(10) FOR BIT DATA"),
+                new Column("PRICE", "DECIMAL(20,10)")));
+        Map<String, Object> values = new HashMap<>();
+        values.put("DOC", "a long text");
+        values.put("B", BYTES);
+        values.put("VB", BYTES);
+        values.put("PRICE", BigDecimal.ZERO);
+        db.insertRow("DOCS", values);
+    }
+    
+    @AfterEach
+    void tearDown() {
+        
+        db.deleteDatabase();
+    }
+    
+    @Test
+    void lobsAreReadAsValues() {
+        
+        Row row = db.fetchRow("DOCS", 0);
+        
+        assertEquals("a long text", row.getObject("DOC"));
+        assertArrayEquals(BYTES, (byte[]) row.getObject("B"));
+        assertArrayEquals(BYTES, (byte[]) row.getObject("VB"));
+    }
+    
+    @Test
+    void cachedLobsStayReadable() {
+        
+        db.enableRowCache("DOCS", 10);
+        db.fetchRow("DOCS", 0);
+        long hits = db.getRowCacheHits();
+        
+        Row cached = db.fetchRow("DOCS", 0);
+        assertEquals(hits + 1, db.getRowCacheHits());
+        assertEquals("a long text", cached.getString("DOC"));
+        assertArrayEquals(BYTES, (byte[]) cached.getObject("B"));
+    }
+    
+    @Test
+    void stringsMatchTheDriver() throws Exception {
+        
+        Map<String, String> expected = new HashMap<>();
+        try (Connection conn = DriverManager.getConnection("jdbc:derby:memory:rowTest");
+             Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery("SELECT * FROM DOCS")) {
+            assertTrue(rs.next());
+            ResultSetMetaData rsmd = rs.getMetaData();
+            for (int i = 1; i <= rsmd.getColumnCount(); i++) {
+                expected.put(rsmd.getColumnName(i), rs.getString(i));
+            }
+        }
+        
+        assertEquals(expected, db.getRow("DOCS", 0));
+        assertEquals(expected, db.getRows("DOCS", Collections.singletonList(0L)).get(0L));
+        assertEquals("01ff7f", expected.get("VB"));
+        assertEquals("0.0000000000", expected.get("PRICE"));
+    }
+}
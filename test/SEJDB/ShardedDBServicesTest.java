@@ -0,0 +1,107 @@
+package SEJDB;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTimeoutPreemptively;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Global ID allocation and routing of {@link ShardedDBServices}.
+ *
+ * @author Dennis Sellemann <a>dsellemann@gmail.com</a>
+ * @version 0.5
+ */
+class ShardedDBServicesTest {
+    
+    private static final TableDefinition[] TABLES = {TableDefinition.standard("ITEMS"), TableDefinition.standard("COPIES")};
+    
+    private ShardedDBServices db;
+    
+    @AfterEach
+    void tearDown() {
+        
+        if (db != null) {
+            db.deleteDatabase();
+        }
+    }
+    
+    private long insert(String tableName, String name) {
+        
+        return db.insertRow(tableName, Collections.singletonMap("NAME", name));
+    }
+    
+    @Test
+    void concurrentInsertsGetUniqueIDsAcrossShards() throws Exception {
+        
+        db = new ShardedDBServices("shardedTestIDs", "", "", TABLES, 3);
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<List<Long>>> futures = new ArrayList<>();
+            for (int t = 0; t < 4; t++) {
+                futures.add(executor.submit(() -> {
+                    List<Long> IDs = new ArrayList<>();
+                    for (int i = 0; i < 25; i++) {
+                        IDs.add(insert("ITEMS", "item"));
+                    }
+                    return IDs;
+                }));
+            }
+            Set<Long> IDs = new HashSet<>();
+            for (Future<List<Long>> future : futures) {
+                IDs.addAll(future.get());
+            }
+            
+            assertEquals(100, IDs.size());
+            assertEquals(0, (long) Collections.min(IDs));
+            assertEquals(99, (long) Collections.max(IDs));
+            for (long ID : IDs) {
+                assertEquals("item", db.fetchRow("ITEMS", ID).getString("NAME"));
+            }
+            assertEquals(100, db.count("ITEMS"));
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+    
+    @Test
+    void counterIsSeededFromTheHighestIDOfAllShards() {
+        
+        db = new ShardedDBServices("shardedTestSeed", "", "", TABLES, 2, Sharding.RANGE, 10);
+        for (int i = 0; i < 15; i++) {
+            insert("ITEMS", "item" + i);
+        }
+        assertEquals(1, db.shardOf(insert("ITEMS", "second shard")));
+        db.closeConnection();
+        
+        db = new ShardedDBServices("shardedTestSeed", "", "", TABLES, 2, Sharding.RANGE, 10);
+        assertEquals(16, insert("ITEMS", "after restart"));
+    }
+    
+    @Test
+    void insertFromAForEachRowActionDoesntDeadlock() {
+        
+        db = new ShardedDBServices("shardedTestNested", "", "", TABLES, 2);
+        for (int i = 0; i < 20; i++) {
+            insert("ITEMS", "item" + i);
+        }
+        
+        //every shard thread is scanning when the first insert into COPIES seeds its counter
+        long scanned = assertTimeoutPreemptively(Duration.ofSeconds(60), () -> db.forEachRow("ITEMS",
+                row -> assertTrue(insert("COPIES", row.getString("NAME")) >= 0)));
+        assertEquals(20, scanned);
+        assertEquals(20, db.count("COPIES"));
+        assertEquals(1, db.getRows("COPIES", "NAME", "item7").size());
+    }
+}
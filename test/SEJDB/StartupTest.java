@@ -0,0 +1,92 @@
+package SEJDB;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.File;
+import java.util.Collections;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * {@link Startup#FAST} and {@link Startup#LAZY} instances: when they connect and which default tables they create.
+ *
+ * @author Dennis Sellemann <a>dsellemann@gmail.com</a>
+ * @version 0.5
+ */
+class StartupTest {
+    
+    private static final TableDefinition[] TABLES = {TableDefinition.standard("ITEMS")};
+    
+    private DBServices db;
+    
+    @AfterEach
+    void tearDown() {
+        
+        if (db != null) {
+            db.deleteDatabase();
+        }
+    }
+    
+    private static DBServices open(String dbName, TableDefinition[] tables, Storage storage, Startup startup) {
+        
+        return new DBServices(dbName, "", "", tables, Durability.STRICT, storage, startup);
+    }
+    
+    @Test
+    void lazyInstanceConnectsOnFirstUse() {
+        
+        db = open("startupTestLazy", TABLES, Storage.MEMORY, Startup.LAZY);
+        assertTrue(db.getStartupTimes().isEmpty());
+        
+        assertTrue(db.existsTable("ITEMS"));
+        assertTrue(db.getStartupTimes().containsKey("total"));
+        assertEquals(0, db.insertRow("ITEMS", Collections.singletonMap("NAME", "first")));
+    }
+    
+    @Test
+    void unusedLazyInstanceClosesAndDeletesWithoutConnecting() {
+        
+        DBServices lazy = open("startupTestUnused", TABLES, Storage.DISK, Startup.LAZY);
+        File directory = new File(System.getProperty("user.dir") + "/DataBases/startupTestUnused");
+        
+        lazy.closeConnection();
+        lazy.deleteDatabase();
+        assertFalse(directory.exists());
+        assertTrue(lazy.getStartupTimes().isEmpty());
+    }
+    
+    @Test
+    void fastStartKeepsTheTablesOfAnExistingDatabase() {
+        
+        DBServices first = open("startupTestFast", TABLES, Storage.MEMORY, Startup.FAST);
+        assertTrue(first.existsTable("ITEMS"));
+        first.insertRow("ITEMS", Collections.singletonMap("NAME", "kept"));
+        first.closeConnection();
+        
+        db = open("startupTestFast", TABLES, Storage.MEMORY, Startup.FAST);
+        assertEquals("kept", db.getRow("ITEMS", 0).get("NAME"));
+    }
+    
+    @Test
+    void fastStartCreatesDroppedAndNewDefaultTables() {
+        
+        DBServices first = open("startupTestChanged", TABLES, Storage.MEMORY, Startup.FAST);
+        first.insertRow("ITEMS", Collections.singletonMap("NAME", "kept"));
+        first.closeConnection();
+        
+        //a new definition changes the schema version; only the missing table is created
+        TableDefinition[] more = {TableDefinition.standard("ITEMS"), TableDefinition.standard("COPIES")};
+        DBServices second = open("startupTestChanged", more, Storage.MEMORY, Startup.FAST);
+        assertTrue(second.existsTable("COPIES"));
+        assertEquals("kept", second.getRow("ITEMS", 0).get("NAME"));
+        
+        //a dropped table leaves the schema version unchanged, but is created again
+        second.deleteTable("COPIES");
+        second.closeConnection();
+        db = open("startupTestChanged", more, Storage.MEMORY, Startup.FAST);
+        assertTrue(db.existsTable("COPIES"));
+    }
+}